@@ -11,6 +11,10 @@ db.createCollection("users");
 db.createCollection("tweets");
 db.createCollection("follows");
 db.createCollection("user_timeline");
+db.createCollection("outbox");
+db.createCollection("follower_buckets");
+db.createCollection("user_id_codes");
+db.createCollection("counters"); // contadores atómicos (próximo código de user_id_codes)
 
 print('Collections created successfully');
 
@@ -24,6 +28,7 @@ print('User indexes created successfully');
 // Índices para Tweets
 db.tweets.createIndex({ "user_id": 1, "created_at": -1 });
 db.tweets.createIndex({ "created_at": -1 });
+db.tweets.createIndex({ "fanout_pending": 1 }, { sparse: true });
 
 print('Tweet indexes created successfully');
 
@@ -31,6 +36,9 @@ print('Tweet indexes created successfully');
 db.follows.createIndex({ "follower_id": 1, "followed_id": 1 }, { unique: true });
 db.follows.createIndex({ "follower_id": 1 });
 db.follows.createIndex({ "followed_id": 1 });
+db.follows.createIndex({ "followed_id": 1, "follower_id": 1 }); // páginas de seguidores por cursor
+db.follower_buckets.createIndex({ "user_id": 1, "count": 1 }); // buckets de seguidores para el fanout
+db.user_id_codes.createIndex({ "code": 1 }, { unique: true }); // códigos enteros de usuario
 
 print('Follow indexes created successfully');
 
@@ -40,4 +48,10 @@ db.user_timeline.createIndex({ "tweet_id": 1 });
 
 print('Timeline indexes created successfully');
 
+// Índices para Outbox (relay de publicaciones a RabbitMQ)
+db.outbox.createIndex({ "next_attempt_at": 1 });
+db.outbox.createIndex({ "claimed_by": 1 }, { sparse: true });
+
+print('Outbox indexes created successfully');
+
 print('MongoDB development database setup completed successfully!'); 
\ No newline at end of file
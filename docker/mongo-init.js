@@ -21,6 +21,10 @@ db.createCollection('users');
 db.createCollection('tweets');
 db.createCollection('follows');
 db.createCollection('user_timeline');
+db.createCollection('outbox');
+db.createCollection('follower_buckets');
+db.createCollection('user_id_codes');
+db.createCollection('counters'); // contadores atómicos (próximo código de user_id_codes)
 
 // Índices para Users
 db.users.createIndex({ "username": 1 }, { unique: true });
@@ -30,11 +34,15 @@ db.users.createIndex({ "created_at": 1 });
 // Índices para Tweets
 db.tweets.createIndex({ "user_id": 1 });
 db.tweets.createIndex({ "created_at": -1 });
+db.tweets.createIndex({ "fanout_pending": 1 }, { sparse: true });
 db.tweets.createIndex({ "user_id": 1, "created_at": -1 });
 
 // Índices para Follows
 db.follows.createIndex({ "follower_id": 1 });
 db.follows.createIndex({ "followed_id": 1 });
+db.follows.createIndex({ "followed_id": 1, "follower_id": 1 }); // páginas de seguidores por cursor
+db.follower_buckets.createIndex({ "user_id": 1, "count": 1 }); // buckets de seguidores para el fanout
+db.user_id_codes.createIndex({ "code": 1 }, { unique: true }); // códigos enteros de usuario
 db.follows.createIndex({ "follower_id": 1, "followed_id": 1 }, { unique: true });
 db.follows.createIndex({ "created_at": 1 });
 
@@ -43,6 +51,10 @@ db.user_timeline.createIndex({ "user_id": 1 });
 db.user_timeline.createIndex({ "created_at": -1 });
 db.user_timeline.createIndex({ "user_id": 1, "created_at": -1 });
 
+// Índices para Outbox (relay de publicaciones a RabbitMQ)
+db.outbox.createIndex({ "next_attempt_at": 1 });
+db.outbox.createIndex({ "claimed_by": 1 }, { sparse: true });
+
 print('MongoDB initialization completed successfully!');
 print('Database: microblog');
 print('User created: microblog_user');
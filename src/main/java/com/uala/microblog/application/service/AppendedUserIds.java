@@ -0,0 +1,40 @@
+package com.uala.microblog.application.service;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Vista inmutable de una lista de IDs más un ID al final (p. ej. seguidores + autor), sin copiar
+ * la lista original: la lista cacheada de seguidores se comparte entre fanouts concurrentes.
+ */
+final class AppendedUserIds extends AbstractList<String> implements RandomAccess {
+    
+    private final List<String> userIds;
+    private final String userId;
+    
+    private AppendedUserIds(List<String> userIds, String userId) {
+        this.userIds = userIds;
+        this.userId = userId;
+    }
+    
+    /**
+     * userIds con userId al final, salvo que ya lo contenga
+     */
+    static List<String> of(List<String> userIds, String userId) {
+        if (userIds == null || userIds.isEmpty()) {
+            return List.of(userId);
+        }
+        return userIds.contains(userId) ? userIds : new AppendedUserIds(userIds, userId);
+    }
+    
+    @Override
+    public String get(int index) {
+        return index == userIds.size() ? userId : userIds.get(index);
+    }
+    
+    @Override
+    public int size() {
+        return userIds.size() + 1;
+    }
+}
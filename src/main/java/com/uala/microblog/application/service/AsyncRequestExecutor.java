@@ -0,0 +1,52 @@
+package com.uala.microblog.application.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Pool del modo asíncrono (microblog.web.async.enabled), compartido por los controllers de timeline
+ * y de tweets. Las lecturas y escrituras siguen siendo bloqueantes: el modo solo traslada el trabajo
+ * del hilo de Tomcat a este pool (la petición queda en Servlet async), no hace I/O no bloqueante.
+ * Por eso pool-size es el límite real de concurrencia y su default iguala a server.tomcat.threads.max;
+ * por encima de pool-size + queue-capacity la petición se rechaza (503).
+ */
+@Component
+@ConditionalOnProperty(name = "microblog.web.async.enabled", havingValue = "true")
+public class AsyncRequestExecutor implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AsyncRequestExecutor.class);
+    
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    
+    public AsyncRequestExecutor(@Value("${microblog.web.async.pool-size:200}") int poolSize,
+                                @Value("${microblog.web.async.queue-capacity:10000}") int queueCapacity) {
+        executor.setCorePoolSize(Math.max(1, poolSize));
+        executor.setMaxPoolSize(Math.max(1, poolSize));
+        executor.setQueueCapacity(Math.max(1, queueCapacity));
+        executor.setThreadNamePrefix("web-async-");
+        executor.setDaemon(true);
+        executor.initialize();
+        logger.info("Async request mode enabled (pool {}, queue {})", poolSize, queueCapacity);
+    }
+    
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, executor);
+    }
+    
+    public CompletableFuture<Void> run(Runnable work) {
+        return CompletableFuture.runAsync(work, executor);
+    }
+    
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
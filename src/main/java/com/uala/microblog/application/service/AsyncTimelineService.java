@@ -0,0 +1,39 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.TimelinePage;
+import com.uala.microblog.domain.entity.Tweet;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Modo asíncrono (microblog.web.async.enabled): las lecturas de timeline, incluida la reconstrucción
+ * cuando el timeline no está en Redis, corren en el AsyncRequestExecutor y el controller devuelve un
+ * CompletableFuture, liberando el hilo de Tomcat. Las lecturas siguen siendo bloqueantes en ese pool.
+ */
+@Service
+@ConditionalOnProperty(name = "microblog.web.async.enabled", havingValue = "true")
+public class AsyncTimelineService {
+    
+    private final TimelineService timelineService;
+    private final AsyncRequestExecutor executor;
+    
+    public AsyncTimelineService(TimelineService timelineService, AsyncRequestExecutor executor) {
+        this.timelineService = timelineService;
+        this.executor = executor;
+    }
+    
+    public CompletableFuture<List<Tweet>> getUserTimeline(String userId, int limit) {
+        return executor.supply(() -> timelineService.getUserTimeline(userId, limit));
+    }
+    
+    public CompletableFuture<TimelinePage> getUserTimelinePage(String userId, String cursor, Long maxScore, int limit) {
+        return executor.supply(() -> timelineService.getUserTimelinePage(userId, cursor, maxScore, limit));
+    }
+    
+    public String nextCursor(List<Tweet> tweets, int limit) {
+        return timelineService.nextCursor(tweets, limit);
+    }
+}
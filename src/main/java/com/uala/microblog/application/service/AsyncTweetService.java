@@ -0,0 +1,37 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.entity.TweetBatchResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Modo asíncrono (microblog.web.async.enabled) de las escrituras de tweets, en el AsyncRequestExecutor
+ */
+@Service
+@ConditionalOnProperty(name = "microblog.web.async.enabled", havingValue = "true")
+public class AsyncTweetService {
+    
+    private final TweetService tweetService;
+    private final AsyncRequestExecutor executor;
+    
+    public AsyncTweetService(TweetService tweetService, AsyncRequestExecutor executor) {
+        this.tweetService = tweetService;
+        this.executor = executor;
+    }
+    
+    public CompletableFuture<Tweet> createTweet(String content, String userId) {
+        return executor.supply(() -> tweetService.createTweet(content, userId));
+    }
+    
+    public CompletableFuture<List<TweetBatchResult>> createTweets(List<Tweet> drafts) {
+        return executor.supply(() -> tweetService.createTweets(drafts));
+    }
+    
+    public CompletableFuture<Void> deleteTweet(String tweetId, String userId) {
+        return executor.run(() -> tweetService.deleteTweet(tweetId, userId));
+    }
+}
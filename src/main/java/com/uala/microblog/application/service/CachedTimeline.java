@@ -0,0 +1,29 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.Tweet;
+
+import java.util.List;
+
+/**
+ * Timeline leído con un límite dado (entrada del near-cache y resultado compartido de una
+ * reconstrucción). Sirve cualquier límite menor, o cualquiera si el timeline completo tenía
+ * menos tweets que ese límite.
+ */
+final class CachedTimeline {
+    
+    private final int limit;
+    private final List<Tweet> tweets;
+    
+    CachedTimeline(int limit, List<Tweet> tweets) {
+        this.limit = limit;
+        this.tweets = List.copyOf(tweets);
+    }
+    
+    boolean covers(int requestedLimit) {
+        return requestedLimit <= limit || tweets.size() < limit;
+    }
+    
+    List<Tweet> first(int requestedLimit) {
+        return tweets.subList(0, Math.min(requestedLimit, tweets.size()));
+    }
+}
@@ -5,6 +5,7 @@ import com.uala.microblog.domain.port.FollowRepository;
 import com.uala.microblog.domain.port.UserRepository;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -30,7 +31,10 @@ public class FollowService {
         this.userRepository = userRepository;
     }
     
-    @CacheEvict(value = {"follows", "timeline"}, key = "#followerId")
+    @Caching(evict = {
+        @CacheEvict(value = {"follows", "timeline"}, key = "#followerId"),
+        @CacheEvict(value = "follows", key = "'followers:' + #followedId")
+    })
     public Follow followUser(String followerId, String followedId) {
         
         if (followerId == null || followerId.trim().isEmpty()) {
@@ -62,16 +66,43 @@ public class FollowService {
         
         
         try {
-            timelineService.invalidateUserTimeline(followerId);
+            timelineService.mergeAuthorIntoTimeline(followerId, followedId);
         } catch (Exception e) {
-            logger.warn("Failed to invalidate timeline for user {} after following user {}. Timeline will be rebuilt automatically on next access. Error: {}", 
+            logger.warn("Failed to update timeline for user {} after following user {}. Timeline will be rebuilt automatically on next access. Error: {}", 
                        followerId, followedId, e.getMessage(), e);
         }
         
         return savedFollow;
     }
     
-    @Cacheable(value = "follows", key = "#followerId")
+    @Caching(evict = {
+        @CacheEvict(value = {"follows", "timeline"}, key = "#followerId"),
+        @CacheEvict(value = "follows", key = "'followers:' + #followedId")
+    })
+    public void unfollowUser(String followerId, String followedId) {
+        
+        if (followerId == null || followerId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Follower ID is required");
+        }
+        if (followedId == null || followedId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Followed ID is required");
+        }
+        
+        if (!followRepository.existsByFollowerIdAndFollowedId(followerId, followedId)) {
+            throw new IllegalArgumentException("User " + followerId + " is not following user " + followedId);
+        }
+        
+        followRepository.deleteByFollowerIdAndFollowedId(followerId, followedId);
+        
+        try {
+            timelineService.removeAuthorFromTimeline(followerId, followedId);
+        } catch (Exception e) {
+            logger.warn("Failed to update timeline for user {} after unfollowing user {}. Error: {}", 
+                       followerId, followedId, e.getMessage(), e);
+        }
+    }
+    
+    @Cacheable(value = "follows", key = "#followerId", sync = true)
     public List<String> getFollowedUserIds(String followerId) {
         if (followerId == null || followerId.trim().isEmpty()) {
             throw new IllegalArgumentException("Follower ID is required");
@@ -79,11 +110,21 @@ public class FollowService {
         return followRepository.findFollowedUserIdsByFollowerId(followerId);
     }
     
-    @Cacheable(value = "follows", key = "'followers:' + #userId")
+    @Cacheable(value = "follows", key = "'followers:' + #userId", sync = true)
     public List<String> getFollowersIds(String userId) {
         if (userId == null || userId.trim().isEmpty()) {
             throw new IllegalArgumentException("User ID is required");
         }
         return followRepository.findFollowersByUserId(userId);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Cantidad de seguidores de un usuario, usada para decidir entre push y pull fanout
+     */
+    public long countFollowers(String userId) {
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID is required");
+        }
+        return followRepository.countFollowers(userId);
+    }
+}
\ No newline at end of file
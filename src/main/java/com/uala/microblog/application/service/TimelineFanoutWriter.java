@@ -0,0 +1,267 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.infrastructure.cache.TwoLevelCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Escritura batcheada de timelines en Redis.
+ * Divide la lista de destinatarios en batches y envía cada batch en un único pipeline
+ * (ZADD + ZREMRANGEBYRANK + EXPIRE por timeline), con un máximo de batches en vuelo.
+ * Los timelines guardan solo el ID del tweet; el cuerpo vive en TweetBodyCache.
+ * Después de cada pipeline se invalida el near-cache L1 de esos timelines en todos los nodos con
+ * un único mensaje por batch (TwoLevelCache.evictAll), en lugar de esperar a que venza timeline-ttl.
+ */
+@Component
+public class TimelineFanoutWriter implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TimelineFanoutWriter.class);
+    
+    static final Duration TIMELINE_TTL = Duration.ofDays(7);
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Cache timelineNearCache;
+    private final int batchSize;
+    private final int maxInFlightBatches;
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    
+    public TimelineFanoutWriter(RedisTemplate<String, Object> redisTemplate,
+                                CacheManager cacheManager,
+                                @Value("${microblog.fanout.batch-size:500}") int batchSize,
+                                @Value("${microblog.fanout.max-in-flight-batches:4}") int maxInFlightBatches,
+                                @Value("${microblog.fanout.thread-pool.core-size:5}") int corePoolSize,
+                                @Value("${microblog.fanout.thread-pool.max-size:20}") int maxPoolSize,
+                                @Value("${microblog.fanout.thread-pool.queue-capacity:100}") int queueCapacity) {
+        this.redisTemplate = redisTemplate;
+        Cache nearCache = cacheManager.getCache(TimelineService.TIMELINE_NEAR_CACHE);
+        this.timelineNearCache = nearCache != null ? nearCache : new NoOpCache(TimelineService.TIMELINE_NEAR_CACHE);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxInFlightBatches = Math.max(1, maxInFlightBatches);
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(Math.max(corePoolSize, maxPoolSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("fanout-");
+        executor.setDaemon(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+    }
+    
+    /**
+     * Agrega un tweet a los timelines de todos los usuarios indicados
+     */
+    public void addTweetToTimelines(List<String> userIds, Tweet tweet) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        
+        byte[] member = serializeValue(tweet.getId());
+        double score = score(tweet);
+        
+        writeInBatches(userIds, "fanout of tweet " + tweet.getId(),
+            batch -> writeBatch(batch, member, score));
+    }
+    
+    /**
+     * Agrega varios tweets a los timelines de todos los usuarios indicados: cada batch de usuarios
+     * recibe todos los tweets en un único pipeline, con un solo trim y expire por clave
+     */
+    public void addTweetsToTimelines(List<String> userIds, List<Tweet> tweets) {
+        if (userIds.isEmpty() || tweets.isEmpty()) {
+            return;
+        }
+        
+        writeInBatches(userIds, "grouped fanout of " + tweets.size() + " tweets", batch ->
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String userId : batch) {
+                    writeTweets(connection, userId, tweets);
+                }
+                return null;
+            }));
+    }
+    
+    /**
+     * Escribe en cada timeline los tweets que le corresponden (fanout coalescido por destinatario):
+     * cada batch de timelines va en un pipeline con un ZADD, un trim y un expire por timeline
+     */
+    public void addTweetsToTimelines(Map<String, List<Tweet>> tweetsByUser) {
+        if (tweetsByUser.isEmpty()) {
+            return;
+        }
+        
+        writeInBatches(new ArrayList<>(tweetsByUser.keySet()), "coalesced fanout to " + tweetsByUser.size() + " timelines", batch ->
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String userId : batch) {
+                    writeTweets(connection, userId, tweetsByUser.get(userId));
+                }
+                return null;
+            }));
+    }
+    
+    /**
+     * Quita un tweet de los timelines de los usuarios indicados, con el mismo batching que la escritura
+     */
+    public void removeTweetFromTimelines(List<String> userIds, String tweetId) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        
+        byte[] member = serializeValue(tweetId);
+        
+        writeInBatches(userIds, "removal of tweet " + tweetId, batch ->
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String userId : batch) {
+                    connection.zSetCommands().zRem(serializeKey(TimelineService.TIMELINE_KEY_PREFIX + userId), member);
+                }
+                return null;
+            }));
+    }
+    
+    /**
+     * Ejecuta batchWriter sobre batches de batch-size usuarios, con un máximo de batches en vuelo,
+     * e invalida el near-cache de cada batch escrito. Un único batch se escribe en el hilo llamador.
+     */
+    private void writeInBatches(List<String> userIds, String operation, Consumer<List<String>> batchWriter) {
+        if (userIds.size() <= batchSize) {
+            batchWriter.accept(userIds);
+            evictNearCache(userIds);
+            return;
+        }
+        
+        Semaphore inFlight = new Semaphore(maxInFlightBatches);
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        AtomicInteger failedBatches = new AtomicInteger();
+        
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            List<String> batch = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+            
+            inFlight.acquireUninterruptibly();
+            pending.add(CompletableFuture
+                .runAsync(() -> {
+                    batchWriter.accept(batch);
+                    evictNearCache(batch);
+                }, executor)
+                .whenComplete((ignored, error) -> {
+                    inFlight.release();
+                    if (error != null) {
+                        failedBatches.incrementAndGet();
+                        logger.error("Error writing batch of {} timelines for {}: {}",
+                            batch.size(), operation, error.getMessage(), error);
+                    }
+                }));
+        }
+        
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+            .exceptionally(error -> null)
+            .join();
+        
+        if (failedBatches.get() > 0) {
+            throw new IllegalStateException(failedBatches.get() + " batches failed for " + operation);
+        }
+    }
+    
+    private void evictNearCache(List<String> userIds) {
+        if (timelineNearCache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.evictAll(userIds);
+        } else {
+            userIds.forEach(timelineNearCache::evict);
+        }
+    }
+    
+    /**
+     * Agrega varios tweets (IDs) al timeline de un único usuario en un solo pipeline.
+     * No invalida el near-cache: lo hace quien llama (reconstrucción, follow)
+     */
+    public void addTweetsToTimeline(String userId, List<Tweet> tweets) {
+        if (tweets.isEmpty()) {
+            return;
+        }
+        
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            writeTweets(connection, userId, tweets);
+            return null;
+        });
+    }
+    
+    /**
+     * Un ZADD multi-miembro en el timeline, seguido de un solo trim y expire
+     */
+    private void writeTweets(RedisConnection connection, String userId, List<Tweet> tweets) {
+        Set<Tuple> members = new LinkedHashSet<>();
+        for (Tweet tweet : tweets) {
+            members.add(new DefaultTuple(serializeValue(tweet.getId()), score(tweet)));
+        }
+        
+        byte[] key = serializeKey(TimelineService.TIMELINE_KEY_PREFIX + userId);
+        connection.zSetCommands().zAdd(key, members);
+        trimAndExpire(connection, key);
+    }
+    
+    private void writeBatch(List<String> userIds, byte[] member, double score) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String userId : userIds) {
+                byte[] key = serializeKey(TimelineService.TIMELINE_KEY_PREFIX + userId);
+                connection.zSetCommands().zAdd(key, score, member);
+                trimAndExpire(connection, key);
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * ZREMRANGEBYRANK con índice negativo conserva los MAX_TIMELINE_SIZE más recientes sin un ZCARD previo
+     */
+    private void trimAndExpire(RedisConnection connection, byte[] key) {
+        connection.zSetCommands().zRemRange(key, 0, -(TimelineService.MAX_TIMELINE_SIZE + 1));
+        connection.keyCommands().expire(key, TIMELINE_TTL.getSeconds());
+    }
+    
+    /**
+     * Score en millis epoch UTC: coincide con la precisión de created_at en MongoDB,
+     * lo que permite continuar la paginación por cursor en la base
+     */
+    static double score(Tweet tweet) {
+        return tweet.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    private byte[] serializeKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private byte[] serializeValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+    
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,206 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.infrastructure.cache.EarlyRefresh;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinación de la reconstrucción de timelines que no están en Redis: single-flight por usuario
+ * en el nodo, lease opcional entre nodos y extensión anticipada del TTL de los timelines leídos (XFetch).
+ * La lectura del timeline materializado y la reconstrucción en sí las provee quien llama (TimelineService).
+ */
+@Component
+public class TimelineRebuildCoordinator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TimelineRebuildCoordinator.class);
+    private static final String REBUILD_LEASE_KEY_PREFIX = "timeline-rebuild:";
+    private static final long REBUILD_LEASE_POLL_MILLIS = 50;
+    
+    /**
+     * Libera el lease solo si sigue siendo del nodo que lo tomó
+     */
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+    
+    /**
+     * Lectura o reconstrucción del timeline de un usuario hasta limit tweets
+     */
+    @FunctionalInterface
+    public interface TimelineLoader {
+        List<Tweet> load(String userId, int limit);
+    }
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Counter localSuppressedRebuildsCounter;
+    private final Counter clusterSuppressedRebuildsCounter;
+    private final boolean leaseEnabled;
+    private final Duration leaseTtl;
+    private final Duration leaseMaxWait;
+    private final Duration refreshAhead;
+    private final double refreshAheadSampleRate;
+    
+    /**
+     * Single-flight: reconstrucción en curso por usuario en este nodo
+     */
+    private final Map<String, CompletableFuture<CachedTimeline>> inFlightRebuilds = new ConcurrentHashMap<>();
+    
+    public TimelineRebuildCoordinator(RedisTemplate<String, Object> redisTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${microblog.timeline.rebuild.lease.enabled:false}") boolean leaseEnabled,
+                                      @Value("${microblog.timeline.rebuild.lease.ttl:5s}") Duration leaseTtl,
+                                      @Value("${microblog.timeline.rebuild.lease.max-wait:2s}") Duration leaseMaxWait,
+                                      @Value("${microblog.timeline.refresh-ahead:1d}") Duration refreshAhead,
+                                      @Value("${microblog.timeline.refresh-ahead-sample:0.05}") double refreshAheadSampleRate) {
+        this.redisTemplate = redisTemplate;
+        this.leaseEnabled = leaseEnabled;
+        this.leaseTtl = leaseTtl;
+        this.leaseMaxWait = leaseMaxWait;
+        this.refreshAhead = refreshAhead;
+        this.refreshAheadSampleRate = refreshAheadSampleRate;
+        this.localSuppressedRebuildsCounter = Counter.builder("microblog.timeline.rebuilds.suppressed")
+            .description("Timeline rebuilds avoided by waiting for one already in progress")
+            .tag("scope", "local")
+            .register(meterRegistry);
+        this.clusterSuppressedRebuildsCounter = Counter.builder("microblog.timeline.rebuilds.suppressed")
+            .description("Timeline rebuilds avoided by waiting for one already in progress")
+            .tag("scope", "cluster")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Single-flight: solo una reconstrucción por usuario en curso en este nodo; las lecturas
+     * concurrentes esperan su resultado. Si el resultado no alcanza para el límite pedido
+     * (la reconstrucción en curso usaba un límite menor) se reconstruye con el propio.
+     *
+     * @param builder reconstruye el timeline y lo guarda en Redis
+     * @param reader  lee el timeline materializado, o null si todavía no existe (espera del lease)
+     */
+    public List<Tweet> rebuild(String userId, int limit, TimelineLoader builder, TimelineLoader reader) {
+        CompletableFuture<CachedTimeline> rebuild = new CompletableFuture<>();
+        CompletableFuture<CachedTimeline> inFlight = inFlightRebuilds.putIfAbsent(userId, rebuild);
+        
+        if (inFlight != null) {
+            CachedTimeline shared = inFlight.join();
+            if (shared.covers(limit)) {
+                localSuppressedRebuildsCounter.increment();
+                logger.debug("Timeline rebuild for user {} already in progress, reusing its result", userId);
+                return shared.first(limit);
+            }
+            return builder.load(userId, limit);
+        }
+        
+        try {
+            List<Tweet> tweets = rebuildWithLease(userId, limit, builder, reader);
+            rebuild.complete(new CachedTimeline(limit, tweets));
+            return tweets;
+        } catch (RuntimeException e) {
+            rebuild.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightRebuilds.remove(userId, rebuild);
+        }
+    }
+    
+    /**
+     * El sorted set se mantiene al día con cada fanout, así que refrescarlo antes de expirar es
+     * solo extender su TTL: los timelines que se siguen leyendo no expiran aunque no reciban tweets.
+     * Se decide con EarlyRefresh para no pagar un EXPIRE en cada lectura, y el PTTL solo se consulta
+     * en una muestra de refresh-ahead-sample de las lecturas: la ventana (1d) es mucho más larga que
+     * el intervalo entre lecturas de un timeline caliente, así que la muestra alcanza para extenderlo.
+     */
+    public void extendTtlIfExpiring(String timelineKey) {
+        if (refreshAhead.isZero() || ThreadLocalRandom.current().nextDouble() >= refreshAheadSampleRate) {
+            return;
+        }
+        try {
+            Long remainingMillis = redisTemplate.getExpire(timelineKey, TimeUnit.MILLISECONDS);
+            if (remainingMillis != null && remainingMillis > 0
+                    && EarlyRefresh.shouldRefresh(remainingMillis, refreshAhead.toMillis())) {
+                redisTemplate.expire(timelineKey, TimelineFanoutWriter.TIMELINE_TTL);
+                logger.debug("Extended TTL of hot timeline {}", timelineKey);
+            }
+        } catch (Exception e) {
+            logger.debug("Could not refresh TTL of timeline {}: {}", timelineKey, e.getMessage());
+        }
+    }
+    
+    /**
+     * Coalescing entre nodos (opcional): un lease SET NX PX por usuario. Quien no lo obtiene espera
+     * a que el timeline aparezca en Redis mientras el lease siga vigente, como máximo max-wait;
+     * después reconstruye por su cuenta. Ante errores de Redis se reconstruye sin lease.
+     */
+    private List<Tweet> rebuildWithLease(String userId, int limit, TimelineLoader builder, TimelineLoader reader) {
+        if (!leaseEnabled) {
+            return builder.load(userId, limit);
+        }
+        
+        String leaseKey = REBUILD_LEASE_KEY_PREFIX + userId;
+        String token = UUID.randomUUID().toString();
+        boolean acquired = true;
+        try {
+            acquired = Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(leaseKey, token, leaseTtl));
+            if (!acquired) {
+                List<Tweet> rebuiltElsewhere = awaitRebuildElsewhere(userId, leaseKey, limit, reader);
+                if (rebuiltElsewhere != null) {
+                    clusterSuppressedRebuildsCounter.increment();
+                    return rebuiltElsewhere;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Timeline rebuild lease unavailable for user {}: {}", userId, e.getMessage());
+        }
+        
+        try {
+            return builder.load(userId, limit);
+        } finally {
+            if (acquired) {
+                releaseLease(leaseKey, token);
+            }
+        }
+    }
+    
+    private List<Tweet> awaitRebuildElsewhere(String userId, String leaseKey, int limit, TimelineLoader reader)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + leaseMaxWait.toNanos();
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(REBUILD_LEASE_POLL_MILLIS);
+            
+            List<Tweet> tweets = reader.load(userId, limit);
+            if (tweets != null) {
+                logger.debug("Timeline of user {} rebuilt by another node", userId);
+                return tweets;
+            }
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(leaseKey))) {
+                return null;
+            }
+        }
+        return null;
+    }
+    
+    private void releaseLease(String leaseKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(leaseKey), token);
+        } catch (Exception e) {
+            logger.warn("Could not release timeline rebuild lease {}: {}", leaseKey, e.getMessage());
+        }
+    }
+}
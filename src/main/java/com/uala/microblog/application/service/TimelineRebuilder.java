@@ -0,0 +1,151 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.port.TweetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Reconstrucción de timelines desde MongoDB.
+ * Los seguidos se reparten en chunks de chunk-size autores y cada chunk se lee con una consulta
+ * acotada a limit: con pocos valores en el $in MongoDB recorre user_created_idx por autor y mezcla
+ * los rangos ya ordenados (SORT_MERGE) en lugar de ordenar en memoria. Los chunks se abren en
+ * paralelo (como máximo parallelism a la vez) y se leen como cursores: el heap pide a cada uno
+ * solo los tweets que llegan a limit, en vez de traer limit tweets de cada chunk.
+ */
+@Component
+public class TimelineRebuilder implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TimelineRebuilder.class);
+    
+    /**
+     * Más nuevo primero; a igual created_at, mayor ID primero (mismo orden que la paginación por cursor)
+     */
+    static final Comparator<Tweet> NEWEST_FIRST = Comparator
+        .comparing(Tweet::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+        .thenComparing(Tweet::getId, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+        .reversed();
+    
+    private final TweetRepository tweetRepository;
+    private final int chunkSize;
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    
+    public TimelineRebuilder(TweetRepository tweetRepository,
+                             @Value("${microblog.timeline.rebuild.chunk-size:100}") int chunkSize,
+                             @Value("${microblog.timeline.rebuild.parallelism:4}") int parallelism) {
+        this.tweetRepository = tweetRepository;
+        this.chunkSize = Math.max(1, chunkSize);
+        executor.setCorePoolSize(Math.max(1, parallelism));
+        executor.setMaxPoolSize(Math.max(1, parallelism));
+        executor.setThreadNamePrefix("timeline-rebuild-");
+        executor.setDaemon(true);
+        executor.initialize();
+    }
+    
+    /**
+     * Los limit tweets más recientes de los autores indicados, del más nuevo al más viejo
+     */
+    public List<Tweet> findRecentTweets(List<String> authorIds, int limit) {
+        List<String> authors = new ArrayList<>(new LinkedHashSet<>(authorIds));
+        if (authors.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (authors.size() <= chunkSize) {
+            return tweetRepository.findRecentTweetsByUserIds(authors, limit);
+        }
+        
+        List<CompletableFuture<Stream<Tweet>>> chunks = new ArrayList<>();
+        for (int from = 0; from < authors.size(); from += chunkSize) {
+            List<String> chunk = authors.subList(from, Math.min(from + chunkSize, authors.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> tweetRepository.streamRecentTweetsByUserIds(chunk, limit), executor));
+        }
+        
+        List<Stream<Tweet>> streams = new ArrayList<>(chunks.size());
+        RuntimeException failure = null;
+        for (CompletableFuture<Stream<Tweet>> chunk : chunks) {
+            try {
+                streams.add(chunk.join());
+            } catch (RuntimeException e) {
+                failure = failure != null ? failure : e;
+            }
+        }
+        
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            List<Tweet> merged = merge(streams.stream().map(Stream::iterator).toList(), limit);
+            
+            logger.debug("Rebuilt timeline from {} authors in {} chunks", authors.size(), chunks.size());
+            return merged;
+        } finally {
+            streams.forEach(Stream::close);
+        }
+    }
+    
+    /**
+     * K-way merge de cursores ya ordenados por NEWEST_FIRST: O(limit log k), se detiene al llegar a
+     * limit sin leer más de lo necesario de cada cursor
+     */
+    static List<Tweet> merge(List<Iterator<Tweet>> streams, int limit) {
+        PriorityQueue<StreamHead> heap = new PriorityQueue<>(Math.max(1, streams.size()),
+            Comparator.comparing((StreamHead head) -> head.current(), NEWEST_FIRST));
+        for (Iterator<Tweet> stream : streams) {
+            if (stream.hasNext()) {
+                heap.add(new StreamHead(stream));
+            }
+        }
+        
+        List<Tweet> merged = new ArrayList<>(limit);
+        while (merged.size() < limit && !heap.isEmpty()) {
+            StreamHead head = heap.poll();
+            merged.add(head.current());
+            if (head.advance()) {
+                heap.add(head);
+            }
+        }
+        return merged;
+    }
+    
+    private static final class StreamHead {
+        
+        private final Iterator<Tweet> tweets;
+        private Tweet current;
+        
+        private StreamHead(Iterator<Tweet> tweets) {
+            this.tweets = tweets;
+            this.current = tweets.next();
+        }
+        
+        private Tweet current() {
+            return current;
+        }
+        
+        private boolean advance() {
+            if (!tweets.hasNext()) {
+                return false;
+            }
+            current = tweets.next();
+            return true;
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -1,58 +1,119 @@
 package com.uala.microblog.application.service;
 
+import com.uala.microblog.domain.entity.TimelinePage;
 import com.uala.microblog.domain.entity.Tweet;
 import com.uala.microblog.domain.port.TweetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class TimelineService {
     
     private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
-    private static final String TIMELINE_KEY_PREFIX = "timeline:";
-    private static final int MAX_TIMELINE_SIZE = 800; 
+    static final String TIMELINE_KEY_PREFIX = "timeline:";
+    private static final String AUTHOR_TWEETS_KEY_PREFIX = "author-tweets:";
+    private static final String PULL_AUTHORS_KEY = "fanout:pull-authors";
+    static final int MAX_TIMELINE_SIZE = 800; 
     private static final int DEFAULT_LIMIT = 50;
+    private static final String MAX_CURSOR_ID = "ffffffffffffffffffffffff";
+    
+    /**
+     * Near-cache L1 de timelines (TTL corto, invalidado entre nodos)
+     */
+    static final String TIMELINE_NEAR_CACHE = "timeline";
     
     private final RedisTemplate<String, Object> redisTemplate;
     private final TweetRepository tweetRepository;
     private final FollowService followService;
+    private final TimelineFanoutWriter fanoutWriter;
+    private final TweetBodyCache tweetBodyCache;
+    private final TimelineRebuilder timelineRebuilder;
+    private final TimelineRebuildCoordinator rebuildCoordinator;
+    private final Cache timelineNearCache;
+    private final Counter pushFanoutCounter;
+    private final Counter pullFanoutCounter;
+    
+    @Value("${microblog.fanout.celebrity-threshold:10000}")
+    private long celebrityThreshold;
+    
+    /**
+     * Histéresis de pull: un autor sale recién por debajo de celebrity-threshold * exit-ratio
+     */
+    @Value("${microblog.fanout.celebrity-exit-ratio:0.8}")
+    private double celebrityExitRatio = 0.8;
     
     public TimelineService(RedisTemplate<String, Object> redisTemplate, 
                           TweetRepository tweetRepository,
-                          FollowService followService) {
+                          FollowService followService,
+                          TimelineFanoutWriter fanoutWriter,
+                          TweetBodyCache tweetBodyCache,
+                          TimelineRebuilder timelineRebuilder,
+                          TimelineRebuildCoordinator rebuildCoordinator,
+                          CacheManager cacheManager,
+                          MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
         this.tweetRepository = tweetRepository;
         this.followService = followService;
+        this.fanoutWriter = fanoutWriter;
+        this.tweetBodyCache = tweetBodyCache;
+        this.timelineRebuilder = timelineRebuilder;
+        this.rebuildCoordinator = rebuildCoordinator;
+        Cache nearCache = cacheManager.getCache(TIMELINE_NEAR_CACHE);
+        this.timelineNearCache = nearCache != null ? nearCache : new NoOpCache(TIMELINE_NEAR_CACHE);
+        this.pushFanoutCounter = Counter.builder("microblog.fanout.authors")
+            .description("Fanout decisions per path (push writes follower timelines, pull merges at read time)")
+            .tag("path", "push")
+            .register(meterRegistry);
+        this.pullFanoutCounter = Counter.builder("microblog.fanout.authors")
+            .description("Fanout decisions per path (push writes follower timelines, pull merges at read time)")
+            .tag("path", "pull")
+            .register(meterRegistry);
+        Gauge.builder("microblog.fanout.pull.authors", this, TimelineService::countPullAuthors)
+            .description("Distinct authors currently served through the pull path")
+            .register(meterRegistry);
     }
     
     /**
-     * Push Fanout: Distribuye un tweet a los timelines de todos los seguidores
+     * Fanout híbrido: Push para cuentas normales, Pull para cuentas con muchos seguidores.
+     * Los tweets de autores "celebrity" no se copian a cada seguidor; se guardan en una
+     * lista por autor y se mezclan en getUserTimeline al momento de la lectura.
      */
     public void distributeToFollowersTimelines(Tweet tweet) {
         try {
             
-            List<String> followerIds = getFollowersIds(tweet.getUserId());
-            
-            logger.info("Distributing tweet {} to {} followers", tweet.getId(), followerIds.size());
+            List<String> recipientIds = prepareFanout(tweet);
             
-            
-            followerIds.add(tweet.getUserId());
-            
-            
-            for (String followerId : followerIds) {
-                addTweetToUserTimeline(followerId, tweet);
-            }
-            
-            logger.info("Tweet {} successfully distributed to {} timelines", tweet.getId(), followerIds.size());
+            addTweetToTimelines(recipientIds, tweet);
+                
+            logger.info("Tweet {} successfully distributed to {} timelines", tweet.getId(), recipientIds.size());
             
         } catch (Exception e) {
             logger.error("Error distributing tweet {} to followers: {}", tweet.getId(), e.getMessage(), e);
@@ -60,30 +121,159 @@ public class TimelineService {
         }
     }
     
+    /**
+     * Primera etapa del fanout: guarda el cuerpo del tweet, decide entre push y pull y devuelve
+     * los timelines que deben recibir el ID. En pull el tweet ya queda publicado en la lista del autor.
+     */
+    public List<String> prepareFanout(Tweet tweet) {
+        return prepareFanout(tweet, countFollowers(tweet.getUserId()));
+    }
+    
+    /**
+     * prepareFanout con la cantidad de seguidores ya resuelta por el consumidor (elección de carril)
+     */
+    public List<String> prepareFanout(Tweet tweet, long followersCount) {
+        if (!tweetBodyCache.findDeleted(List.of(tweet.getId())).isEmpty()) {
+            logger.info("Tweet {} was deleted before its fanout, skipping it", tweet.getId());
+            return List.of();
+        }
+        tweetBodyCache.put(tweet);
+        timelineNearCache.evict(tweet.getUserId());
+        
+        boolean pullAuthor = followersCount < celebrityThreshold && isPullAuthor(tweet.getUserId());
+        if (followersCount >= celebrityThreshold || (pullAuthor && followersCount >= celebrityExitThreshold())) {
+            logger.info("Author {} has {} followers (threshold {}), using PULL fanout for tweet {}",
+                tweet.getUserId(), followersCount, celebrityThreshold, tweet.getId());
+            
+            addTweetToAuthorTimeline(tweet);
+            pullFanoutCounter.increment();
+            return List.of(tweet.getUserId());
+        }
+        
+        List<String> followerIds = getFollowersIds(tweet.getUserId());
+        
+        logger.info("Distributing tweet {} to {} followers", tweet.getId(), followerIds.size());
+        
+        List<String> recipientIds = AppendedUserIds.of(followerIds, tweet.getUserId());
+        if (pullAuthor) {
+            leavePull(tweet.getUserId(), followersCount, recipientIds);
+        }
+        pushFanoutCounter.increment();
+        
+        return recipientIds;
+    }
+    
+    /**
+     * Indica si un autor con followersCount seguidores va al carril de fanouts grandes: push con al
+     * menos largeFanoutThreshold seguidores (en pull solo se escribe la lista del autor)
+     */
+    public boolean isLargePushFanout(long followersCount, long largeFanoutThreshold) {
+        return followersCount >= largeFanoutThreshold && followersCount < celebrityThreshold;
+    }
+    
+    /**
+     * prepareFanout para varios tweets de un mismo autor (creación en batch): la decisión push/pull
+     * y la lectura de seguidores se hacen una sola vez para todo el grupo
+     */
+    public List<String> prepareBatchFanout(String authorId, List<Tweet> batchTweets) {
+        Set<String> deleted = tweetBodyCache.findDeleted(batchTweets.stream().map(Tweet::getId).toList());
+        List<Tweet> tweets = batchTweets.stream().filter(tweet -> !deleted.contains(tweet.getId())).toList();
+        if (tweets.isEmpty()) {
+            logger.info("All {} tweets of author {} were deleted before their fanout, skipping them", batchTweets.size(), authorId);
+            return List.of();
+        }
+        tweetBodyCache.putAll(tweets);
+        timelineNearCache.evict(authorId);
+        
+        long followersCount = countFollowers(authorId);
+        
+        boolean pullAuthor = followersCount < celebrityThreshold && isPullAuthor(authorId);
+        if (followersCount >= celebrityThreshold || (pullAuthor && followersCount >= celebrityExitThreshold())) {
+            tweets.forEach(this::addTweetToAuthorTimeline);
+            pullFanoutCounter.increment(tweets.size());
+            return List.of(authorId);
+        }
+        
+        List<String> followerIds = getFollowersIds(authorId);
+        List<String> recipientIds = AppendedUserIds.of(followerIds, authorId);
+        if (pullAuthor) {
+            leavePull(authorId, followersCount, recipientIds);
+        }
+        pushFanoutCounter.increment(tweets.size());
+        
+        logger.info("Distributing {} tweets of author {} to {} followers", tweets.size(), authorId, followerIds.size());
+        return recipientIds;
+    }
+    
+    /**
+     * Segunda etapa del fanout: escribe el tweet en los timelines indicados.
+     * Los errores se propagan para que el mensaje (o shard) se reintente.
+     */
+    public void addTweetToTimelines(List<String> userIds, Tweet tweet) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        fanoutWriter.addTweetToTimelines(userIds, tweet);
+        removeDeletedTweets(List.of(tweet), ignored -> userIds);
+    }
+    
+    /**
+     * Segunda etapa del fanout agrupado: escribe varios tweets en los timelines indicados
+     */
+    public void addTweetsToTimelines(List<String> userIds, List<Tweet> tweets) {
+        if (userIds.isEmpty() || tweets.isEmpty()) {
+            return;
+        }
+        fanoutWriter.addTweetsToTimelines(userIds, tweets);
+        removeDeletedTweets(tweets, ignored -> userIds);
+    }
+    
+    /**
+     * Segunda etapa del fanout coalescido: escribe en cada timeline sus tweets del batch de mensajes
+     */
+    public void addTweetsToTimelines(Map<String, List<Tweet>> tweetsByUser) {
+        if (tweetsByUser.isEmpty()) {
+            return;
+        }
+        fanoutWriter.addTweetsToTimelines(tweetsByUser);
+        
+        Map<String, Tweet> tweetsById = new HashMap<>();
+        tweetsByUser.values().forEach(tweets -> tweets.forEach(tweet -> tweetsById.putIfAbsent(tweet.getId(), tweet)));
+        removeDeletedTweets(new ArrayList<>(tweetsById.values()), tweet -> tweetsByUser.entrySet().stream()
+            .filter(entry -> entry.getValue().stream().anyMatch(userTweet -> tweet.getId().equals(userTweet.getId())))
+            .map(Entry::getKey)
+            .toList());
+    }
+    
+    /**
+     * Borrado que llegó mientras se escribía el fanout: el tombstone se escribe antes de encolar
+     * la remoción, así que si no aparece acá la remoción todavía va a correr después de esta escritura.
+     * Si aparece, se deshace lo escrito (cuerpo, lista del autor y timelines).
+     */
+    private void removeDeletedTweets(List<Tweet> tweets, Function<Tweet, List<String>> recipientsOf) {
+        Set<String> deleted = tweetBodyCache.findDeleted(tweets.stream().map(Tweet::getId).toList());
+        if (deleted.isEmpty()) {
+            return;
+        }
+        
+        for (Tweet tweet : tweets) {
+            if (deleted.remove(tweet.getId())) {
+                logger.info("Tweet {} was deleted during its fanout, removing it again", tweet.getId());
+                tweetBodyCache.evict(tweet.getId());
+                redisTemplate.opsForZSet().remove(AUTHOR_TWEETS_KEY_PREFIX + tweet.getUserId(), tweet.getId());
+                fanoutWriter.removeTweetFromTimelines(recipientsOf.apply(tweet), tweet.getId());
+            }
+        }
+    }
+    
     /**
      * Agrega un tweet al timeline pre-calculado de un usuario específico
-     * OPTIMIZADO: Almacena el tweet completo en Redis, no solo el ID
+     * OPTIMIZADO: El timeline guarda solo el ID; el cuerpo se guarda una vez en tweet:{id}
      */
     public void addTweetToUserTimeline(String userId, Tweet tweet) {
         try {
-            String timelineKey = TIMELINE_KEY_PREFIX + userId;
-            
-            
-            double score = tweet.getCreatedAt().toEpochSecond(ZoneOffset.UTC);
-            
-            
-            redisTemplate.opsForZSet().add(timelineKey, tweet, score);
-            
-            
-            long timelineSize = redisTemplate.opsForZSet().zCard(timelineKey);
-            if (timelineSize > MAX_TIMELINE_SIZE) {
-                
-                long toRemove = timelineSize - MAX_TIMELINE_SIZE;
-                redisTemplate.opsForZSet().removeRange(timelineKey, 0, toRemove - 1);
-            }
-            
-            
-            redisTemplate.expire(timelineKey, java.time.Duration.ofDays(7));
+            tweetBodyCache.put(tweet);
+            fanoutWriter.addTweetToTimelines(List.of(userId), tweet);
             
             logger.debug("Tweet {} added to timeline of user {}", tweet.getId(), userId);
             
@@ -94,28 +284,82 @@ public class TimelineService {
     }
     
     /**
-     * Obtiene el timeline pre-calculado de un usuario desde Redis
-     * OPTIMIZADO: Lee tweets completos directamente de Redis, sin consulta a MongoDB
+     * Pull Fanout: guarda el tweet en la lista de tweets recientes del autor
+     * y lo registra como autor servido por pull
+     */
+    private void addTweetToAuthorTimeline(Tweet tweet) {
+        String authorKey = AUTHOR_TWEETS_KEY_PREFIX + tweet.getUserId();
+        double score = TimelineFanoutWriter.score(tweet);
+        
+        redisTemplate.opsForZSet().add(authorKey, tweet.getId(), score);
+        
+        redisTemplate.opsForZSet().removeRange(authorKey, 0, -(MAX_TIMELINE_SIZE + 1));
+        redisTemplate.expire(authorKey, TimelineFanoutWriter.TIMELINE_TTL);
+        
+        redisTemplate.opsForSet().add(PULL_AUTHORS_KEY, tweet.getUserId());
+        
+        logger.debug("Tweet {} added to pull timeline of author {}", tweet.getId(), tweet.getUserId());
+    }
+    
+    private double celebrityExitThreshold() {
+        return celebrityThreshold * celebrityExitRatio;
+    }
+    
+    /**
+     * Indica si el autor está registrado como autor pull; ante error se asume que no (push)
+     */
+    private boolean isPullAuthor(String authorId) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(PULL_AUTHORS_KEY, authorId));
+        } catch (Exception e) {
+            logger.error("Error checking pull fanout membership of author {}: {}", authorId, e.getMessage(), e);
+            return false;
+        }
+    }
+    
+    /**
+     * Vuelta a push de un autor que quedó por debajo del umbral de salida: sus tweets recientes se copian
+     * a los timelines de los seguidores antes de quitarlo del set, así la lectura nunca deja de verlos.
+     * Si la copia falla el autor sigue en pull y el error se propaga para reintentar el mensaje.
+     */
+    private void leavePull(String authorId, long followersCount, List<String> recipientIds) {
+        List<Tweet> recentTweets = tweetRepository.findRecentTweetsByUserId(authorId, MAX_TIMELINE_SIZE);
+        tweetBodyCache.putAll(recentTweets);
+        fanoutWriter.addTweetsToTimelines(recipientIds, recentTweets);
+        
+        redisTemplate.opsForSet().remove(PULL_AUTHORS_KEY, authorId);
+        logger.info("Author {} has {} followers (exit threshold {}), moved back to PUSH fanout with {} recent tweets",
+            authorId, followersCount, (long) celebrityExitThreshold(), recentTweets.size());
+    }
+    
+    /**
+     * Obtiene el timeline pre-calculado de un usuario
+     * OPTIMIZADO: Los timelines calientes se sirven desde el near-cache L1 sin ir a Redis
      */
     public List<Tweet> getUserTimeline(String userId, int limit) {
+        CachedTimeline cached = timelineNearCache.get(userId, CachedTimeline.class);
+        if (cached != null && cached.covers(limit)) {
+            logger.debug("Timeline of user {} served from near-cache", userId);
+            return cached.first(limit);
+        }
+        
+        List<Tweet> tweets = readUserTimeline(userId, limit);
+        timelineNearCache.put(userId, new CachedTimeline(limit, tweets));
+        return tweets;
+    }
+    
+    /**
+     * Lee el timeline pre-calculado de un usuario desde Redis
+     * OPTIMIZADO: Lee IDs del sorted set y los cuerpos con un único MGET, sin consulta a MongoDB
+     */
+    private List<Tweet> readUserTimeline(String userId, int limit) {
         try {
-            String timelineKey = TIMELINE_KEY_PREFIX + userId;
-            
-            
-            Set<Object> tweetsFromRedis = redisTemplate.opsForZSet()
-                .reverseRange(timelineKey, 0, limit - 1);
-            
-            if (tweetsFromRedis.isEmpty()) {
+            List<Tweet> tweets = readCachedTimeline(userId, limit);
+            if (tweets == null) {
                 logger.info("No cached timeline found for user {}, building from scratch", userId);
-                return buildTimelineFromScratch(userId, limit);
+                return rebuildTimeline(userId, limit);
             }
             
-            
-            List<Tweet> tweets = tweetsFromRedis.stream()
-                .map(obj -> (Tweet) obj)
-                .sorted((t1, t2) -> t2.getCreatedAt().compareTo(t1.getCreatedAt()))
-                .collect(Collectors.toList());
-            
             logger.info("Retrieved {} tweets from cached timeline for user {} (NO MongoDB query needed)", 
                 tweets.size(), userId);
             return tweets;
@@ -123,38 +367,278 @@ public class TimelineService {
         } catch (Exception e) {
             logger.error("Error retrieving timeline for user {}: {}", userId, e.getMessage(), e);
             
-            return buildTimelineFromScratch(userId, limit);
+            return rebuildTimeline(userId, limit);
+        }
+    }
+    
+    /**
+     * Timeline materializado en Redis, o null si el sorted set no existe (o está vacío)
+     */
+    private List<Tweet> readCachedTimeline(String userId, int limit) {
+        String timelineKey = TIMELINE_KEY_PREFIX + userId;
+        Set<TypedTuple<Object>> entriesFromRedis = redisTemplate.opsForZSet()
+            .reverseRangeWithScores(timelineKey, 0, limit - 1);
+        
+        if (entriesFromRedis == null || entriesFromRedis.isEmpty()) {
+            return null;
+        }
+        rebuildCoordinator.extendTtlIfExpiring(timelineKey);
+        
+        List<TypedTuple<Object>> entries = new ArrayList<>(entriesFromRedis);
+        entries.addAll(readPullAuthorsEntries(userId, limit));
+        
+        return resolveTweets(topEntries(entries, limit));
+    }
+    
+    /**
+     * Reconstrucción coordinada (single-flight y lease entre nodos) en TimelineRebuildCoordinator
+     */
+    private List<Tweet> rebuildTimeline(String userId, int limit) {
+        return rebuildCoordinator.rebuild(userId, limit, this::buildTimelineFromScratch, this::readCachedTimeline);
+    }
+    
+    /**
+     * Pull Fanout: entradas recientes de los autores seguidos que no reciben push,
+     * para mezclarlas en lectura con el timeline
+     */
+    private List<TypedTuple<Object>> readPullAuthorsEntries(String userId, int limit) {
+        List<TypedTuple<Object>> entries = new ArrayList<>();
+        for (String authorId : getFollowedPullAuthors(userId)) {
+            Set<TypedTuple<Object>> authorEntries = redisTemplate.opsForZSet()
+                .reverseRangeWithScores(AUTHOR_TWEETS_KEY_PREFIX + authorId, 0, limit - 1);
+            if (authorEntries != null) {
+                entries.addAll(authorEntries);
+            }
+        }
+        
+        if (!entries.isEmpty()) {
+            logger.debug("Merged pull-fanout tweets into timeline of user {}", userId);
+        }
+        return entries;
+    }
+    
+    /**
+     * Autores seguidos por el usuario que se sirven por pull (un único SMISMEMBER)
+     */
+    private List<String> getFollowedPullAuthors(String userId) {
+        List<String> followedUserIds = followService.getFollowedUserIds(userId);
+        if (followedUserIds == null || followedUserIds.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Object, Boolean> pullMembership = redisTemplate.opsForSet()
+            .isMember(PULL_AUTHORS_KEY, followedUserIds.toArray());
+        if (pullMembership == null) {
+            return List.of();
+        }
+        
+        List<String> pullAuthorIds = new ArrayList<>();
+        pullMembership.forEach((authorId, isPullAuthor) -> {
+            if (Boolean.TRUE.equals(isPullAuthor)) {
+                pullAuthorIds.add(String.valueOf(authorId));
+            }
+        });
+        return pullAuthorIds;
+    }
+    
+    /**
+     * Las limit entradas más recientes (score desc, id desc), sin duplicados
+     */
+    private List<TypedTuple<Object>> topEntries(List<TypedTuple<Object>> entries, int limit) {
+        Map<String, TypedTuple<Object>> unique = new HashMap<>();
+        for (TypedTuple<Object> entry : entries) {
+            if (entry != null && entry.getValue() != null) {
+                unique.putIfAbsent(memberId(entry.getValue()), entry);
+            }
+        }
+        
+        return unique.entrySet().stream()
+            .sorted(Comparator.comparing((Entry<String, TypedTuple<Object>> entry) -> scoreOf(entry.getValue()))
+                .thenComparing(Entry::getKey)
+                .reversed())
+            .limit(limit)
+            .map(Entry::getValue)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Resuelve los cuerpos de las entradas con un MGET a tweet:{id}. Las entradas previas
+     * al cambio a IDs (tweet completo como miembro) se convierten directamente.
+     */
+    private List<Tweet> resolveTweets(List<TypedTuple<Object>> entries) {
+        List<String> tweetIds = entries.stream()
+            .map(TypedTuple::getValue)
+            .filter(String.class::isInstance)
+            .map(String.class::cast)
+            .collect(Collectors.toList());
+        
+        Map<String, Tweet> bodies = tweetIds.isEmpty() ? Map.of() : tweetBodyCache.getAll(tweetIds);
+        
+        List<Tweet> tweets = new ArrayList<>(entries.size());
+        for (TypedTuple<Object> entry : entries) {
+            Object member = entry.getValue();
+            Tweet tweet = member instanceof String tweetId ? bodies.get(tweetId) : TweetBodyCache.toTweet(member);
+            if (tweet != null) {
+                tweets.add(tweet);
+            }
+        }
+        return tweets;
+    }
+    
+    private static String memberId(Object member) {
+        if (member instanceof String tweetId) {
+            return tweetId;
+        }
+        if (member instanceof Map<?, ?> legacy) {
+            return Objects.toString(legacy.get("id"), "");
+        }
+        return Objects.toString(TweetBodyCache.toTweet(member).getId(), "");
+    }
+    
+    private static double scoreOf(TypedTuple<Object> entry) {
+        return entry.getScore() != null ? entry.getScore() : 0;
+    }
+    
+    /**
+     * Paginación por cursor: devuelve la página de tweets anteriores al cursor
+     * (o a maxScore, en millis epoch UTC). Sin cursor ni maxScore devuelve la primera página.
+     * Lee el sorted set con ZREVRANGEBYSCORE + LIMIT; cuando el cache se agota (timeline
+     * recortado a MAX_TIMELINE_SIZE, expirado o nunca construido) continúa en MongoDB por created_at.
+     */
+    public TimelinePage getUserTimelinePage(String userId, String cursor, Long maxScore, int limit) {
+        if (cursor == null && maxScore == null) {
+            List<Tweet> tweets = getUserTimeline(userId, limit);
+            return new TimelinePage(tweets, nextCursor(tweets, limit));
+        }
+        
+        TimelineCursor bound = cursor != null
+            ? TimelineCursor.decode(cursor)
+            : new TimelineCursor(maxScore, MAX_CURSOR_ID);
+        
+        List<Tweet> tweets = readCachedPage(userId, bound, limit);
+        
+        if (tweets.size() < limit) {
+            TimelineCursor storedBound = tweets.isEmpty() ? bound : TimelineCursor.after(tweets.get(tweets.size() - 1));
+            List<Tweet> storedTweets = readStoredPage(userId, storedBound, limit - tweets.size());
+            
+            logger.debug("Timeline cache exhausted for user {}, {} tweets read from MongoDB", userId, storedTweets.size());
+            tweets.addAll(storedTweets);
+        }
+        
+        return new TimelinePage(tweets, nextCursor(tweets, limit));
+    }
+    
+    /**
+     * Cursor para pedir la página siguiente, o null si no hay más tweets
+     */
+    public String nextCursor(List<Tweet> tweets, int limit) {
+        if (tweets == null || tweets.isEmpty() || tweets.size() < limit) {
+            return null;
+        }
+        return TimelineCursor.after(tweets.get(tweets.size() - 1)).encode();
+    }
+    
+    /**
+     * Página desde el cache: mezcla timeline:{user} con las listas de los autores pull, pero solo
+     * hasta la entrada más vieja que todas las fuentes todavía cubren (el timeline se recorta antes
+     * que las listas pull). Lo que queda por debajo lo completa la continuación en MongoDB.
+     */
+    private List<Tweet> readCachedPage(String userId, TimelineCursor bound, int limit) {
+        try {
+            List<String> keys = new ArrayList<>();
+            keys.add(TIMELINE_KEY_PREFIX + userId);
+            for (String authorId : getFollowedPullAuthors(userId)) {
+                keys.add(AUTHOR_TWEETS_KEY_PREFIX + authorId);
+            }
+            
+            List<TypedTuple<Object>> candidates = new ArrayList<>();
+            TimelineCursor floor = null;
+            for (String key : keys) {
+                TimelineCursor oldest = oldestCachedEntry(key);
+                if (oldest == null) {
+                    logger.debug("Timeline source {} not cached, reading page of user {} from MongoDB", key, userId);
+                    return new ArrayList<>();
+                }
+                if (floor == null || oldest.precedes(floor.createdAtMillis, floor.tweetId)) {
+                    floor = oldest;
+                }
+                candidates.addAll(readRangeBefore(key, bound, limit));
+            }
+            TimelineCursor coveredUntil = floor;
+            
+            List<TypedTuple<Object>> page = topEntries(candidates.stream()
+                .filter(entry -> entry != null && entry.getValue() != null)
+                .filter(entry -> bound.precedes((long) scoreOf(entry), memberId(entry.getValue())))
+                .filter(entry -> !coveredUntil.precedes((long) scoreOf(entry), memberId(entry.getValue())))
+                .collect(Collectors.toList()), limit);
+            
+            return new ArrayList<>(resolveTweets(page));
+        
+        } catch (Exception e) {
+            logger.error("Error reading cached timeline page for user {}: {}", userId, e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Entradas del sorted set anteriores al cursor: las del mismo milisegundo del cursor
+     * (desempate por id) más, como máximo, limit entradas estrictamente más viejas
+     */
+    private List<TypedTuple<Object>> readRangeBefore(String key, TimelineCursor bound, int limit) {
+        List<TypedTuple<Object>> entries = new ArrayList<>();
+        double maxScore = bound.createdAtMillis;
+        
+        Set<TypedTuple<Object>> sameMillis = redisTemplate.opsForZSet()
+            .reverseRangeByScoreWithScores(key, maxScore, maxScore);
+        if (sameMillis != null) {
+            entries.addAll(sameMillis);
+        }
+        
+        Set<TypedTuple<Object>> older = redisTemplate.opsForZSet()
+            .reverseRangeByScoreWithScores(key, Double.NEGATIVE_INFINITY, maxScore - 1, 0, limit);
+        if (older != null) {
+            entries.addAll(older);
         }
+        return entries;
+    }
+    
+    /**
+     * Entrada más vieja que conserva el sorted set (ZRANGE 0 0), o null si la clave no existe
+     */
+    private TimelineCursor oldestCachedEntry(String key) {
+        Set<TypedTuple<Object>> oldest = redisTemplate.opsForZSet().rangeWithScores(key, 0, 0);
+        if (oldest == null || oldest.isEmpty()) {
+            return null;
+        }
+        TypedTuple<Object> entry = oldest.iterator().next();
+        return new TimelineCursor((long) scoreOf(entry), memberId(entry.getValue()));
+    }
+    
+    private List<Tweet> readStoredPage(String userId, TimelineCursor bound, int limit) {
+        List<String> userIds = AppendedUserIds.of(followService.getFollowedUserIds(userId), userId);
+        
+        return tweetRepository.findTweetsByUserIdsBefore(userIds, bound.createdAt(), bound.tweetId, limit);
     }
     
     /**
      * Construye el timeline desde cero cuando no existe en cache (fallback)
-     * OPTIMIZADO: También almacena tweets completos en el cache
+     * OPTIMIZADO: También almacena los IDs en el timeline y los cuerpos en tweet:{id}.
+     * La lectura en MongoDB la hace TimelineRebuilder (chunks en paralelo + k-way merge).
      */
     private List<Tweet> buildTimelineFromScratch(String userId, int limit) {
         try {
             logger.info("Building timeline from scratch for user {}", userId);
             
             
-            List<String> followedUserIds = followService.getFollowedUserIds(userId);
-            followedUserIds.add(userId); 
+            List<String> followedUserIds = AppendedUserIds.of(followService.getFollowedUserIds(userId), userId);
             
             
-            List<Tweet> tweets = tweetRepository.findRecentTweetsByUserIds(followedUserIds, limit);
+            List<Tweet> tweets = timelineRebuilder.findRecentTweets(followedUserIds, limit);
             
             
             if (!tweets.isEmpty()) {
-                String timelineKey = TIMELINE_KEY_PREFIX + userId;
-                ZSetOperations<String, Object> zSetOps = redisTemplate.opsForZSet();
-                
-                
-                for (Tweet tweet : tweets) {
-                    double score = tweet.getCreatedAt().toEpochSecond(ZoneOffset.UTC);
-                    zSetOps.add(timelineKey, tweet, score);
-                }
-                
-                
-                redisTemplate.expire(timelineKey, java.time.Duration.ofDays(7));
+                tweetBodyCache.putAll(tweets);
+                fanoutWriter.addTweetsToTimeline(userId, tweets);
                 
                 logger.info("Timeline cache populated for user {} with {} complete tweets", userId, tweets.size());
             }
@@ -179,6 +663,27 @@ public class TimelineService {
         }
     }
     
+    /**
+     * Cantidad de seguidores del autor; ante error se asume push (comportamiento por defecto)
+     */
+    public long countFollowers(String userId) {
+        try {
+            return followService.countFollowers(userId);
+        } catch (Exception e) {
+            logger.error("Error counting followers for user {}: {}", userId, e.getMessage(), e);
+            return 0;
+        }
+    }
+    
+    private double countPullAuthors() {
+        try {
+            Long size = redisTemplate.opsForSet().size(PULL_AUTHORS_KEY);
+            return size != null ? size : 0;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+    
     /**
      * Invalida el timeline cache de un usuario (útil para follow/unfollow)
      */
@@ -186,12 +691,83 @@ public class TimelineService {
         try {
             String timelineKey = TIMELINE_KEY_PREFIX + userId;
             redisTemplate.delete(timelineKey);
+            timelineNearCache.evict(userId);
             logger.info("Timeline cache invalidated for user {}", userId);
         } catch (Exception e) {
             logger.error("Error invalidating timeline for user {}: {}", userId, e.getMessage(), e);
         }
     }
     
+    /**
+     * Follow: mezcla los tweets recientes del autor en el timeline ya materializado del seguidor
+     * en lugar de descartarlo. Si el timeline no está en Redis no hay nada que hacer: se construye
+     * en la próxima lectura. Los autores pull se mezclan en lectura y no se copian.
+     */
+    public void mergeAuthorIntoTimeline(String userId, String authorId) {
+        String timelineKey = TIMELINE_KEY_PREFIX + userId;
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(timelineKey))) {
+            timelineNearCache.evict(userId);
+            return;
+        }
+        
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(PULL_AUTHORS_KEY, authorId))) {
+                List<Tweet> authorTweets = tweetRepository.findRecentTweetsByUserId(authorId, MAX_TIMELINE_SIZE);
+                tweetBodyCache.putAll(authorTweets);
+                fanoutWriter.addTweetsToTimeline(userId, authorTweets);
+                logger.info("Merged {} tweets from user {} into timeline of user {}", authorTweets.size(), authorId, userId);
+            }
+            timelineNearCache.evict(userId);
+        } catch (Exception e) {
+            logger.warn("Could not merge tweets from user {} into timeline of user {}, invalidating it: {}",
+                authorId, userId, e.getMessage());
+            invalidateUserTimeline(userId);
+        }
+    }
+    
+    /**
+     * Unfollow: quita del timeline materializado los tweets del autor. El timeline guarda solo IDs,
+     * así que se recorre con ZSCAN (acotado: el timeline se recorta a MAX_TIMELINE_SIZE) y el autor
+     * de cada ID sale de TweetBodyCache (un MGET; los cuerpos faltantes se buscan en MongoDB).
+     */
+    public void removeAuthorFromTimeline(String userId, String authorId) {
+        String timelineKey = TIMELINE_KEY_PREFIX + userId;
+        try {
+            Map<String, Object> membersById = scanTimelineMembers(timelineKey);
+            Object[] members = tweetBodyCache.getAll(membersById.keySet()).values().stream()
+                .filter(tweet -> authorId.equals(tweet.getUserId()))
+                .map(tweet -> membersById.get(tweet.getId()))
+                .toArray();
+            if (members.length > 0) {
+                redisTemplate.opsForZSet().remove(timelineKey, members);
+            }
+            logger.info("Removed {} tweets from user {} out of timeline of user {}", members.length, authorId, userId);
+            timelineNearCache.evict(userId);
+        } catch (Exception e) {
+            logger.warn("Could not remove tweets from user {} out of timeline of user {}, invalidating it: {}",
+                authorId, userId, e.getMessage());
+            invalidateUserTimeline(userId);
+        }
+    }
+    
+    /**
+     * Miembros del timeline por ID de tweet, leídos con ZSCAN. El corte en el doble de MAX_TIMELINE_SIZE
+     * deja margen para los ZADD de un fanout que todavía no recortó el timeline.
+     */
+    private Map<String, Object> scanTimelineMembers(String timelineKey) {
+        Map<String, Object> membersById = new HashMap<>();
+        ScanOptions options = ScanOptions.scanOptions().count(MAX_TIMELINE_SIZE).build();
+        try (Cursor<TypedTuple<Object>> cursor = redisTemplate.opsForZSet().scan(timelineKey, options)) {
+            while (cursor.hasNext() && membersById.size() < 2 * MAX_TIMELINE_SIZE) {
+                Object member = cursor.next().getValue();
+                if (member != null) {
+                    membersById.put(memberId(member), member);
+                }
+            }
+        }
+        return membersById;
+    }
+    
     /**
      * Obtiene timeline con límite por defecto
      */
@@ -200,25 +776,69 @@ public class TimelineService {
     }
     
     /**
-     * NUEVO: Invalida un tweet específico de todos los timelines que lo contengan
-     * Útil si un tweet se actualiza o elimina
+     * Primera etapa del borrado de un tweet: lo quita de la lista pull del autor y devuelve los
+     * timelines que pueden contenerlo, recalculados a partir de los seguidores actuales del autor
+     * (quien dejó de seguirlo ya no lo tiene por el unfollow; quien lo siguió después lo recibió en el merge).
      */
-    public void invalidateTweetFromTimelines(Tweet tweet) {
-        try {
-            
-            
-            logger.warn("Tweet invalidation from timelines is expensive - consider implementing an inverse index");
-            
+    public List<String> prepareTweetRemoval(String authorId, String tweetId) {
+        redisTemplate.opsForZSet().remove(AUTHOR_TWEETS_KEY_PREFIX + authorId, tweetId);
+        timelineNearCache.evict(authorId);
             
-            List<String> affectedUsers = getFollowersIds(tweet.getUserId());
-            affectedUsers.add(tweet.getUserId());
+        return AppendedUserIds.of(getFollowersIds(authorId), authorId);
+    }
             
-            for (String userId : affectedUsers) {
-                invalidateUserTimeline(userId);
+    /**
+     * Segunda etapa del borrado: ZREM del ID en cada timeline, en batches pipelined.
+     * Los errores se propagan para que el mensaje se reintente (ZREM es idempotente).
+     */
+    public void removeTweetFromTimelines(List<String> userIds, String tweetId) {
+        fanoutWriter.removeTweetFromTimelines(userIds, tweetId);
+    }
+    
+    /**
+     * Posición de paginación: created_at en millis epoch UTC e id del último tweet entregado
+     */
+    private static final class TimelineCursor {
+        
+        private final long createdAtMillis;
+        private final String tweetId;
+        
+        private TimelineCursor(long createdAtMillis, String tweetId) {
+            this.createdAtMillis = createdAtMillis;
+            this.tweetId = tweetId;
+        }
+        
+        static TimelineCursor after(Tweet tweet) {
+            return new TimelineCursor((long) TimelineFanoutWriter.score(tweet), Objects.toString(tweet.getId(), ""));
+        }
+        
+        static TimelineCursor decode(String cursor) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = decoded.indexOf(':');
+                return new TimelineCursor(Long.parseLong(decoded.substring(0, separator)), decoded.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid timeline cursor");
             }
-            
-        } catch (Exception e) {
-            logger.error("Error invalidating tweet {} from timelines: {}", tweet.getId(), e.getMessage(), e);
+        }
+        
+        String encode() {
+            String raw = createdAtMillis + ":" + tweetId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        LocalDateTime createdAt() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(createdAtMillis), ZoneOffset.UTC);
+        }
+        
+        /**
+         * true si la entrada (score en millis, id) va después del cursor en el orden del timeline
+         */
+        boolean precedes(long millis, String id) {
+            if (millis != createdAtMillis) {
+                return millis < createdAtMillis;
+            }
+            return id.compareTo(tweetId) < 0;
         }
     }
-} 
\ No newline at end of file
+} 
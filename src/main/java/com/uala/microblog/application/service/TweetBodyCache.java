@@ -0,0 +1,164 @@
+package com.uala.microblog.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.port.TweetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Cache compartido de cuerpos de tweets (tweet:{id}).
+ * Los timelines guardan solo IDs: el cuerpo se escribe una vez por tweet y se lee con MGET.
+ * Los cuerpos que no están en Redis se cargan de MongoDB y se vuelven a cachear.
+ * Los tweets borrados dejan un tombstone (tweet-deleted:{id}) que el fanout consulta, porque el
+ * mensaje de fanout puede llegar después del borrado (outbox y colas sin orden entre sí).
+ */
+@Component
+public class TweetBodyCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TweetBodyCache.class);
+    
+    static final String TWEET_KEY_PREFIX = "tweet:";
+    static final String TOMBSTONE_KEY_PREFIX = "tweet-deleted:";
+    
+    /**
+     * Los valores de Redis se leen sin type hints, por lo que pueden llegar como Map
+     */
+    private static final ObjectMapper TWEET_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final TweetRepository tweetRepository;
+    
+    public TweetBodyCache(RedisTemplate<String, Object> redisTemplate, TweetRepository tweetRepository) {
+        this.redisTemplate = redisTemplate;
+        this.tweetRepository = tweetRepository;
+    }
+    
+    /**
+     * Guarda el cuerpo de un tweet
+     */
+    public void put(Tweet tweet) {
+        redisTemplate.opsForValue().set(key(tweet.getId()), tweet, TimelineFanoutWriter.TIMELINE_TTL);
+    }
+    
+    /**
+     * Guarda varios cuerpos en un único pipeline
+     */
+    public void putAll(Collection<Tweet> tweets) {
+        if (tweets.isEmpty()) {
+            return;
+        }
+        
+        Expiration expiration = Expiration.from(TimelineFanoutWriter.TIMELINE_TTL);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Tweet tweet : tweets) {
+                connection.stringCommands().set(key(tweet.getId()).getBytes(StandardCharsets.UTF_8),
+                    serializeValue(tweet), expiration, RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Obtiene los cuerpos de los tweets indicados con un MGET; los faltantes se buscan en MongoDB.
+     * Los tweets que ya no existen no aparecen en el resultado.
+     */
+    public Map<String, Tweet> getAll(Collection<String> tweetIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(tweetIds));
+        Map<String, Tweet> tweets = new HashMap<>();
+        if (ids.isEmpty()) {
+            return tweets;
+        }
+        
+        List<Object> cached = redisTemplate.opsForValue().multiGet(
+            ids.stream().map(TweetBodyCache::key).collect(Collectors.toList()));
+        
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object value = cached != null ? cached.get(i) : null;
+            if (value != null) {
+                tweets.put(ids.get(i), toTweet(value));
+            } else {
+                missingIds.add(ids.get(i));
+            }
+        }
+        
+        if (!missingIds.isEmpty()) {
+            List<Tweet> stored = tweetRepository.findByIds(missingIds);
+            stored.forEach(tweet -> tweets.put(tweet.getId(), tweet));
+            
+            logger.debug("Loaded {} of {} missing tweet bodies from MongoDB", stored.size(), missingIds.size());
+            putAll(stored);
+        }
+        
+        return tweets;
+    }
+    
+    /**
+     * Elimina el cuerpo de un tweet (edición o borrado: una única escritura)
+     */
+    public void evict(String tweetId) {
+        redisTemplate.delete(key(tweetId));
+    }
+    
+    /**
+     * Tombstone del tweet borrado; dura lo mismo que los timelines, que es lo más que puede tardar un fanout
+     */
+    public void markDeleted(String tweetId) {
+        redisTemplate.opsForValue().set(TOMBSTONE_KEY_PREFIX + tweetId, Boolean.TRUE, TimelineFanoutWriter.TIMELINE_TTL);
+    }
+    
+    /**
+     * IDs de los tweets indicados que tienen tombstone (un único MGET)
+     */
+    public Set<String> findDeleted(Collection<String> tweetIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(tweetIds));
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        
+        List<Object> tombstones = redisTemplate.opsForValue().multiGet(
+            ids.stream().map(id -> TOMBSTONE_KEY_PREFIX + id).collect(Collectors.toList()));
+        Set<String> deleted = new HashSet<>();
+        for (int i = 0; tombstones != null && i < ids.size(); i++) {
+            if (tombstones.get(i) != null) {
+                deleted.add(ids.get(i));
+            }
+        }
+        return deleted;
+    }
+    
+    static Tweet toTweet(Object value) {
+        if (value instanceof Tweet tweet) {
+            return tweet;
+        }
+        return TWEET_MAPPER.convertValue(value, Tweet.class);
+    }
+    
+    private static String key(String tweetId) {
+        return TWEET_KEY_PREFIX + tweetId;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private byte[] serializeValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+}
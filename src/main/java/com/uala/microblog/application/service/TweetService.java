@@ -1,13 +1,19 @@
 package com.uala.microblog.application.service;
 
 import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.entity.TweetBatchResult;
+import com.uala.microblog.domain.entity.User;
 import com.uala.microblog.domain.port.TweetRepository;
 import com.uala.microblog.domain.port.UserRepository;
 import com.uala.microblog.infrastructure.messaging.FanoutMessageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class TweetService {
@@ -17,11 +23,14 @@ public class TweetService {
     private final TweetRepository tweetRepository;
     private final UserRepository userRepository;
     private final FanoutMessageService fanoutMessageService;
+    private final TweetBodyCache tweetBodyCache;
     
-    public TweetService(TweetRepository tweetRepository, UserRepository userRepository, FanoutMessageService fanoutMessageService) {
+    public TweetService(TweetRepository tweetRepository, UserRepository userRepository, FanoutMessageService fanoutMessageService,
+                        TweetBodyCache tweetBodyCache) {
         this.tweetRepository = tweetRepository;
         this.userRepository = userRepository;
         this.fanoutMessageService = fanoutMessageService;
+        this.tweetBodyCache = tweetBodyCache;
     }
     
     public Tweet createTweet(String content, String userId) {
@@ -51,13 +60,113 @@ public class TweetService {
             logger.info("Tweet {} created by user {} - PUSH FANOUT message sent for timeline distribution", 
                 savedTweet.getId(), userId);
         } catch (Exception e) {
-            logger.error("Error sending fanout message for tweet {}: {}", savedTweet.getId(), e.getMessage(), e);
-            
+            logger.error("Error sending fanout message for tweet {}, left pending for the sweep: {}", savedTweet.getId(), e.getMessage(), e);
         }
         
         return savedTweet;
     }
     
+    /**
+     * Crea varios tweets en una sola operación: valida los ítems, verifica los autores con una
+     * única consulta $in, inserta los válidos con un insertMany y publica el fanout agrupado por autor.
+     * Los ítems inválidos no cortan el batch; su error se devuelve en el resultado de su posición.
+     */
+    public List<TweetBatchResult> createTweets(List<Tweet> drafts) {
+        
+        if (drafts == null || drafts.isEmpty()) {
+            throw new IllegalArgumentException("At least one tweet is required");
+        }
+        
+        TweetBatchResult[] results = new TweetBatchResult[drafts.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        List<Tweet> validTweets = new ArrayList<>();
+        
+        for (int i = 0; i < drafts.size(); i++) {
+            Tweet draft = drafts.get(i);
+            if (draft == null) {
+                results[i] = TweetBatchResult.rejected(i, "Tweet is required");
+                continue;
+            }
+            try {
+                Tweet tweet = new Tweet(draft.getContent() != null ? draft.getContent().trim() : null, draft.getUserId());
+                tweet.validate();
+                validIndexes.add(i);
+                validTweets.add(tweet);
+            } catch (IllegalArgumentException e) {
+                results[i] = TweetBatchResult.rejected(i, e.getMessage());
+            }
+        }
+        
+        
+        List<String> authorIds = validTweets.stream().map(Tweet::getUserId).distinct().toList();
+        Set<String> existingUserIds = authorIds.isEmpty() ? Set.of() : userRepository.findByIds(authorIds).stream()
+            .map(User::getId)
+            .collect(Collectors.toSet());
+        
+        List<Integer> insertIndexes = new ArrayList<>();
+        List<Tweet> toInsert = new ArrayList<>();
+        for (int i = 0; i < validTweets.size(); i++) {
+            Tweet tweet = validTweets.get(i);
+            if (existingUserIds.contains(tweet.getUserId())) {
+                insertIndexes.add(validIndexes.get(i));
+                toInsert.add(tweet);
+            } else {
+                results[validIndexes.get(i)] = TweetBatchResult.rejected(validIndexes.get(i), "User not found with ID: " + tweet.getUserId());
+            }
+        }
+        
+        
+        List<Tweet> savedTweets = toInsert.isEmpty() ? List.of() : tweetRepository.saveAll(toInsert);
+        for (int i = 0; i < savedTweets.size(); i++) {
+            results[insertIndexes.get(i)] = TweetBatchResult.created(insertIndexes.get(i), savedTweets.get(i));
+        }
+        
+        
+        if (!savedTweets.isEmpty()) {
+            try {
+                fanoutMessageService.sendFanoutBatch(savedTweets);
+                logger.info("{} tweets created in batch ({} rejected) - grouped PUSH FANOUT messages sent",
+                    savedTweets.size(), drafts.size() - savedTweets.size());
+            } catch (Exception e) {
+                logger.error("Error sending fanout messages for batch of {} tweets, left pending for the sweep: {}", savedTweets.size(), e.getMessage(), e);
+            }
+        }
+        
+        return Arrays.asList(results);
+    }
+    
+    /**
+     * Borra un tweet de su autor. El cuerpo cacheado se descarta en el momento (los timelines
+     * dejan de mostrarlo); los IDs se quitan de los timelines en background vía RabbitMQ.
+     * El tombstone se escribe antes que nada para que un fanout todavía en curso no lo reviva.
+     */
+    public void deleteTweet(String tweetId, String userId) {
+        
+        if (tweetId == null || tweetId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Tweet ID is required");
+        }
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID is required");
+        }
+        
+        Tweet tweet = tweetRepository.findById(tweetId)
+            .orElseThrow(() -> new IllegalArgumentException("Tweet not found with ID: " + tweetId));
+        if (!userId.equals(tweet.getUserId())) {
+            throw new IllegalArgumentException("Tweet " + tweetId + " does not belong to user " + userId);
+        }
+        
+        tweetRepository.deleteById(tweetId);
+        
+        try {
+            tweetBodyCache.markDeleted(tweetId);
+            tweetBodyCache.evict(tweetId);
+            fanoutMessageService.sendTweetDeletionMessage(tweet);
+            logger.info("Tweet {} deleted by user {} - removal from timelines queued", tweetId, userId);
+        } catch (Exception e) {
+            logger.error("Error queueing removal of tweet {} from timelines: {}", tweetId, e.getMessage(), e);
+        }
+    }
+    
     public List<Tweet> findTweetsByUserIds(List<String> userIds) {
         if (userIds == null || userIds.isEmpty()) {
             return List.of();
@@ -0,0 +1,138 @@
+package com.uala.microblog.application.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.uala.microblog.domain.entity.User;
+import com.uala.microblog.domain.port.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Carga de usuarios por lotes (listas de seguidores y seguidos) con cache en Redis (user:{id}).
+ * Cada lote de CHUNK_SIZE IDs es un MGET y, para los faltantes, una consulta $in a MongoDB;
+ * los usuarios cargados se vuelven a cachear en un pipeline.
+ */
+@Component
+public class UserBatchLoader {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserBatchLoader.class);
+    
+    static final String USER_KEY_PREFIX = "user:";
+    static final int CHUNK_SIZE = 500;
+    private static final Duration USER_TTL = Duration.ofHours(2);
+    
+    /**
+     * Los valores de Redis se leen sin type hints, por lo que pueden llegar como Map
+     */
+    private static final ObjectMapper USER_MAPPER = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final UserRepository userRepository;
+    
+    public UserBatchLoader(RedisTemplate<String, Object> redisTemplate, UserRepository userRepository) {
+        this.redisTemplate = redisTemplate;
+        this.userRepository = userRepository;
+    }
+    
+    /**
+     * Usuarios con los IDs indicados, en el mismo orden. Los IDs que no existen se omiten.
+     */
+    public List<User> getAll(List<String> userIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        Map<String, User> users = new HashMap<>();
+        
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            users.putAll(loadChunk(ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()))));
+        }
+        
+        return userIds.stream()
+            .map(users::get)
+            .filter(user -> user != null)
+            .collect(Collectors.toList());
+    }
+    
+    private Map<String, User> loadChunk(List<String> ids) {
+        Map<String, User> users = new HashMap<>();
+        List<String> missingIds = new ArrayList<>();
+        
+        try {
+            List<Object> cached = redisTemplate.opsForValue().multiGet(
+                ids.stream().map(UserBatchLoader::key).collect(Collectors.toList()));
+            for (int i = 0; i < ids.size(); i++) {
+                Object value = cached != null ? cached.get(i) : null;
+                if (value != null) {
+                    users.put(ids.get(i), toUser(value));
+                } else {
+                    missingIds.add(ids.get(i));
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not read cached users, loading {} users from MongoDB: {}", ids.size(), e.getMessage());
+            missingIds = new ArrayList<>(ids);
+        }
+        
+        if (!missingIds.isEmpty()) {
+            List<User> stored = userRepository.findByIds(missingIds);
+            stored.forEach(user -> users.put(user.getId(), user));
+            
+            logger.debug("Loaded {} of {} missing users from MongoDB", stored.size(), missingIds.size());
+            putAll(stored);
+        }
+        
+        return users;
+    }
+    
+    private void putAll(Collection<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        
+        try {
+            Expiration expiration = Expiration.from(USER_TTL);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (User user : users) {
+                    connection.stringCommands().set(key(user.getId()).getBytes(StandardCharsets.UTF_8),
+                        serializeValue(user), expiration, RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("Could not cache {} users: {}", users.size(), e.getMessage());
+        }
+    }
+    
+    static User toUser(Object value) {
+        if (value instanceof User user) {
+            return user;
+        }
+        return USER_MAPPER.convertValue(value, User.class);
+    }
+    
+    private static String key(String userId) {
+        return USER_KEY_PREFIX + userId;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private byte[] serializeValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+}
@@ -2,12 +2,19 @@ package com.uala.microblog.application.service;
 
 import com.uala.microblog.domain.entity.User;
 import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.entity.UserPage;
 import com.uala.microblog.domain.port.UserRepository;
 import com.uala.microblog.domain.port.FollowRepository;
 import com.uala.microblog.domain.port.TweetRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class UserService {
@@ -15,11 +22,16 @@ public class UserService {
     private final UserRepository userRepository;
     private final FollowRepository followRepository;
     private final TweetRepository tweetRepository;
+    private final UserBatchLoader userBatchLoader;
     
-    public UserService(UserRepository userRepository, FollowRepository followRepository, TweetRepository tweetRepository) {
+    static final int MAX_PAGE_SIZE = 1000;
+    
+    public UserService(UserRepository userRepository, FollowRepository followRepository, TweetRepository tweetRepository,
+                       UserBatchLoader userBatchLoader) {
         this.userRepository = userRepository;
         this.followRepository = followRepository;
         this.tweetRepository = tweetRepository;
+        this.userBatchLoader = userBatchLoader;
     }
     
     public User createUser(String username, String email) {
@@ -46,8 +58,11 @@ public class UserService {
     }
     
     
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    /**
+     * Todos los usuarios, leídos con un cursor de MongoDB; quien consume el stream debe cerrarlo
+     */
+    public Stream<User> streamAllUsers() {
+        return userRepository.streamAll();
     }
     
     public User getUserById(String userId) {
@@ -55,21 +70,78 @@ public class UserService {
             .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + userId));
     }
     
-    public List<User> getFollowers(String userId) {
-        List<String> followerIds = followRepository.findFollowersByUserId(userId);
-        return followerIds.stream()
-            .map(this::getUserById)
-            .toList();
+    /**
+     * Seguidores completos sin materializar la lista: los IDs salen de un cursor y se resuelven
+     * en lotes con UserBatchLoader a medida que se consume el stream (que debe cerrarse)
+     */
+    public Stream<User> streamFollowers(String userId) {
+        return resolveUsers(followRepository.streamFollowerIds(userId));
+    }
+    
+    public Stream<User> streamFollowing(String userId) {
+        return resolveUsers(followRepository.streamFollowedIds(userId));
+    }
+    
+    private Stream<User> resolveUsers(Stream<String> userIds) {
+        Iterator<String> ids = userIds.iterator();
+        Iterator<List<String>> chunks = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+            
+            @Override
+            public List<String> next() {
+                List<String> chunk = new ArrayList<>(UserBatchLoader.CHUNK_SIZE);
+                while (ids.hasNext() && chunk.size() < UserBatchLoader.CHUNK_SIZE) {
+                    chunk.add(ids.next());
+                }
+                return chunk;
+            }
+        };
+        
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+            .flatMap(chunk -> userBatchLoader.getAll(chunk).stream())
+            .onClose(userIds::close);
+    }
+    
+    /**
+     * Paginación por cursor de seguidores: el cursor es el ID del último seguidor de la página
+     * anterior (keyset sobre el índice followed_id + follower_id), sin cursor es la primera página
+     */
+    public UserPage getFollowersPage(String userId, String cursor, int limit) {
+        validatePageSize(limit);
+        List<String> followerIds = followRepository.findFollowersPage(userId, cursor, limit);
+        return new UserPage(userBatchLoader.getAll(followerIds), nextCursor(followerIds, limit));
+    }
+    
+    /**
+     * Paginación por cursor de seguidos, con el mismo formato de cursor que getFollowersPage
+     */
+    public UserPage getFollowingPage(String userId, String cursor, int limit) {
+        validatePageSize(limit);
+        List<String> followedIds = followRepository.findFollowedPage(userId, cursor, limit);
+        return new UserPage(userBatchLoader.getAll(followedIds), nextCursor(followedIds, limit));
+    }
+    
+    private static void validatePageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
     }
     
-    public List<User> getFollowing(String userId) {
-        List<String> followingIds = followRepository.findFollowedUserIdsByFollowerId(userId);
-        return followingIds.stream()
-            .map(this::getUserById)
-            .toList();
+    /**
+     * El cursor sale de los IDs de la relación (no de los usuarios cargados) para no cortar la
+     * paginación si algún usuario ya no existe
+     */
+    private static String nextCursor(List<String> ids, int limit) {
+        return ids.size() < limit ? null : ids.get(ids.size() - 1);
     }
     
-    public List<Tweet> getUserTweets(String userId) {
-        return tweetRepository.findByUserId(userId);
+    /**
+     * Tweets del usuario, más nuevos primero, leídos con un cursor; quien consume el stream debe cerrarlo
+     */
+    public Stream<Tweet> streamUserTweets(String userId) {
+        return tweetRepository.streamByUserId(userId);
     }
 } 
\ No newline at end of file
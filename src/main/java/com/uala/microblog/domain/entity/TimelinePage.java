@@ -0,0 +1,44 @@
+package com.uala.microblog.domain.entity;
+
+import java.util.List;
+
+public class TimelinePage {
+    private List<Tweet> tweets;
+    private String nextCursor;
+    
+    public TimelinePage() {
+    }
+    
+    public TimelinePage(List<Tweet> tweets, String nextCursor) {
+        this.tweets = tweets;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<Tweet> getTweets() {
+        return tweets;
+    }
+    
+    public void setTweets(List<Tweet> tweets) {
+        this.tweets = tweets;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+    
+    @Override
+    public String toString() {
+        return "TimelinePage{" +
+                "tweets=" + (tweets != null ? tweets.size() : 0) +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
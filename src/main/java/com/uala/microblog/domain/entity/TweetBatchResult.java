@@ -0,0 +1,64 @@
+package com.uala.microblog.domain.entity;
+
+/**
+ * Resultado de un ítem de una creación de tweets en batch: el tweet creado o el motivo del rechazo
+ */
+public class TweetBatchResult {
+    private int index;
+    private Tweet tweet;
+    private String error;
+    
+    public TweetBatchResult() {
+    }
+    
+    public TweetBatchResult(int index, Tweet tweet, String error) {
+        this.index = index;
+        this.tweet = tweet;
+        this.error = error;
+    }
+    
+    public static TweetBatchResult created(int index, Tweet tweet) {
+        return new TweetBatchResult(index, tweet, null);
+    }
+    
+    public static TweetBatchResult rejected(int index, String error) {
+        return new TweetBatchResult(index, null, error);
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public Tweet getTweet() {
+        return tweet;
+    }
+    
+    public void setTweet(Tweet tweet) {
+        this.tweet = tweet;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    public boolean isCreated() {
+        return tweet != null;
+    }
+    
+    @Override
+    public String toString() {
+        return "TweetBatchResult{" +
+                "index=" + index +
+                ", created=" + isCreated() +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
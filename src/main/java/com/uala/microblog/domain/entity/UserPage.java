@@ -0,0 +1,44 @@
+package com.uala.microblog.domain.entity;
+
+import java.util.List;
+
+public class UserPage {
+    private List<User> users;
+    private String nextCursor;
+    
+    public UserPage() {
+    }
+    
+    public UserPage(List<User> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<User> getUsers() {
+        return users;
+    }
+    
+    public void setUsers(List<User> users) {
+        this.users = users;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+    
+    @Override
+    public String toString() {
+        return "UserPage{" +
+                "users=" + (users != null ? users.size() : 0) +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
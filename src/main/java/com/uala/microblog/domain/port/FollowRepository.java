@@ -2,6 +2,7 @@ package com.uala.microblog.domain.port;
 
 import com.uala.microblog.domain.entity.Follow;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface FollowRepository {
     
@@ -11,5 +12,29 @@ public interface FollowRepository {
     
     List<String> findFollowersByUserId(String userId);
     
+    /**
+     * IDs de seguidores leídos con un cursor de la base; quien consume el stream debe cerrarlo
+     */
+    Stream<String> streamFollowerIds(String userId);
+    
+    /**
+     * IDs de seguidos leídos con un cursor de la base; quien consume el stream debe cerrarlo
+     */
+    Stream<String> streamFollowedIds(String followerId);
+    
+    /**
+     * Página de seguidores ordenada por ID, a partir del siguiente a afterFollowerId (null: desde el inicio)
+     */
+    List<String> findFollowersPage(String userId, String afterFollowerId, int limit);
+    
+    /**
+     * Página de seguidos ordenada por ID, a partir del siguiente a afterFollowedId (null: desde el inicio)
+     */
+    List<String> findFollowedPage(String followerId, String afterFollowedId, int limit);
+    
     boolean existsByFollowerIdAndFollowedId(String followerId, String followedId);
+    
+    long countFollowers(String userId);
+    
+    void deleteByFollowerIdAndFollowedId(String followerId, String followedId);
 } 
\ No newline at end of file
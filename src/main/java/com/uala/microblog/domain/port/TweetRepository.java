@@ -1,21 +1,64 @@
 package com.uala.microblog.domain.port;
 
 import com.uala.microblog.domain.entity.Tweet;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TweetRepository {
     
     Tweet save(Tweet tweet);
     
+    /**
+     * Inserts new tweets in a single bulk write, returned in the same order with their IDs
+     */
+    List<Tweet> saveAll(List<Tweet> tweets);
+    
     Optional<Tweet> findById(String id);
     
+    void deleteById(String id);
+    
+    List<Tweet> findByIds(List<String> ids);
+    
     List<Tweet> findByUserIdInOrderByCreatedAtDesc(List<String> userIds);
     
     List<Tweet> findByUserId(String userId);
     
+    /**
+     * Tweets of an author, newest first, read from a database cursor; the caller must close the stream
+     */
+    Stream<Tweet> streamByUserId(String userId);
+    
     /**
      * Find recent tweets by user IDs with limit for performance optimization
      */
     List<Tweet> findRecentTweetsByUserIds(List<String> userIds, int limit);
+    
+    /**
+     * Same order and limit as findRecentTweetsByUserIds, read lazily from a database cursor;
+     * the caller must close the stream
+     */
+    Stream<Tweet> streamRecentTweetsByUserIds(List<String> userIds, int limit);
+    
+    /**
+     * Most recent tweets of a single author, newest first
+     */
+    List<Tweet> findRecentTweetsByUserId(String userId, int limit);
+    
+    /**
+     * Keyset pagination: tweets older than (createdAt, tweetId), ordered by created_at and id desc
+     */
+    List<Tweet> findTweetsByUserIdsBefore(List<String> userIds, LocalDateTime createdAt, String tweetId, int limit);
+    
+    /**
+     * Tweets created before the given time whose fanout was never handed to the broker, oldest first,
+     * after the (createdAt, tweetId) position of the previous page (both null for the first page)
+     */
+    List<Tweet> findFanoutPending(LocalDateTime createdBefore, LocalDateTime createdAt, String tweetId, int limit);
+    
+    /**
+     * Clears the fanout-pending mark once the fanout message is stored or published
+     */
+    void markFanoutPublished(List<String> ids);
 } 
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.uala.microblog.domain.port;
 import com.uala.microblog.domain.entity.User;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository {
     
@@ -10,8 +11,18 @@ public interface UserRepository {
     
     Optional<User> findById(String id);
     
+    /**
+     * Users with the given IDs, fetched with $in queries of bounded size; unknown IDs are skipped
+     */
+    List<User> findByIds(List<String> ids);
+    
     List<User> findAll();
     
+    /**
+     * All users read from a database cursor; the caller must close the stream
+     */
+    Stream<User> streamAll();
+    
     boolean existsByUsername(String username);
     
     boolean existsByEmail(String email);
@@ -4,20 +4,28 @@ import com.uala.microblog.domain.entity.Follow;
 import com.uala.microblog.domain.port.FollowRepository;
 import com.uala.microblog.infrastructure.mapper.FollowDocumentMapper;
 import com.uala.microblog.infrastructure.repository.MongoFollowRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Component;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @Primary
 public class FollowRepositoryAdapter implements FollowRepository {
     
+    private static final Logger logger = LoggerFactory.getLogger(FollowRepositoryAdapter.class);
+    
     private final MongoFollowRepository mongoFollowRepository;
+    private final FollowerGraphStore followerGraphStore;
     
-    public FollowRepositoryAdapter(MongoFollowRepository mongoFollowRepository) {
+    public FollowRepositoryAdapter(MongoFollowRepository mongoFollowRepository, FollowerGraphStore followerGraphStore) {
         this.mongoFollowRepository = mongoFollowRepository;
+        this.followerGraphStore = followerGraphStore;
     }
     
     @Override
@@ -25,9 +33,11 @@ public class FollowRepositoryAdapter implements FollowRepository {
         if (follow.getId() == null) {
             
             Follow followForCreation = new Follow(follow.getFollowerId(), follow.getFollowedId());
-            return FollowDocumentMapper.toDomain(
+            Follow saved = FollowDocumentMapper.toDomain(
                 mongoFollowRepository.save(FollowDocumentMapper.toDocumentForCreation(followForCreation))
             );
+            addToFollowerGraph(saved);
+            return saved;
         } else {
             
             return FollowDocumentMapper.toDomain(
@@ -36,6 +46,26 @@ public class FollowRepositoryAdapter implements FollowRepository {
         }
     }
     
+    /**
+     * Los buckets se derivan de follows: si no se pudo agregar el seguidor se deshace la relación,
+     * así el follow falla entero y se puede reintentar (en lugar de quedar fuera del fanout)
+     */
+    private void addToFollowerGraph(Follow saved) {
+        try {
+            followerGraphStore.addFollower(saved.getFollowedId(), saved.getFollowerId());
+        } catch (RuntimeException e) {
+            logger.warn("Could not add follower {} to the follower buckets of user {}, undoing the follow: {}",
+                saved.getFollowerId(), saved.getFollowedId(), e.getMessage());
+            try {
+                followerGraphStore.removeFollower(saved.getFollowedId(), saved.getFollowerId());
+            } catch (RuntimeException cleanupError) {
+                logger.debug("Could not clean up follower buckets of user {}: {}", saved.getFollowedId(), cleanupError.getMessage());
+            }
+            mongoFollowRepository.deleteByFollowerIdAndFollowedId(saved.getFollowerId(), saved.getFollowedId());
+            throw e;
+        }
+    }
+    
     @Override
     public List<String> findFollowedUserIdsByFollowerId(String followerId) {
         return mongoFollowRepository.findFollowedIdsByFollowerId(followerId).stream()
@@ -43,18 +73,56 @@ public class FollowRepositoryAdapter implements FollowRepository {
             .collect(Collectors.toList());
     }
     
+    /**
+     * Seguidores leídos de los buckets del grafo de seguidores (fanout), no de las relaciones una a una
+     */
     @Override
     public List<String> findFollowersByUserId(String userId) {
-        return mongoFollowRepository.findFollowerIdsByFollowedId(userId).stream()
+        return followerGraphStore.getFollowerIds(userId);
+    }
+    
+    @Override
+    public Stream<String> streamFollowerIds(String userId) {
+        return mongoFollowRepository.streamFollowerIdsByFollowedId(userId)
+            .map(doc -> doc.getFollowerId());
+    }
+    
+    @Override
+    public Stream<String> streamFollowedIds(String followerId) {
+        return mongoFollowRepository.streamFollowedIdsByFollowerId(followerId)
+            .map(doc -> doc.getFollowedId());
+    }
+    
+    @Override
+    public List<String> findFollowersPage(String userId, String afterFollowerId, int limit) {
+        return mongoFollowRepository.findFollowerIdsAfter(userId, afterFollowerId != null ? afterFollowerId : "", Limit.of(limit)).stream()
             .map(doc -> doc.getFollowerId())
             .collect(Collectors.toList());
     }
     
+    @Override
+    public List<String> findFollowedPage(String followerId, String afterFollowedId, int limit) {
+        return mongoFollowRepository.findFollowedIdsAfter(followerId, afterFollowedId != null ? afterFollowedId : "", Limit.of(limit)).stream()
+            .map(doc -> doc.getFollowedId())
+            .collect(Collectors.toList());
+    }
+    
     @Override
     public boolean existsByFollowerIdAndFollowedId(String followerId, String followedId) {
         return mongoFollowRepository.existsByFollowerIdAndFollowedId(followerId, followedId);
     }
     
+    @Override
+    public long countFollowers(String userId) {
+        return mongoFollowRepository.countByFollowedId(userId);
+    }
+    
+    @Override
+    public void deleteByFollowerIdAndFollowedId(String followerId, String followedId) {
+        mongoFollowRepository.deleteByFollowerIdAndFollowedId(followerId, followedId);
+        followerGraphStore.removeFollower(followedId, followerId);
+    }
+    
     
     public Optional<Follow> findById(String id) {
         return mongoFollowRepository.findById(id)
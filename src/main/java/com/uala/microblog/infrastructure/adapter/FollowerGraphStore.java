@@ -0,0 +1,151 @@
+package com.uala.microblog.infrastructure.adapter;
+
+import com.uala.microblog.infrastructure.document.FollowerBucketDocument;
+import com.uala.microblog.infrastructure.repository.MongoFollowRepository;
+import com.uala.microblog.infrastructure.repository.MongoFollowerBucketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Grafo de seguidores para el fanout: la lista de seguidores de cada usuario guardada en buckets
+ * (follower_buckets) de hasta bucket-size códigos enteros (UserIdDictionary). Leer 1M de seguidores
+ * son ~1000 documentos en pocos batches del cursor, en lugar de un FollowDocument por relación.
+ * Los buckets se derivan de la colección follows: se mantienen en follow/unfollow y, si un usuario
+ * todavía no los tiene (datos anteriores), se generan desde follows en la primera lectura.
+ */
+@Component
+public class FollowerGraphStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FollowerGraphStore.class);
+    
+    private final MongoFollowerBucketRepository bucketRepository;
+    private final MongoFollowRepository mongoFollowRepository;
+    private final UserIdDictionary userIdDictionary;
+    private final int bucketSize;
+    
+    public FollowerGraphStore(MongoFollowerBucketRepository bucketRepository,
+                              MongoFollowRepository mongoFollowRepository,
+                              UserIdDictionary userIdDictionary,
+                              @Value("${microblog.follow-graph.bucket-size:1000}") int bucketSize) {
+        if (bucketSize <= 0) {
+            throw new IllegalArgumentException("Follower bucket size must be positive");
+        }
+        this.bucketRepository = bucketRepository;
+        this.mongoFollowRepository = mongoFollowRepository;
+        this.userIdDictionary = userIdDictionary;
+        this.bucketSize = bucketSize;
+    }
+    
+    /**
+     * Agrega el seguidor al bucket abierto del usuario; si no hay lugar (o otro nodo lo llenó) abre uno nuevo.
+     * La relación ya debe estar guardada en follows: si el usuario no tiene buckets se generan desde ahí.
+     */
+    public void addFollower(String userId, String followerId) {
+        int followerCode = userIdDictionary.encode(followerId);
+        boolean appended = bucketRepository.findOpenBuckets(userId, bucketSize, Limit.of(1)).stream()
+            .findFirst()
+            .map(bucket -> bucketRepository.appendFollower(bucket.getId(), followerCode, bucketSize) > 0)
+            .orElse(false);
+        
+        if (appended) {
+            return;
+        }
+        if (bucketRepository.existsByUserId(userId)) {
+            bucketRepository.save(new FollowerBucketDocument(userId, new int[] { followerCode }));
+        } else {
+            backfill(userId);
+        }
+    }
+    
+    public void removeFollower(String userId, String followerId) {
+        Integer followerCode = userIdDictionary.findCode(followerId);
+        if (followerCode != null) {
+            bucketRepository.removeFollower(userId, followerCode);
+        }
+    }
+    
+    /**
+     * Recorre los códigos de los seguidores de userId de a un bucket por llamada, en orden de alta
+     */
+    public void forEachFollowerBatch(String userId, Consumer<int[]> batchConsumer) {
+        boolean found = false;
+        try (Stream<FollowerBucketDocument> buckets = bucketRepository.streamByUserId(userId)) {
+            for (FollowerBucketDocument bucket : (Iterable<FollowerBucketDocument>) buckets::iterator) {
+                found = true;
+                if (bucket.getFollowerCodes() != null && bucket.getFollowerCodes().length > 0) {
+                    batchConsumer.accept(bucket.getFollowerCodes());
+                }
+            }
+        }
+        
+        if (!found && mongoFollowRepository.countByFollowedId(userId) > 0) {
+            backfill(userId).forEach(batchConsumer);
+        }
+    }
+    
+    /**
+     * Todos los seguidores de userId sin repetidos: una lista inmutable sobre los códigos ordenados
+     * (ver FollowerIdList), no un String por seguidor
+     */
+    public List<String> getFollowerIds(String userId) {
+        CodeBuffer buffer = new CodeBuffer(bucketSize);
+        forEachFollowerBatch(userId, buffer::append);
+        return FollowerIdList.of(buffer.codes, buffer.length, userIdDictionary);
+    }
+    
+    /**
+     * Genera los buckets de un usuario desde las relaciones de follows
+     */
+    private List<int[]> backfill(String userId) {
+        List<int[]> batches = new ArrayList<>();
+        List<String> current = new ArrayList<>(bucketSize);
+        
+        try (Stream<String> followerIds = mongoFollowRepository.streamFollowerIdsByFollowedId(userId)
+                .map(doc -> doc.getFollowerId())) {
+            for (String followerId : (Iterable<String>) followerIds::iterator) {
+                current.add(followerId);
+                if (current.size() == bucketSize) {
+                    batches.add(userIdDictionary.encodeAll(current));
+                    current = new ArrayList<>(bucketSize);
+                }
+            }
+        }
+        if (!current.isEmpty()) {
+            batches.add(userIdDictionary.encodeAll(current));
+        }
+        
+        bucketRepository.saveAll(batches.stream()
+            .map(followerCodes -> new FollowerBucketDocument(userId, followerCodes))
+            .toList());
+        
+        logger.info("Built {} follower buckets for user {}", batches.size(), userId);
+        return batches;
+    }
+    
+    private static final class CodeBuffer {
+        
+        private int[] codes;
+        private int length;
+        
+        private CodeBuffer(int capacity) {
+            this.codes = new int[capacity];
+        }
+        
+        private void append(int[] batch) {
+            if (length + batch.length > codes.length) {
+                codes = Arrays.copyOf(codes, Math.max(codes.length * 2, length + batch.length));
+            }
+            System.arraycopy(batch, 0, codes, length, batch.length);
+            length += batch.length;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.uala.microblog.infrastructure.adapter;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Lista inmutable de seguidores respaldada por los códigos enteros ordenados y sin repetidos.
+ * Cada elemento es el String canónico del diccionario (no se crea uno por lectura), contains es
+ * una búsqueda binaria y subList da chunks sin copiar. Al ser inmutable, la misma instancia se
+ * comparte desde el near-cache entre fanouts concurrentes.
+ */
+final class FollowerIdList extends AbstractList<String> implements RandomAccess {
+    
+    private final int[] codes;
+    private final int size;
+    private final UserIdDictionary userIdDictionary;
+    
+    /**
+     * codes debe estar ordenado y sin repetidos, con todos sus códigos cargados en el diccionario
+     */
+    private FollowerIdList(int[] codes, int size, UserIdDictionary userIdDictionary) {
+        this.codes = codes;
+        this.size = size;
+        this.userIdDictionary = userIdDictionary;
+    }
+    
+    /**
+     * Ordena codes en el lugar, descarta repetidos y códigos desconocidos y envuelve el resultado
+     */
+    static FollowerIdList of(int[] codes, int length, UserIdDictionary userIdDictionary) {
+        Arrays.sort(codes, 0, length);
+        userIdDictionary.load(Arrays.copyOf(codes, length));
+        
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            boolean repeated = size > 0 && codes[size - 1] == codes[i];
+            if (!repeated && userIdDictionary.idOf(codes[i]) != null) {
+                codes[size++] = codes[i];
+            }
+        }
+        return new FollowerIdList(codes, size, userIdDictionary);
+    }
+    
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return userIdDictionary.idOf(codes[index]);
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean contains(Object value) {
+        return indexOf(value) >= 0;
+    }
+    
+    @Override
+    public int indexOf(Object value) {
+        if (!(value instanceof String userId)) {
+            return -1;
+        }
+        Integer code = userIdDictionary.codeOf(userId);
+        if (code == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(codes, 0, size, code);
+        return index >= 0 ? index : -1;
+    }
+    
+    @Override
+    public int lastIndexOf(Object value) {
+        return indexOf(value);
+    }
+}
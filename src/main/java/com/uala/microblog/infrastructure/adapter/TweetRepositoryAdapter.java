@@ -2,20 +2,28 @@ package com.uala.microblog.infrastructure.adapter;
 
 import com.uala.microblog.domain.entity.Tweet;
 import com.uala.microblog.domain.port.TweetRepository;
+import com.uala.microblog.infrastructure.document.TweetDocument;
 import com.uala.microblog.infrastructure.mapper.TweetDocumentMapper;
 import com.uala.microblog.infrastructure.repository.MongoTweetRepository;
+import org.bson.types.ObjectId;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @Primary
 public class TweetRepositoryAdapter implements TweetRepository {
     
+    private static final ObjectId MAX_OBJECT_ID = new ObjectId("ffffffffffffffffffffffff");
+    private static final ObjectId MIN_OBJECT_ID = new ObjectId("000000000000000000000000");
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
     private final MongoTweetRepository mongoTweetRepository;
     
     public TweetRepositoryAdapter(MongoTweetRepository mongoTweetRepository) {
@@ -40,12 +48,34 @@ public class TweetRepositoryAdapter implements TweetRepository {
     
 
     
+    @Override
+    public List<Tweet> saveAll(List<Tweet> tweets) {
+        List<TweetDocument> documents = tweets.stream()
+            .map(TweetDocumentMapper::toDocumentForCreation)
+            .collect(Collectors.toList());
+        return mongoTweetRepository.insert(documents).stream()
+            .map(TweetDocumentMapper::toDomain)
+            .collect(Collectors.toList());
+    }
+    
     @Override
     public Optional<Tweet> findById(String id) {
         return mongoTweetRepository.findById(id)
             .map(TweetDocumentMapper::toDomain);
     }
     
+    @Override
+    public void deleteById(String id) {
+        mongoTweetRepository.deleteById(id);
+    }
+    
+    @Override
+    public List<Tweet> findByIds(List<String> ids) {
+        return mongoTweetRepository.findAllById(ids).stream()
+            .map(TweetDocumentMapper::toDomain)
+            .collect(Collectors.toList());
+    }
+    
     @Override
     public List<Tweet> findByUserId(String userId) {
         return mongoTweetRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
@@ -53,6 +83,12 @@ public class TweetRepositoryAdapter implements TweetRepository {
             .collect(Collectors.toList());
     }
     
+    @Override
+    public Stream<Tweet> streamByUserId(String userId) {
+        return mongoTweetRepository.streamByUserIdOrderByCreatedAtDesc(userId)
+            .map(TweetDocumentMapper::toDomain);
+    }
+    
     @Override
     public List<Tweet> findByUserIdInOrderByCreatedAtDesc(List<String> userIds) {
         return mongoTweetRepository.findByUserIdInOrderByCreatedAtDesc(userIds).stream()
@@ -67,17 +103,40 @@ public class TweetRepositoryAdapter implements TweetRepository {
             .collect(Collectors.toList());
     }
     
+    @Override
+    public Stream<Tweet> streamRecentTweetsByUserIds(List<String> userIds, int limit) {
+        return mongoTweetRepository.streamRecentTweetsByUserIds(userIds, Limit.of(limit))
+            .map(TweetDocumentMapper::toDomain);
+    }
     
+    @Override
+    public List<Tweet> findRecentTweetsByUserId(String userId, int limit) {
+        return mongoTweetRepository.findRecentTweetsByUserId(userId, Limit.of(limit)).stream()
+            .map(TweetDocumentMapper::toDomain)
+            .collect(Collectors.toList());
+    }
     
-    public List<Tweet> findAll() {
-        return mongoTweetRepository.findAllOrderByCreatedAtDesc().stream()
+    @Override
+    public List<Tweet> findTweetsByUserIdsBefore(List<String> userIds, LocalDateTime createdAt, String tweetId, int limit) {
+        
+        ObjectId idBound = ObjectId.isValid(tweetId) ? new ObjectId(tweetId) : MAX_OBJECT_ID;
+        return mongoTweetRepository.findTweetsByUserIdsBefore(userIds, createdAt, idBound, Limit.of(limit)).stream()
             .map(TweetDocumentMapper::toDomain)
             .collect(Collectors.toList());
     }
     
-    public List<Tweet> findRecentTweetsByUserId(String userId, int limit) {
-        return mongoTweetRepository.findRecentTweetsByUserId(userId, Limit.of(limit)).stream()
+    @Override
+    public List<Tweet> findFanoutPending(LocalDateTime createdBefore, LocalDateTime createdAt, String tweetId, int limit) {
+        
+        LocalDateTime createdBound = createdAt != null ? createdAt : EPOCH;
+        ObjectId idBound = tweetId != null && ObjectId.isValid(tweetId) ? new ObjectId(tweetId) : MIN_OBJECT_ID;
+        return mongoTweetRepository.findFanoutPending(createdBefore, createdBound, idBound, Limit.of(limit)).stream()
             .map(TweetDocumentMapper::toDomain)
             .collect(Collectors.toList());
     }
-} 
\ No newline at end of file
+    
+    @Override
+    public void markFanoutPublished(List<String> ids) {
+        mongoTweetRepository.clearFanoutPending(ids);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,238 @@
+package com.uala.microblog.infrastructure.adapter;
+
+import com.uala.microblog.infrastructure.document.CounterDocument;
+import com.uala.microblog.infrastructure.document.UserIdCodeDocument;
+import com.uala.microblog.infrastructure.repository.MongoUserIdCodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario de IDs de usuario a códigos enteros densos, persistido en user_id_codes.
+ * En memoria se guarda en los dos sentidos: un mapa ID -> código y un array indexado por código,
+ * completados a demanda desde MongoDB (los códigos asignados en otros nodos se leen al primer uso).
+ * Los códigos no se reasignan nunca: un usuario conserva el suyo aunque se borre.
+ * Los códigos nuevos se reservan de a rangos en el contador counters/user_id_codes con un
+ * findAndModify $inc, así dos nodos nunca eligen el mismo. Al arrancar se exige el índice único
+ * de code (auto-index-creation está desactivado; lo crean los scripts de docker/).
+ */
+@Component
+public class UserIdDictionary implements InitializingBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserIdDictionary.class);
+    
+    static final int CHUNK_SIZE = 500;
+    private static final int MAX_ASSIGN_ATTEMPTS = 10;
+    static final String CODE_COUNTER_ID = "user_id_codes";
+    private static final String CODE_FIELD = "code";
+    
+    private final MongoUserIdCodeRepository codeRepository;
+    private final MongoOperations mongoOperations;
+    private final Map<String, Integer> codesById = new ConcurrentHashMap<>();
+    
+    /**
+     * ID por código; se reemplaza por uno más grande al crecer (la escritura volátil publica las entradas)
+     */
+    private volatile String[] idsByCode = new String[1024];
+    
+    public UserIdDictionary(MongoUserIdCodeRepository codeRepository, MongoOperations mongoOperations) {
+        this.codeRepository = codeRepository;
+        this.mongoOperations = mongoOperations;
+    }
+    
+    /**
+     * Falla el arranque si falta el índice único de code y lleva el contador por encima del último
+     * código asignado ($max, idempotente: los códigos asignados antes del contador no se repiten)
+     */
+    @Override
+    public void afterPropertiesSet() {
+        boolean uniqueCodeIndex = mongoOperations.indexOps(UserIdCodeDocument.class).getIndexInfo().stream()
+            .anyMatch(index -> index.isUnique()
+                && index.getIndexFields().size() == 1
+                && CODE_FIELD.equals(index.getIndexFields().get(0).getKey()));
+        if (!uniqueCodeIndex) {
+            throw new IllegalStateException(
+                "Missing unique index on user_id_codes.code; create it as in docker/mongo-init.js before starting");
+        }
+        
+        int firstFreeCode = codeRepository.findFirstByOrderByCodeDesc()
+            .map(document -> document.getCode() + 1)
+            .orElse(0);
+        mongoOperations.upsert(counterQuery(), new Update().max(CounterDocument.VALUE, firstFreeCode), CounterDocument.class);
+    }
+    
+    /**
+     * Código del usuario, asignándole uno si todavía no tiene
+     */
+    public int encode(String userId) {
+        Integer code = codesById.get(userId);
+        return code != null ? code : encodeAll(List.of(userId))[0];
+    }
+    
+    /**
+     * Códigos de los usuarios, en el mismo orden, asignando los que falten
+     */
+    public int[] encodeAll(List<String> userIds) {
+        List<String> missing = new ArrayList<>(new LinkedHashSet<>(
+            userIds.stream().filter(userId -> !codesById.containsKey(userId)).toList()));
+        
+        for (int from = 0; from < missing.size(); from += CHUNK_SIZE) {
+            List<String> chunk = missing.subList(from, Math.min(from + CHUNK_SIZE, missing.size()));
+            codeRepository.findAllById(chunk).forEach(this::register);
+            assign(chunk.stream().filter(userId -> !codesById.containsKey(userId)).toList());
+        }
+        
+        int[] codes = new int[userIds.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = codesById.get(userIds.get(i));
+        }
+        return codes;
+    }
+    
+    /**
+     * Código ya asignado al usuario, o null si no tiene (no asigna uno nuevo)
+     */
+    public Integer findCode(String userId) {
+        Integer code = codesById.get(userId);
+        if (code == null) {
+            code = codeRepository.findById(userId)
+                .map(this::register)
+                .orElse(null);
+        }
+        return code;
+    }
+    
+    /**
+     * IDs de los códigos, en el mismo orden. Los códigos desconocidos se omiten.
+     */
+    public List<String> decodeAll(int[] codes) {
+        load(codes);
+        
+        List<String> userIds = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            String userId = idOf(code);
+            if (userId != null) {
+                userIds.add(userId);
+            }
+        }
+        return userIds;
+    }
+    
+    /**
+     * Carga en memoria los códigos que todavía no están (asignados en otros nodos)
+     */
+    public void load(int[] codes) {
+        List<Integer> missing = new ArrayList<>();
+        for (int code : codes) {
+            if (idOf(code) == null) {
+                missing.add(code);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += CHUNK_SIZE) {
+            codeRepository.findByCodeIn(missing.subList(from, Math.min(from + CHUNK_SIZE, missing.size())))
+                .forEach(this::register);
+        }
+        
+        long unknown = missing.stream().filter(code -> idOf(code) == null).count();
+        if (unknown > 0) {
+            logger.warn("Ignoring {} unknown user codes", unknown);
+        }
+    }
+    
+    /**
+     * ID de un código ya cargado en memoria, o null
+     */
+    public String idOf(int code) {
+        String[] ids = idsByCode;
+        return code >= 0 && code < ids.length ? ids[code] : null;
+    }
+    
+    /**
+     * Código de un ID ya cargado en memoria, o null (no consulta MongoDB)
+     */
+    public Integer codeOf(String userId) {
+        return codesById.get(userId);
+    }
+    
+    /**
+     * Asigna un rango de códigos reservado con un insert ordenado; si otro nodo asignó código a
+     * alguno de los mismos usuarios, se resuelven de a uno los que quedaron (el resto del rango queda sin usar)
+     */
+    private void assign(List<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        
+        int next = reserveCodes(userIds.size());
+        List<UserIdCodeDocument> documents = new ArrayList<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            documents.add(new UserIdCodeDocument(userIds.get(i), next + i));
+        }
+        
+        try {
+            codeRepository.insert(documents).forEach(this::register);
+        } catch (DuplicateKeyException e) {
+            logger.debug("Concurrent code assignment, resolving {} user codes one by one", userIds.size());
+            userIds.forEach(this::assignOne);
+        }
+    }
+    
+    private int assignOne(String userId) {
+        for (int attempt = 0; attempt < MAX_ASSIGN_ATTEMPTS; attempt++) {
+            Integer existing = findCode(userId);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                return register(codeRepository.insert(new UserIdCodeDocument(userId, reserveCodes(1))));
+            } catch (DuplicateKeyException e) {
+                logger.debug("User {} assigned a code concurrently, retrying", userId);
+            }
+        }
+        throw new IllegalStateException("Could not assign a code to user " + userId);
+    }
+    
+    /**
+     * Reserva count códigos consecutivos y devuelve el primero
+     */
+    private int reserveCodes(int count) {
+        CounterDocument counter = mongoOperations.findAndModify(counterQuery(),
+            new Update().inc(CounterDocument.VALUE, count),
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            CounterDocument.class);
+        if (counter == null) {
+            throw new IllegalStateException("Could not reserve user codes");
+        }
+        return Math.toIntExact(counter.getValue() - count);
+    }
+    
+    private static Query counterQuery() {
+        return Query.query(Criteria.where("_id").is(CODE_COUNTER_ID));
+    }
+    
+    private synchronized int register(UserIdCodeDocument document) {
+        int code = document.getCode();
+        String[] ids = idsByCode;
+        if (code >= ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(ids.length * 2, code + 1));
+        }
+        ids[code] = document.getUserId();
+        idsByCode = ids;
+        codesById.put(document.getUserId(), code);
+        return code;
+    }
+}
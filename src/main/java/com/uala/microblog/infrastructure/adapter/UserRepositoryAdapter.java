@@ -7,14 +7,21 @@ import com.uala.microblog.infrastructure.repository.MongoUserRepository;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @Primary
 public class UserRepositoryAdapter implements UserRepository {
     
+    /**
+     * IDs por consulta $in en findByIds
+     */
+    private static final int IN_CHUNK_SIZE = 500;
+    
     private final MongoUserRepository mongoUserRepository;
     
     public UserRepositoryAdapter(MongoUserRepository mongoUserRepository) {
@@ -45,6 +52,16 @@ public class UserRepositoryAdapter implements UserRepository {
             .map(UserDocumentMapper::toDomain);
     }
     
+    @Override
+    public List<User> findByIds(List<String> ids) {
+        List<User> users = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            mongoUserRepository.findAllById(chunk).forEach(document -> users.add(UserDocumentMapper.toDomain(document)));
+        }
+        return users;
+    }
+    
     @Override
     public List<User> findAll() {
         return mongoUserRepository.findAll().stream()
@@ -52,6 +69,12 @@ public class UserRepositoryAdapter implements UserRepository {
             .collect(Collectors.toList());
     }
     
+    @Override
+    public Stream<User> streamAll() {
+        return mongoUserRepository.streamAllBy()
+            .map(UserDocumentMapper::toDomain);
+    }
+    
     @Override
     public boolean existsByUsername(String username) {
         return mongoUserRepository.existsByUsername(username);
@@ -0,0 +1,297 @@
+package com.uala.microblog.infrastructure.cache;
+
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.entity.User;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Serializer binario compacto para los valores cacheados en Redis.
+ *
+ * Formato: [versión][tipo][campos]. Los enteros van como varint, los ObjectId (24 hex)
+ * se empaquetan en 12 bytes y las fechas como segundos epoch UTC + nanos.
+ * Soporta Tweet, User y List&lt;String&gt; (listas de follows); cualquier otro valor se delega
+ * al serializer JSON.
+ *
+ * Los String se escriben siempre como JSON: son los miembros de los sorted sets (timeline:{id},
+ * author-tweets:{id}) y ZREM/ZADD comparan bytes, así que un miembro debe
+ * codificarse igual con cualquiera de los dos serializers (si no, al cambiar de serializer los
+ * borrados no encuentran los miembros anteriores y los re-fanout los duplican).
+ *
+ * El primer byte de un valor JSON nunca es FORMAT_V1, por lo que las entradas escritas
+ * con el serializer anterior se siguen leyendo durante la migración.
+ */
+public class CompactBinaryRedisSerializer implements RedisSerializer<Object> {
+    
+    static final byte FORMAT_V1 = 0x01;
+    
+    private static final byte TYPE_TWEET = 1;
+    private static final byte TYPE_USER = 2;
+    /**
+     * Solo lectura: Strings escritos por versiones anteriores (hoy se escriben como JSON)
+     */
+    private static final byte TYPE_STRING = 3;
+    private static final byte TYPE_STRING_LIST = 4;
+    
+    private static final byte FIELD_NULL = 0;
+    private static final byte FIELD_OBJECT_ID = 1;
+    private static final byte FIELD_STRING = 2;
+    private static final byte FIELD_DATE_TIME = 1;
+    
+    private static final int OBJECT_ID_HEX_LENGTH = 24;
+    
+    private final RedisSerializer<Object> fallbackSerializer;
+    
+    public CompactBinaryRedisSerializer(RedisSerializer<Object> fallbackSerializer) {
+        this.fallbackSerializer = fallbackSerializer;
+    }
+    
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        
+        Output out = new Output();
+        if (value instanceof Tweet tweet) {
+            out.writeHeader(TYPE_TWEET);
+            out.writeString(tweet.getId());
+            out.writeString(tweet.getUserId());
+            out.writeDateTime(tweet.getCreatedAt());
+            out.writeString(tweet.getContent());
+        } else if (value instanceof User user) {
+            out.writeHeader(TYPE_USER);
+            out.writeString(user.getId());
+            out.writeString(user.getUsername());
+            out.writeString(user.getEmail());
+            out.writeDateTime(user.getCreatedAt());
+        } else if (isStringList(value)) {
+            List<?> list = (List<?>) value;
+            out.writeHeader(TYPE_STRING_LIST);
+            out.writeVarLong(list.size());
+            for (Object element : list) {
+                out.writeString((String) element);
+            }
+        } else {
+            return fallbackSerializer.serialize(value);
+        }
+        return out.toByteArray();
+    }
+    
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != FORMAT_V1) {
+            return fallbackSerializer.deserialize(bytes);
+        }
+        
+        try {
+            Input in = new Input(bytes, 1);
+            byte type = in.readByte();
+            switch (type) {
+                case TYPE_TWEET: {
+                    String id = in.readString();
+                    String userId = in.readString();
+                    LocalDateTime createdAt = in.readDateTime();
+                    String content = in.readString();
+                    return new Tweet(id, content, userId, createdAt);
+                }
+                case TYPE_USER: {
+                    String id = in.readString();
+                    String username = in.readString();
+                    String email = in.readString();
+                    LocalDateTime createdAt = in.readDateTime();
+                    return new User(id, username, email, createdAt);
+                }
+                case TYPE_STRING:
+                    return in.readString();
+                case TYPE_STRING_LIST: {
+                    int size = (int) in.readVarLong();
+                    List<String> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(in.readString());
+                    }
+                    return list;
+                }
+                default:
+                    throw new SerializationException("Unknown cached value type: " + type);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated cached value", e);
+        }
+    }
+    
+    private static boolean isStringList(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return false;
+        }
+        for (Object element : list) {
+            if (!(element instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isObjectId(String value) {
+        if (value.length() != OBJECT_ID_HEX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < OBJECT_ID_HEX_LENGTH; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Valor de un dígito hex en minúscula (ya validado por isObjectId)
+     */
+    private static int hexValue(char c) {
+        return c <= '9' ? c - '0' : c - 'a' + 10;
+    }
+    
+    private static final class Output {
+        
+        private byte[] buffer = new byte[64];
+        private int position;
+        
+        void writeHeader(byte type) {
+            writeByte(FORMAT_V1);
+            writeByte(type);
+        }
+        
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+        
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+        
+        /**
+         * Un texto con forma de ObjectId se escribe en 12 bytes; cualquier otro como UTF-8 con su longitud
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeByte(FIELD_NULL);
+            } else if (isObjectId(value)) {
+                writeByte(FIELD_OBJECT_ID);
+                ensureCapacity(OBJECT_ID_HEX_LENGTH / 2);
+                for (int i = 0; i < OBJECT_ID_HEX_LENGTH; i += 2) {
+                    buffer[position++] = (byte) ((hexValue(value.charAt(i)) << 4) | hexValue(value.charAt(i + 1)));
+                }
+            } else {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeByte(FIELD_STRING);
+                writeVarLong(utf8.length);
+                ensureCapacity(utf8.length);
+                System.arraycopy(utf8, 0, buffer, position, utf8.length);
+                position += utf8.length;
+            }
+        }
+        
+        void writeDateTime(LocalDateTime value) {
+            if (value == null) {
+                writeByte(FIELD_NULL);
+                return;
+            }
+            long seconds = value.toEpochSecond(ZoneOffset.UTC);
+            writeByte(FIELD_DATE_TIME);
+            writeVarLong((seconds << 1) ^ (seconds >> 63));
+            writeVarLong(value.getNano());
+        }
+        
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+        
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+    
+    private static final class Input {
+        
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+        
+        private final byte[] bytes;
+        private int position;
+        
+        Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+        
+        byte readByte() {
+            if (position >= bytes.length) {
+                throw new IndexOutOfBoundsException(position);
+            }
+            return bytes[position++];
+        }
+        
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new SerializationException("Malformed varint in cached value");
+        }
+        
+        String readString() {
+            byte field = readByte();
+            if (field == FIELD_NULL) {
+                return null;
+            }
+            if (field == FIELD_OBJECT_ID) {
+                char[] hex = new char[OBJECT_ID_HEX_LENGTH];
+                for (int i = 0; i < OBJECT_ID_HEX_LENGTH; i += 2) {
+                    byte b = readByte();
+                    hex[i] = HEX[(b >> 4) & 0x0F];
+                    hex[i + 1] = HEX[b & 0x0F];
+                }
+                return new String(hex);
+            }
+            int length = (int) readVarLong();
+            if (position + length > bytes.length) {
+                throw new IndexOutOfBoundsException(position + length);
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+        
+        LocalDateTime readDateTime() {
+            if (readByte() == FIELD_NULL) {
+                return null;
+            }
+            long zigzag = readVarLong();
+            long seconds = (zigzag >>> 1) ^ -(zigzag & 1);
+            int nanos = (int) readVarLong();
+            return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.uala.microblog.infrastructure.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Expiración probabilística anticipada (XFetch): cada lectura decide refrescar con probabilidad
+ * e^(-restante/ventana), que crece a medida que se acerca la expiración. Las claves calientes se
+ * refrescan antes de expirar sin que todos los lectores lo hagan a la vez.
+ */
+public final class EarlyRefresh {
+    
+    private EarlyRefresh() {
+    }
+    
+    /**
+     * @param remainingMillis TTL restante de la entrada
+     * @param windowMillis    ventana de anticipación (delta * beta en XFetch); 0 desactiva el refresco
+     */
+    public static boolean shouldRefresh(long remainingMillis, long windowMillis) {
+        if (windowMillis <= 0 || remainingMillis < 0) {
+            return false;
+        }
+        return -windowMillis * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) >= remainingMillis;
+    }
+}
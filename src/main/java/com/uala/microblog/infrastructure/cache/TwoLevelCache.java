@@ -0,0 +1,199 @@
+package com.uala.microblog.infrastructure.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache de dos niveles: L1 Caffeine en memoria delante de un cache remoto (Redis).
+ * Las escrituras y evicciones se propagan a los L1 de los demás nodos vía TwoLevelCacheManager.
+ * Sin cache remoto funciona como near-cache local de vida corta (p. ej. timelines, cuyo L2
+ * es el sorted set de Redis).
+ * Las lecturas con loader refrescan en background las entradas cercanas a expirar (EarlyRefresh).
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+    
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache;
+    private final Cache remoteCache;
+    private final TwoLevelCacheManager cacheManager;
+    private final Duration refreshAhead;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    
+    TwoLevelCache(String name,
+                  com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache,
+                  Cache remoteCache,
+                  TwoLevelCacheManager cacheManager,
+                  Duration refreshAhead) {
+        super(false);
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.cacheManager = cacheManager;
+        this.refreshAhead = refreshAhead;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+    
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null || remoteCache == null) {
+            return value;
+        }
+        
+        ValueWrapper remoteValue = remoteCache.get(key);
+        if (remoteValue == null || remoteValue.get() == null) {
+            return null;
+        }
+        localCache.put(localKey, remoteValue.get());
+        return remoteValue.get();
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object cached = localCache.getIfPresent(localKey);
+        if (cached != null) {
+            refreshIfExpiring(key, localKey, valueLoader);
+            return (T) fromStoreValue(cached);
+        }
+        
+        return (T) fromStoreValue(localCache.get(localKey, ignored -> {
+            try {
+                return remoteCache != null ? remoteCache.get(key, valueLoader) : valueLoader.call();
+            } catch (ValueRetrievalException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }));
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        if (remoteCache != null) {
+            remoteCache.put(key, value);
+            cacheManager.publishEvict(name, localKey(key));
+        }
+        localCache.put(localKey(key), value);
+    }
+    
+    @Override
+    public void evict(Object key) {
+        if (remoteCache != null) {
+            remoteCache.evict(key);
+        }
+        localCache.invalidate(localKey(key));
+        cacheManager.publishEvict(name, localKey(key));
+    }
+    
+    /**
+     * Evicción de varias claves con una única invalidación publicada (p. ej. los timelines de un batch de fanout)
+     */
+    public void evictAll(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> localKeys = keys.stream().map(TwoLevelCache::localKey).toList();
+        if (remoteCache != null) {
+            keys.forEach(remoteCache::evict);
+        }
+        localCache.invalidateAll(localKeys);
+        cacheManager.publishEvictAll(name, localKeys);
+    }
+    
+    @Override
+    public void clear() {
+        if (remoteCache != null) {
+            remoteCache.clear();
+        }
+        localCache.invalidateAll();
+        cacheManager.publishClear(name);
+    }
+    
+    /**
+     * Stale-while-revalidate: se sigue sirviendo el valor actual y, si EarlyRefresh lo decide sobre el
+     * TTL del L1, en background (una sola recarga por clave a la vez) se vuelve a leer el L2. Solo se
+     * llama al loader si el L2 ya no tiene la entrada o si EarlyRefresh lo decide sobre el TTL restante
+     * del L2; como el L2 se consulta una vez por vida del L1, esa ventana suma el TTL del L1.
+     */
+    private void refreshIfExpiring(Object key, String localKey, Callable<?> valueLoader) {
+        if (refreshAhead.isZero()) {
+            return;
+        }
+        long localTtlMillis = localCache.policy().expireAfterWrite()
+            .map(expiration -> expiration.getExpiresAfter().toMillis())
+            .orElse(0L);
+        long remainingMillis = localCache.policy().expireAfterWrite()
+            .flatMap(expiration -> expiration.ageOf(localKey)
+                .map(age -> expiration.getExpiresAfter().minus(age).toMillis()))
+            .orElse(-1L);
+        if (!EarlyRefresh.shouldRefresh(remainingMillis, refreshAhead.toMillis()) || !refreshing.add(localKey)) {
+            return;
+        }
+        
+        cacheManager.refreshAsync(name, key, () -> {
+            try {
+                long remoteRemainingMillis = cacheManager.remoteTtlMillis(remoteCache, key);
+                ValueWrapper remoteValue = remoteCache.get(key);
+                if (remoteValue != null && remoteValue.get() != null
+                        && !EarlyRefresh.shouldRefresh(remoteRemainingMillis, refreshAhead.toMillis() + localTtlMillis)) {
+                    localCache.put(localKey, remoteValue.get());
+                    return;
+                }
+                
+                Object value = valueLoader.call();
+                if (value != null) {
+                    put(key, value);
+                }
+            } catch (Exception e) {
+                logger.warn("Near-cache refresh of {}::{} failed, keeping current value: {}", name, key, e.getMessage());
+            } finally {
+                refreshing.remove(localKey);
+            }
+        });
+    }
+    
+    /**
+     * Invalidación recibida de otro nodo: solo afecta al L1
+     */
+    void evictLocal(String key) {
+        localCache.invalidate(key);
+    }
+    
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+    
+    /**
+     * Las claves del L1 son strings para que coincidan con las invalidaciones recibidas por pub/sub
+     */
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
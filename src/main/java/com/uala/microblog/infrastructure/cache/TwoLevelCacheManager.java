@@ -0,0 +1,191 @@
+package com.uala.microblog.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CacheManager con near-cache: cada cache del RedisCacheManager se envuelve en un TwoLevelCache
+ * con un L1 Caffeine acotado en tamaño y TTL. Las caches locales (localOnlyCaches) no tienen L2.
+ *
+ * Invalidación entre nodos: cada put/evict/clear se publica en el canal INVALIDATION_CHANNEL
+ * de Redis y los demás nodos descartan la entrada de su L1. El TTL del L1 acota la
+ * inconsistencia si se pierde algún mensaje.
+ *
+ * Métricas: cache.gets (result=hit|miss), cache.evictions y cache.size de cada L1, por cache y level=l1.
+ *
+ * Refresco anticipado: las lecturas con loader (@Cacheable(sync = true)) de entradas cercanas a
+ * expirar en el L1 disparan, con probabilidad XFetch, una relectura del L2 en background mientras se
+ * sigue sirviendo el valor actual (stale-while-revalidate); el loader solo corre cuando la entrada del
+ * L2 falta o está cerca de expirar. refreshAhead = 0 lo desactiva.
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener, DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+    
+    public static final String INVALIDATION_CHANNEL = "microblog:cache:invalidation";
+    
+    private static final String EVICT = "E";
+    private static final String EVICT_ALL = "M";
+    private static final String CLEAR = "C";
+    private static final String SEPARATOR = "\n";
+    
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Duration> localOnlyCaches;
+    private final long maximumSize;
+    private final Duration localTtl;
+    private final Duration refreshAhead;
+    private final ThreadPoolTaskExecutor refreshExecutor = new ThreadPoolTaskExecutor();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                Map<String, Duration> localOnlyCaches,
+                                long maximumSize,
+                                Duration localTtl,
+                                Duration refreshAhead) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.localOnlyCaches = localOnlyCaches;
+        this.maximumSize = maximumSize;
+        this.localTtl = localTtl;
+        this.refreshAhead = refreshAhead;
+        refreshExecutor.setCorePoolSize(2);
+        refreshExecutor.setMaxPoolSize(2);
+        refreshExecutor.setThreadNamePrefix("near-cache-refresh-");
+        refreshExecutor.setDaemon(true);
+        refreshExecutor.initialize();
+    }
+    
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+    
+    private TwoLevelCache createCache(String name) {
+        Duration ttl = localOnlyCaches.getOrDefault(name, localTtl);
+        Cache remoteCache = localOnlyCaches.containsKey(name) ? null : remoteCacheManager.getCache(name);
+        
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, name, "level", "l1");
+        
+        logger.info("Near-cache '{}' created (L1 max {} entries, TTL {}, L2 {})",
+            name, maximumSize, ttl, remoteCache != null ? "redis" : "none");
+        return new TwoLevelCache(name, localCache, remoteCache, this, remoteCache != null ? refreshAhead : Duration.ZERO);
+    }
+    
+    void refreshAsync(String cacheName, Object key, Runnable refresh) {
+        try {
+            refreshExecutor.execute(refresh);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Near-cache refresh of {}::{} skipped: {}", cacheName, key, e.getMessage());
+        }
+    }
+    
+    /**
+     * TTL restante en millis de la entrada del L2 en Redis (clave con el prefijo del RedisCache),
+     * o un valor negativo si no existe, no expira o no se puede consultar
+     */
+    long remoteTtlMillis(Cache remoteCache, Object key) {
+        if (!(remoteCache instanceof RedisCache redisCache)) {
+            return -1;
+        }
+        RedisCacheConfiguration configuration = redisCache.getCacheConfiguration();
+        String prefix = configuration.usePrefix() ? configuration.getKeyPrefixFor(redisCache.getName()) : "";
+        try {
+            Long ttl = redisTemplate.getExpire(prefix + key, TimeUnit.MILLISECONDS);
+            return ttl != null ? ttl : -1;
+        } catch (Exception e) {
+            logger.debug("Could not read TTL of {}{}: {}", prefix, key, e.getMessage());
+            return -1;
+        }
+    }
+    
+    void publishEvict(String cacheName, String key) {
+        publish(EVICT + SEPARATOR + nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+    
+    /**
+     * Un solo mensaje con todas las claves, separadas por SEPARATOR
+     */
+    void publishEvictAll(String cacheName, Collection<String> keys) {
+        publish(EVICT_ALL + SEPARATOR + nodeId + SEPARATOR + cacheName + SEPARATOR + String.join(SEPARATOR, keys));
+    }
+    
+    void publishClear(String cacheName) {
+        publish(CLEAR + SEPARATOR + nodeId + SEPARATOR + cacheName + SEPARATOR);
+    }
+    
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            logger.warn("Could not publish near-cache invalidation: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Invalidación publicada por otro nodo
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+        if (parts.length < 4 || nodeId.equals(parts[1])) {
+            return;
+        }
+        
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[0])) {
+            cache.clearLocal();
+        } else if (EVICT_ALL.equals(parts[0])) {
+            for (String key : parts[3].split(SEPARATOR)) {
+                cache.evictLocal(key);
+            }
+        } else {
+            cache.evictLocal(parts[3]);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdown();
+    }
+}
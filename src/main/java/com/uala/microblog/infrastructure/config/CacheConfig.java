@@ -2,6 +2,9 @@ package com.uala.microblog.infrastructure.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.uala.microblog.infrastructure.cache.CompactBinaryRedisSerializer;
+import com.uala.microblog.infrastructure.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.lettuce.core.ClientOptions;
 import io.lettuce.core.SocketOptions;
 import io.lettuce.core.TimeoutOptions;
@@ -25,7 +28,11 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -57,6 +64,24 @@ public class CacheConfig {
     @Value("${spring.redis.connect-timeout:1500ms}")
     private Duration redisConnectTimeout;
     
+    @Value("${microblog.cache.serializer:json}")
+    private String valueSerializer;
+    
+    @Value("${microblog.cache.near.enabled:true}")
+    private boolean nearCacheEnabled;
+    
+    @Value("${microblog.cache.near.maximum-size:10000}")
+    private long nearCacheMaximumSize;
+    
+    @Value("${microblog.cache.near.ttl:60s}")
+    private Duration nearCacheTtl;
+    
+    @Value("${microblog.cache.near.timeline-ttl:5s}")
+    private Duration nearCacheTimelineTtl;
+    
+    @Value("${microblog.cache.near.refresh-ahead:10s}")
+    private Duration nearCacheRefreshAhead;
+    
     /**
      * Jackson serializer personalizado con soporte para fechas Java 8
      */
@@ -65,6 +90,17 @@ public class CacheConfig {
         objectMapper.registerModule(new JavaTimeModule());
         return new GenericJackson2JsonRedisSerializer(objectMapper);
     }
+    
+    /**
+     * Serializer de valores según microblog.cache.serializer: json o binary.
+     * El binario lee también las entradas JSON existentes, por lo que se puede activar sin vaciar Redis.
+     */
+    private RedisSerializer<Object> createValueRedisSerializer() {
+        if ("binary".equalsIgnoreCase(valueSerializer)) {
+            return new CompactBinaryRedisSerializer(createJsonRedisSerializer());
+        }
+        return createJsonRedisSerializer();
+    }
 
     /**
      * Configuración de conexión Redis con diagnóstico avanzado
@@ -146,7 +182,7 @@ public class CacheConfig {
         havingValue = "redis", 
         matchIfMissing = false
     )
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, MeterRegistry meterRegistry) {
         logger.info("🔧 Configurando Redis Cache Manager con diagnóstico mejorado");
         
         try {
@@ -161,7 +197,7 @@ public class CacheConfig {
                     .serializeKeysWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
                             .fromSerializer(new StringRedisSerializer()))
                     .serializeValuesWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
-                            .fromSerializer(createJsonRedisSerializer()))
+                            .fromSerializer(createValueRedisSerializer()))
                     .disableCachingNullValues(); 
 
             
@@ -199,7 +235,22 @@ public class CacheConfig {
                     .build();
                     
             logger.info("✅ Redis Cache Manager configurado exitosamente");
-            return cacheManager;
+            
+            if (!nearCacheEnabled) {
+                return cacheManager;
+            }
+            
+            
+            logger.info("🔧 Near-cache L1 habilitado - max {} entradas, TTL {}, timeline TTL {}, refresh-ahead {}",
+                    nearCacheMaximumSize, nearCacheTtl, nearCacheTimelineTtl, nearCacheRefreshAhead);
+            return new TwoLevelCacheManager(
+                    cacheManager,
+                    new StringRedisTemplate(redisConnectionFactory),
+                    meterRegistry,
+                    Map.of("timeline", nearCacheTimelineTtl),
+                    nearCacheMaximumSize,
+                    nearCacheTtl,
+                    nearCacheRefreshAhead);
                     
         } catch (Exception e) {
             logger.error("❌ FALLO CRÍTICO: No se pudo conectar a Redis para cache: {}", e.getMessage());
@@ -213,6 +264,25 @@ public class CacheConfig {
             throw new RuntimeException("Redis es requerido para el inicio de la aplicación. Verificar que Redis esté corriendo y accesible.", e);
         }
     }
+    
+    /**
+     * Suscripción a las invalidaciones del near-cache publicadas por los demás nodos
+     */
+    @Bean
+    @ConditionalOnProperty(
+        name = "spring.cache.type", 
+        havingValue = "redis", 
+        matchIfMissing = false
+    )
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                           CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        if (cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager) {
+            container.addMessageListener(twoLevelCacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        }
+        return container;
+    }
 
     /**
      * RedisTemplate optimizado para operaciones manuales de cache
@@ -231,13 +301,13 @@ public class CacheConfig {
         
         
         StringRedisSerializer stringSerializer = new StringRedisSerializer();
-        GenericJackson2JsonRedisSerializer jsonSerializer = createJsonRedisSerializer();
+        RedisSerializer<Object> valueSerializer = createValueRedisSerializer();
         
         template.setKeySerializer(stringSerializer);
-        template.setValueSerializer(jsonSerializer);
+        template.setValueSerializer(valueSerializer);
         template.setHashKeySerializer(stringSerializer);
-        template.setHashValueSerializer(jsonSerializer);
-        template.setDefaultSerializer(jsonSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        template.setDefaultSerializer(valueSerializer);
         
         
         template.setEnableTransactionSupport(true);
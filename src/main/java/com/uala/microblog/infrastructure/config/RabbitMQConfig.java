@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.DirectRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
@@ -15,6 +16,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
 
+import java.time.Duration;
+import java.util.Date;
+
 @Configuration
 public class RabbitMQConfig {
     
@@ -22,6 +26,39 @@ public class RabbitMQConfig {
     @Value("${microblog.rabbitmq.queues.fanout:microblog.fanout}")
     private String fanoutQueueName;
     
+    @Value("${microblog.rabbitmq.queues.fanout-large:microblog.fanout.large}")
+    private String fanoutLargeQueueName;
+    
+    @Value("${microblog.rabbitmq.queues.fanout-shards:microblog.fanout.shards}")
+    private String fanoutShardsQueueName;
+    
+    @Value("${microblog.rabbitmq.queues.fanout-batches:microblog.fanout.batches}")
+    private String fanoutBatchesQueueName;
+    
+    @Value("${microblog.rabbitmq.queues.tweet-deletions:microblog.tweet.deletions}")
+    private String tweetDeletionsQueueName;
+    
+    @Value("${microblog.fanout.consumer.batch-size:100}")
+    private int fanoutBatchSize;
+    
+    @Value("${microblog.fanout.consumer.receive-timeout:50ms}")
+    private Duration fanoutReceiveTimeout;
+    
+    @Value("${microblog.fanout.consumer.prefetch:250}")
+    private int fanoutPrefetch;
+    
+    @Value("${microblog.fanout.consumer.min-consumers:1}")
+    private int fanoutMinConsumers;
+    
+    @Value("${microblog.fanout.consumer.max-consumers:10}")
+    private int fanoutMaxConsumers;
+    
+    @Value("${microblog.fanout.lanes.large.min-consumers:1}")
+    private int largeLaneMinConsumers;
+    
+    @Value("${microblog.fanout.lanes.large.max-consumers:4}")
+    private int largeLaneMaxConsumers;
+    
     @Value("${microblog.rabbitmq.queues.timeline:microblog.timeline}")
     private String timelineQueueName;
     
@@ -32,11 +69,17 @@ public class RabbitMQConfig {
     public static final String FANOUT_EXCHANGE = "microblog.fanout.exchange";
     public static final String TIMELINE_EXCHANGE = "microblog.timeline.exchange";
     public static final String NOTIFICATIONS_EXCHANGE = "microblog.notifications.exchange";
+    public static final String DEAD_LETTER_EXCHANGE = "microblog.dlx";
     
     
     public static final String FANOUT_ROUTING_KEY = "fanout.tweet";
+    public static final String FANOUT_LARGE_ROUTING_KEY = "fanout.tweet.large";
+    public static final String FANOUT_SHARD_ROUTING_KEY = "fanout.shard";
+    public static final String FANOUT_BATCH_ROUTING_KEY = "fanout.batch";
+    public static final String TWEET_DELETION_ROUTING_KEY = "fanout.delete";
     public static final String TIMELINE_ROUTING_KEY = "timeline.update";
     public static final String NOTIFICATION_ROUTING_KEY = "notification.send";
+    public static final String FANOUT_DEAD_LETTER_ROUTING_KEY = "dlq.fanout";
     
     
     @Bean
@@ -56,6 +99,11 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(jsonMessageConverter());
+        
+        template.setBeforePublishPostProcessors(message -> {
+            message.getMessageProperties().setTimestamp(new Date());
+            return message;
+        });
         return template;
     }
     
@@ -73,6 +121,10 @@ public class RabbitMQConfig {
     @Bean
     @DependsOn("rabbitAdmin")
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
+        return newListenerContainerFactory(connectionFactory);
+    }
+    
+    private SimpleRabbitListenerContainerFactory newListenerContainerFactory(ConnectionFactory connectionFactory) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(jsonMessageConverter());
@@ -86,12 +138,71 @@ public class RabbitMQConfig {
         return factory;
     }
     
+    /**
+     * Contenedor dedicado de microblog.fanout (consumer.mode=batch): entrega hasta batch-size mensajes
+     * por llamada (cortando el batch cuando pasa receive-timeout sin mensajes nuevos) y el listener
+     * confirma el batch entero con un único basicAck múltiple
+     */
+    @Bean
+    @DependsOn("rabbitAdmin")
+    public SimpleRabbitListenerContainerFactory fanoutBatchContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = newListenerContainerFactory(connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(fanoutBatchSize);
+        factory.setPrefetchCount(Math.max(fanoutPrefetch, fanoutBatchSize));
+        factory.setReceiveTimeout(fanoutReceiveTimeout.toMillis());
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(fanoutMinConsumers);
+        factory.setMaxConcurrentConsumers(Math.max(fanoutMinConsumers, fanoutMaxConsumers));
+        return factory;
+    }
+    
+    /**
+     * Alternativa con DirectMessageListenerContainer (consumer.mode=direct): sin hilos propios de
+     * consumo ni batching del lado del consumidor; entrega mensaje a mensaje y agrupa los acks
+     * (cada batch-size mensajes o receive-timeout)
+     */
+    @Bean
+    @DependsOn("rabbitAdmin")
+    public DirectRabbitListenerContainerFactory fanoutDirectContainerFactory(ConnectionFactory connectionFactory) {
+        DirectRabbitListenerContainerFactory factory = new DirectRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter());
+        factory.setMissingQueuesFatal(false);
+        factory.setDefaultRequeueRejected(false);
+        factory.setPrefetchCount(Math.max(fanoutPrefetch, fanoutBatchSize));
+        factory.setConsumersPerQueue(fanoutMinConsumers);
+        factory.setMessagesPerAck(fanoutBatchSize);
+        factory.setAckTimeout(fanoutReceiveTimeout.toMillis());
+        return factory;
+    }
+    /**
+     * Carril de fanouts grandes (microblog.fanout.large): pool propio y prefetch 1, de modo que un
+     * coordinador con miles de seguidores no retiene mensajes que otro consumidor libre podría tomar
+     */
+    @Bean
+    @DependsOn("rabbitAdmin")
+    public SimpleRabbitListenerContainerFactory fanoutLargeContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = newListenerContainerFactory(connectionFactory);
+        factory.setPrefetchCount(1);
+        factory.setConcurrentConsumers(largeLaneMinConsumers);
+        factory.setMaxConcurrentConsumers(Math.max(largeLaneMinConsumers, largeLaneMaxConsumers));
+        return factory;
+    }
+    
     
     
+    /**
+     * Los mensajes rechazados sin requeue (y los que expiran) van a microblog.dlq en lugar de
+     * descartarse. Cambiar los argumentos requiere borrar la cola existente antes de desplegar.
+     */
     @Bean
     public Queue fanoutQueue() {
         return QueueBuilder.durable(fanoutQueueName)
                 .withArgument("x-message-ttl", 60000) 
+                .deadLetterExchange(DEAD_LETTER_EXCHANGE)
+                .deadLetterRoutingKey(FANOUT_DEAD_LETTER_ROUTING_KEY)
                 .build();
     }
     
@@ -108,6 +219,74 @@ public class RabbitMQConfig {
                 .with(FANOUT_ROUTING_KEY);
     }
     
+    /**
+     * Carril de fanouts grandes: autores push con al menos lanes.large-threshold seguidores.
+     * Sin TTL: con backlog de fanouts grandes los mensajes pueden esperar más de un minuto
+     */
+    @Bean
+    public Queue fanoutLargeQueue() {
+        return QueueBuilder.durable(fanoutLargeQueueName).build();
+    }
+    
+    @Bean
+    public Binding fanoutLargeBinding() {
+        return BindingBuilder
+                .bind(fanoutLargeQueue())
+                .to(fanoutExchange())
+                .with(FANOUT_LARGE_ROUTING_KEY);
+    }
+    
+    /**
+     * Shards de fanouts grandes. Sin TTL: un shard descartado deja timelines sin el tweet
+     */
+    @Bean
+    public Queue fanoutShardsQueue() {
+        return QueueBuilder.durable(fanoutShardsQueueName).build();
+    }
+    
+    @Bean
+    public Binding fanoutShardsBinding() {
+        return BindingBuilder
+                .bind(fanoutShardsQueue())
+                .to(fanoutExchange())
+                .with(FANOUT_SHARD_ROUTING_KEY);
+    }
+    
+    /**
+     * Fanouts agrupados por autor de la creación en batch. Mismo TTL que la cola de fanout
+     */
+    @Bean
+    public Queue fanoutBatchesQueue() {
+        return QueueBuilder.durable(fanoutBatchesQueueName)
+                .withArgument("x-message-ttl", 60000)
+                .build();
+    }
+    
+    @Bean
+    public Binding fanoutBatchesBinding() {
+        return BindingBuilder
+                .bind(fanoutBatchesQueue())
+                .to(fanoutExchange())
+                .with(FANOUT_BATCH_ROUTING_KEY);
+    }
+    
+    /**
+     * Borrados de tweets de los timelines (coordinador y batches). Sin TTL: un borrado
+     * descartado dejaría el ID en los timelines hasta que expiren
+     */
+    @Bean
+    public Queue tweetDeletionsQueue() {
+        return QueueBuilder.durable(tweetDeletionsQueueName).build();
+    }
+    
+    @Bean
+    public Binding tweetDeletionsBinding() {
+        return BindingBuilder
+                .bind(tweetDeletionsQueue())
+                .to(fanoutExchange())
+                .with(TWEET_DELETION_ROUTING_KEY);
+    }
+    
     
     
     @Bean
@@ -161,7 +340,7 @@ public class RabbitMQConfig {
     
     @Bean
     public TopicExchange deadLetterExchange() {
-        return new TopicExchange("microblog.dlx");
+        return new TopicExchange(DEAD_LETTER_EXCHANGE);
     }
     
     @Bean
@@ -0,0 +1,43 @@
+package com.uala.microblog.infrastructure.controller;
+
+import com.uala.microblog.application.service.AsyncTimelineService;
+import com.uala.microblog.domain.entity.Tweet;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de TimelineController (microblog.web.async.enabled=true): mismo contrato,
+ * pero la petición se resuelve con Servlet async y no retiene un hilo de Tomcat
+ */
+@RestController
+@RequestMapping("/timeline")
+@CrossOrigin(origins = "*", exposedHeaders = TimelineController.NEXT_CURSOR_HEADER)
+@ConditionalOnProperty(name = "microblog.web.async.enabled", havingValue = "true")
+public class AsyncTimelineController {
+    
+    private final AsyncTimelineService asyncTimelineService;
+    
+    public AsyncTimelineController(AsyncTimelineService asyncTimelineService) {
+        this.asyncTimelineService = asyncTimelineService;
+    }
+    
+    @GetMapping
+    public CompletableFuture<ResponseEntity<List<Tweet>>> getTimeline(
+            @RequestParam("userId") String userId,
+            @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "maxScore", required = false) Long maxScore) {
+        
+        if (cursor == null && maxScore == null) {
+            return asyncTimelineService.getUserTimeline(userId, limit)
+                .thenApply(timeline -> TimelineController.withNextCursor(timeline, asyncTimelineService.nextCursor(timeline, limit)));
+        }
+        
+        return asyncTimelineService.getUserTimelinePage(userId, cursor, maxScore, limit)
+            .thenApply(page -> TimelineController.withNextCursor(page.getTweets(), page.getNextCursor()));
+    }
+}
@@ -0,0 +1,49 @@
+package com.uala.microblog.infrastructure.controller;
+
+import com.uala.microblog.application.service.AsyncTweetService;
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.entity.TweetBatchResult;
+import com.uala.microblog.infrastructure.controller.dto.CreateTweetRequest;
+import com.uala.microblog.infrastructure.controller.dto.CreateTweetsBatchRequest;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de TweetController (microblog.web.async.enabled=true): mismo contrato,
+ * resuelto con Servlet async sobre el pool del AsyncRequestExecutor
+ */
+@RestController
+@RequestMapping("/tweets")
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "microblog.web.async.enabled", havingValue = "true")
+public class AsyncTweetController {
+    
+    private final AsyncTweetService asyncTweetService;
+    
+    public AsyncTweetController(AsyncTweetService asyncTweetService) {
+        this.asyncTweetService = asyncTweetService;
+    }
+    
+    @PostMapping
+    public CompletableFuture<ResponseEntity<Tweet>> createTweet(@Valid @RequestBody CreateTweetRequest request) {
+        return asyncTweetService.createTweet(request.getContent(), request.getUserId())
+            .thenApply(TweetController::created);
+    }
+    
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<TweetBatchResult>>> createTweets(@Valid @RequestBody CreateTweetsBatchRequest request) {
+        return asyncTweetService.createTweets(TweetController.toDrafts(request))
+            .thenApply(TweetController::batchCreated);
+    }
+    
+    @DeleteMapping("/{tweetId}")
+    public CompletableFuture<ResponseEntity<Void>> deleteTweet(@PathVariable String tweetId, @RequestParam String userId) {
+        return asyncTweetService.deleteTweet(tweetId, userId)
+            .thenApply(ignored -> ResponseEntity.noContent().build());
+    }
+}
@@ -24,4 +24,10 @@ public class FollowController {
         Follow follow = followService.followUser(request.getFollowerId(), request.getFollowedId());
         return ResponseEntity.status(HttpStatus.CREATED).body(follow);
     }
+    
+    @DeleteMapping
+    public ResponseEntity<Void> unfollowUser(@Valid @RequestBody FollowRequest request) {
+        followService.unfollowUser(request.getFollowerId(), request.getFollowedId());
+        return ResponseEntity.noContent().build();
+    }
 } 
\ No newline at end of file
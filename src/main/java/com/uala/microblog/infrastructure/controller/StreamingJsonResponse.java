@@ -0,0 +1,69 @@
+package com.uala.microblog.infrastructure.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Respuestas de listas grandes escritas a medida que se leen del cursor de MongoDB: array JSON por
+ * defecto o NDJSON (un objeto por línea) si el cliente acepta application/x-ndjson.
+ * La escritura sobre la respuesta es bloqueante, así que el cursor avanza al ritmo del cliente y
+ * la memoria usada no depende de la cantidad de elementos.
+ */
+final class StreamingJsonResponse {
+    
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    /**
+     * Elementos escritos entre flushes al cliente
+     */
+    private static final int FLUSH_EVERY = 100;
+    
+    private StreamingJsonResponse() {
+    }
+    
+    /**
+     * El stream se abre y se cierra en el hilo que escribe la respuesta
+     */
+    static <T> ResponseEntity<StreamingResponseBody> of(Supplier<Stream<T>> source, String accept, ObjectMapper objectMapper) {
+        boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream().anyMatch(NDJSON::equalsTypeAndSubtype);
+        
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<T> items = source.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+                
+                int written = 0;
+                Iterator<T> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    generator.writeObject(iterator.next());
+                    if (ndjson) {
+                        generator.writeRaw('\n');
+                    }
+                    if (++written % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+                
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        
+        return ResponseEntity.ok()
+            .contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+}
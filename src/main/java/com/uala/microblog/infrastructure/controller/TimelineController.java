@@ -1,7 +1,9 @@
 package com.uala.microblog.infrastructure.controller;
 
 import com.uala.microblog.application.service.TimelineService;
+import com.uala.microblog.domain.entity.TimelinePage;
 import com.uala.microblog.domain.entity.Tweet;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -9,7 +11,8 @@ import java.util.List;
 
 @RestController
 @RequestMapping("/timeline")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = TimelineController.NEXT_CURSOR_HEADER)
+@ConditionalOnProperty(name = "microblog.web.async.enabled", havingValue = "false", matchIfMissing = true)
 public class TimelineController {
     
     private final TimelineService timelineService;
@@ -18,13 +21,33 @@ public class TimelineController {
         this.timelineService = timelineService;
     }
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    /**
+     * Timeline paginado por cursor: la primera página se pide sin cursor y las siguientes
+     * con el valor del header X-Next-Cursor (o con maxScore, en millis epoch UTC)
+     */
     @GetMapping
     public ResponseEntity<List<Tweet>> getTimeline(
             @RequestParam("userId") String userId,
-            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+            @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "maxScore", required = false) Long maxScore) {
         
+        if (cursor == null && maxScore == null) {
+            List<Tweet> timeline = timelineService.getUserTimeline(userId, limit);
+            return withNextCursor(timeline, timelineService.nextCursor(timeline, limit));
+        }
         
-        List<Tweet> timeline = timelineService.getUserTimeline(userId, limit);
-        return ResponseEntity.ok(timeline);
+        TimelinePage page = timelineService.getUserTimelinePage(userId, cursor, maxScore, limit);
+        return withNextCursor(page.getTweets(), page.getNextCursor());
+    }
+    
+    static ResponseEntity<List<Tweet>> withNextCursor(List<Tweet> tweets, String nextCursor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(tweets);
     }
 } 
\ No newline at end of file
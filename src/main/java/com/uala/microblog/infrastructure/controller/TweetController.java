@@ -2,15 +2,22 @@ package com.uala.microblog.infrastructure.controller;
 
 import com.uala.microblog.application.service.TweetService;
 import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.entity.TweetBatchResult;
 import com.uala.microblog.infrastructure.controller.dto.CreateTweetRequest;
+import com.uala.microblog.infrastructure.controller.dto.CreateTweetsBatchRequest;
 import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping("/tweets")
 @CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "microblog.web.async.enabled", havingValue = "false", matchIfMissing = true)
 public class TweetController {
     
     private final TweetService tweetService;
@@ -21,7 +28,35 @@ public class TweetController {
     
     @PostMapping
     public ResponseEntity<Tweet> createTweet(@Valid @RequestBody CreateTweetRequest request) {
-        Tweet tweet = tweetService.createTweet(request.getContent(), request.getUserId());
+        return created(tweetService.createTweet(request.getContent(), request.getUserId()));
+    }
+    
+    /**
+     * Crea hasta 500 tweets. 201 si se crearon todos; 207 con el resultado de cada ítem si hubo rechazos
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<TweetBatchResult>> createTweets(@Valid @RequestBody CreateTweetsBatchRequest request) {
+        return batchCreated(tweetService.createTweets(toDrafts(request)));
+    }
+    
+    @DeleteMapping("/{tweetId}")
+    public ResponseEntity<Void> deleteTweet(@PathVariable String tweetId, @RequestParam String userId) {
+        tweetService.deleteTweet(tweetId, userId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    static ResponseEntity<Tweet> created(Tweet tweet) {
         return ResponseEntity.status(HttpStatus.CREATED).body(tweet);
     }
+    
+    static List<Tweet> toDrafts(CreateTweetsBatchRequest request) {
+        return request.getTweets().stream()
+            .map(item -> item != null ? new Tweet(item.getContent(), item.getUserId()) : null)
+            .collect(Collectors.toList());
+    }
+    
+    static ResponseEntity<List<TweetBatchResult>> batchCreated(List<TweetBatchResult> results) {
+        boolean allCreated = results.stream().allMatch(TweetBatchResult::isCreated);
+        return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+    }
 }
@@ -1,13 +1,16 @@
 package com.uala.microblog.infrastructure.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.uala.microblog.application.service.UserService;
-import com.uala.microblog.domain.entity.Tweet;
 import com.uala.microblog.domain.entity.User;
+import com.uala.microblog.domain.entity.UserPage;
 import com.uala.microblog.infrastructure.controller.dto.CreateUserRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,9 +20,11 @@ import java.util.List;
 public class UserController {
     
     private final UserService userService;
+    private final ObjectMapper objectMapper;
     
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
     }
     
     @PostMapping
@@ -31,10 +36,14 @@ public class UserController {
 
 //--------------endpoints para desarrollo, no expuestos en entorno productivo---------
     
+    /**
+     * Las listas completas (usuarios, seguidores, seguidos, tweets de un usuario) se escriben en
+     * streaming desde el cursor de MongoDB: array JSON, o NDJSON con Accept: application/x-ndjson
+     */
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<StreamingResponseBody> getAllUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return StreamingJsonResponse.of(userService::streamAllUsers, accept, objectMapper);
     }
     
     @GetMapping("/{userId}")
@@ -43,21 +52,52 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
     
+    /**
+     * Sin cursor ni limit devuelve la lista completa en streaming; con cualquiera de los dos pagina
+     * por cursor y la página siguiente se pide con el valor del header X-Next-Cursor
+     */
+    @GetMapping(value = "/{userId}/followers", params = {"!cursor", "!limit"})
+    public ResponseEntity<StreamingResponseBody> getFollowers(
+            @PathVariable String userId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return StreamingJsonResponse.of(() -> userService.streamFollowers(userId), accept, objectMapper);
+    }
+    
     @GetMapping("/{userId}/followers")
-    public ResponseEntity<List<User>> getFollowers(@PathVariable String userId) {
-        List<User> followers = userService.getFollowers(userId);
-        return ResponseEntity.ok(followers);
+    public ResponseEntity<List<User>> getFollowersPage(
+            @PathVariable String userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return withNextCursor(userService.getFollowersPage(userId, cursor, limit));
+    }
+    
+    @GetMapping(value = "/{userId}/following", params = {"!cursor", "!limit"})
+    public ResponseEntity<StreamingResponseBody> getFollowing(
+            @PathVariable String userId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return StreamingJsonResponse.of(() -> userService.streamFollowing(userId), accept, objectMapper);
     }
     
     @GetMapping("/{userId}/following")
-    public ResponseEntity<List<User>> getFollowing(@PathVariable String userId) {
-        List<User> following = userService.getFollowing(userId);
-        return ResponseEntity.ok(following);
+    public ResponseEntity<List<User>> getFollowingPage(
+            @PathVariable String userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return withNextCursor(userService.getFollowingPage(userId, cursor, limit));
+    }
+    
+    private static ResponseEntity<List<User>> withNextCursor(UserPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(TimelineController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getUsers());
     }
     
     @GetMapping("/{userId}/tweets")
-    public ResponseEntity<List<Tweet>> getUserTweets(@PathVariable String userId) {
-        List<Tweet> tweets = userService.getUserTweets(userId);
-        return ResponseEntity.ok(tweets);
+    public ResponseEntity<StreamingResponseBody> getUserTweets(
+            @PathVariable String userId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return StreamingJsonResponse.of(() -> userService.streamUserTweets(userId), accept, objectMapper);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.uala.microblog.infrastructure.controller.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Los ítems no se validan con @Valid: un ítem inválido se rechaza en su resultado sin cortar el batch
+ */
+public class CreateTweetsBatchRequest {
+    
+    public static final int MAX_BATCH_SIZE = 500;
+    
+    @NotEmpty(message = "At least one tweet is required")
+    @Size(max = MAX_BATCH_SIZE, message = "A batch cannot exceed " + MAX_BATCH_SIZE + " tweets")
+    private List<CreateTweetRequest> tweets;
+    
+    public CreateTweetsBatchRequest() {
+    }
+    
+    public CreateTweetsBatchRequest(List<CreateTweetRequest> tweets) {
+        this.tweets = tweets;
+    }
+    
+    public List<CreateTweetRequest> getTweets() {
+        return tweets;
+    }
+    
+    public void setTweets(List<CreateTweetRequest> tweets) {
+        this.tweets = tweets;
+    }
+    
+    @Override
+    public String toString() {
+        return "CreateTweetsBatchRequest{" +
+                "tweets=" + (tweets != null ? tweets.size() : 0) +
+                '}';
+    }
+}
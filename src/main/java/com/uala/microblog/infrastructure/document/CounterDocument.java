@@ -0,0 +1,40 @@
+package com.uala.microblog.infrastructure.document;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Contador con nombre: value es el próximo valor libre. Se reservan rangos con un
+ * findAndModify $inc atómico (ver UserIdDictionary).
+ */
+@Document(collection = "counters")
+public class CounterDocument {
+    
+    public static final String VALUE = "value";
+    
+    @Id
+    private String id;
+    
+    @Field(VALUE)
+    private long value;
+    
+    public CounterDocument() {
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public long getValue() {
+        return value;
+    }
+    
+    public void setValue(long value) {
+        this.value = value;
+    }
+}
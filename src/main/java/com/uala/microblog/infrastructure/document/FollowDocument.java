@@ -11,6 +11,7 @@ import java.util.Objects;
 
 @Document(collection = "follows")
 @CompoundIndex(def = "{'follower_id': 1, 'followed_id': 1}", name = "follower_followed_idx", unique = true)
+@CompoundIndex(def = "{'followed_id': 1, 'follower_id': 1}", name = "followed_follower_idx")
 public class FollowDocument {
     
     @Id
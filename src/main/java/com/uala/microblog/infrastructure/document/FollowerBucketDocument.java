@@ -0,0 +1,69 @@
+package com.uala.microblog.infrastructure.document;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Lista de adyacencia de seguidores en buckets: cada documento guarda hasta bucket-size seguidores
+ * de un usuario, como códigos enteros de UserIdDictionary, así el fanout lee miles de seguidores por documento en lugar de un
+ * FollowDocument por relación. La colección follows sigue siendo la fuente de verdad.
+ */
+@Document(collection = "follower_buckets")
+@CompoundIndex(def = "{'user_id': 1, 'count': 1}", name = "user_count_idx")
+public class FollowerBucketDocument {
+    
+    @Id
+    private String id;
+    
+    @Field("user_id")
+    private String userId;
+    
+    @Field("follower_codes")
+    private int[] followerCodes = new int[0];
+    
+    @Field("count")
+    private int count;
+    
+    public FollowerBucketDocument() {
+    }
+    
+    public FollowerBucketDocument(String userId, int[] followerCodes) {
+        this.userId = userId;
+        this.followerCodes = followerCodes;
+        this.count = followerCodes.length;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public int[] getFollowerCodes() {
+        return followerCodes;
+    }
+    
+    public void setFollowerCodes(int[] followerCodes) {
+        this.followerCodes = followerCodes;
+    }
+    
+    public int getCount() {
+        return count;
+    }
+    
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,127 @@
+package com.uala.microblog.infrastructure.document;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mensaje pendiente de publicar en RabbitMQ. Se borra cuando el broker confirma la publicación.
+ * El payload se guarda con su tipo (_class) para publicarlo igual que si se enviara directo.
+ */
+@Document(collection = "outbox")
+public class OutboxDocument {
+    
+    @Id
+    private String id;
+    
+    @Field("exchange")
+    private String exchange;
+    
+    @Field("routing_key")
+    private String routingKey;
+    
+    @Field("payload")
+    private Object payload;
+    
+    @Field("created_at")
+    private LocalDateTime createdAt;
+    
+    @Field("next_attempt_at")
+    @Indexed
+    private LocalDateTime nextAttemptAt;
+    
+    @Field("attempts")
+    private int attempts;
+    
+    @Field("claimed_by")
+    @Indexed(sparse = true)
+    private String claimedBy;
+    
+    public OutboxDocument() {
+    }
+    
+    public OutboxDocument(String id, String exchange, String routingKey, Object payload, LocalDateTime createdAt) {
+        this.id = id;
+        this.exchange = exchange;
+        this.routingKey = routingKey;
+        this.payload = payload;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getExchange() {
+        return exchange;
+    }
+    
+    public void setExchange(String exchange) {
+        this.exchange = exchange;
+    }
+    
+    public String getRoutingKey() {
+        return routingKey;
+    }
+    
+    public void setRoutingKey(String routingKey) {
+        this.routingKey = routingKey;
+    }
+    
+    public Object getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(Object payload) {
+        this.payload = payload;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+    
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+    
+    @Override
+    public String toString() {
+        return "OutboxDocument{" +
+                "id='" + id + '\'' +
+                ", routingKey='" + routingKey + '\'' +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -27,6 +27,14 @@ public class TweetDocument {
     @Indexed
     private LocalDateTime createdAt;
     
+    /**
+     * true desde el insert hasta que el fanout queda guardado en el outbox (o publicado);
+     * el campo se borra al confirmarse, así que el índice sparse solo contiene los pendientes
+     */
+    @Field("fanout_pending")
+    @Indexed(sparse = true)
+    private Boolean fanoutPending;
+    
     public TweetDocument() {
     }
     
@@ -71,6 +79,14 @@ public class TweetDocument {
         this.createdAt = createdAt;
     }
     
+    public Boolean getFanoutPending() {
+        return fanoutPending;
+    }
+    
+    public void setFanoutPending(Boolean fanoutPending) {
+        this.fanoutPending = fanoutPending;
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,45 @@
+package com.uala.microblog.infrastructure.document;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Código entero denso (0, 1, 2...) asignado a un ID de usuario. Lo usan las estructuras del
+ * fanout en lugar del ObjectId de 24 caracteres.
+ */
+@Document(collection = "user_id_codes")
+public class UserIdCodeDocument {
+    
+    @Id
+    private String userId;
+    
+    @Field("code")
+    @Indexed(unique = true)
+    private int code;
+    
+    public UserIdCodeDocument() {
+    }
+    
+    public UserIdCodeDocument(String userId, int code) {
+        this.userId = userId;
+        this.code = code;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public int getCode() {
+        return code;
+    }
+    
+    public void setCode(int code) {
+        this.code = code;
+    }
+}
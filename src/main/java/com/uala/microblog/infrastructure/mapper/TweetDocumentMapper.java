@@ -44,6 +44,7 @@ public class TweetDocumentMapper {
         
         
         document.setId(null);
+        document.setFanoutPending(true);
         
         return document;
     }
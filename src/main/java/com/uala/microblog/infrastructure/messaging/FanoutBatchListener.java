@@ -0,0 +1,107 @@
+package com.uala.microblog.infrastructure.messaging;
+
+import com.rabbitmq.client.Channel;
+import com.uala.microblog.infrastructure.messaging.dto.FanoutMessage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumidores de microblog.fanout con contenedor dedicado (microblog.fanout.consumer.mode):
+ * - batch: SimpleMessageListenerContainer con consumer batching y ack manual; el batch se procesa
+ *   coalescido por destinatario y se confirma con un único basicAck múltiple. Si el batch falla se
+ *   reprocesa mensaje a mensaje: cada uno se confirma o se rechaza por separado (la primera vez
+ *   vuelve a la cola, una redelivery que falla va a microblog.dlq), así un mensaje inválido no
+ *   arrastra a sus vecinos. Reprocesar es seguro: el ZADD de los timelines es idempotente y los
+ *   reencaminamientos y shards del batch se publican solo si sus escrituras terminaron.
+ * - direct: DirectMessageListenerContainer, mensaje a mensaje con acks agrupados por el contenedor.
+ *
+ * Métricas: microblog.fanout.consumer.batch.size (mensajes por batch) y
+ * microblog.fanout.consumer.ack.latency (desde la entrega del batch hasta su ack).
+ */
+@Component
+public class FanoutBatchListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FanoutBatchListener.class);
+    
+    static final String BATCH_LISTENER_ID = "fanout-batch";
+    static final String DIRECT_LISTENER_ID = "fanout-direct";
+    
+    private final FanoutMessageService fanoutMessageService;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer ackLatencyTimer;
+    
+    public FanoutBatchListener(FanoutMessageService fanoutMessageService, MeterRegistry meterRegistry) {
+        this.fanoutMessageService = fanoutMessageService;
+        this.batchSizeSummary = DistributionSummary.builder("microblog.fanout.consumer.batch.size")
+            .description("Fanout messages delivered per consumer batch")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        this.ackLatencyTimer = Timer.builder("microblog.fanout.consumer.ack.latency")
+            .description("Time from batch delivery to its acknowledgement")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+    
+    @RabbitListener(id = BATCH_LISTENER_ID, queues = "microblog.fanout", containerFactory = "fanoutBatchContainerFactory",
+                    autoStartup = "#{'${microblog.fanout.consumer.mode:single}' == 'batch'}")
+    public void onFanoutBatch(List<Message<FanoutMessage>> messages, Channel channel) throws IOException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        long lastDeliveryTag = (Long) messages.get(messages.size() - 1).getHeaders().get(AmqpHeaders.DELIVERY_TAG);
+        batchSizeSummary.record(messages.size());
+        messages.forEach(message -> fanoutMessageService.recordReceived(message.getPayload(), FanoutMetrics.SMALL_LANE,
+            message.getHeaders().get(AmqpHeaders.TIMESTAMP, Date.class)));
+        
+        try {
+            fanoutMessageService.processFanoutMessages(messages.stream().map(Message::getPayload).toList());
+            channel.basicAck(lastDeliveryTag, true);
+        } catch (Exception e) {
+            logger.warn("Fanout batch of {} messages failed, processing them one by one: {}", messages.size(), e.getMessage());
+            for (Message<FanoutMessage> message : messages) {
+                processSingle(message, channel);
+            }
+        }
+        
+        ackLatencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    
+    private void processSingle(Message<FanoutMessage> message, Channel channel) throws IOException {
+        long deliveryTag = (Long) message.getHeaders().get(AmqpHeaders.DELIVERY_TAG);
+        try {
+            fanoutMessageService.processFanoutMessages(List.of(message.getPayload()));
+            channel.basicAck(deliveryTag, false);
+        } catch (Exception e) {
+            boolean redelivered = Boolean.TRUE.equals(message.getHeaders().get(AmqpHeaders.REDELIVERED));
+            if (redelivered) {
+                logger.error("Dead-lettering fanout of tweet {} after a failed redelivery: {}",
+                    message.getPayload().getTweetId(), e.getMessage());
+            } else {
+                logger.warn("Requeueing fanout of tweet {}: {}", message.getPayload().getTweetId(), e.getMessage());
+            }
+            channel.basicNack(deliveryTag, false, !redelivered);
+        }
+    }
+    
+    @RabbitListener(id = DIRECT_LISTENER_ID, queues = "microblog.fanout", containerFactory = "fanoutDirectContainerFactory",
+                    autoStartup = "#{'${microblog.fanout.consumer.mode:single}' == 'direct'}")
+    public void onFanoutMessage(FanoutMessage message,
+                                @Header(name = AmqpHeaders.TIMESTAMP, required = false) Date publishedAt) {
+        fanoutMessageService.processFanoutMessage(message, publishedAt);
+    }
+}
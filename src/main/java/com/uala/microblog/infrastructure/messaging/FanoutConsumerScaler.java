@@ -0,0 +1,96 @@
+package com.uala.microblog.infrastructure.messaging;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.DirectMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ajusta los consumidores del contenedor dedicado de fanout según la profundidad de la cola:
+ * ceil(mensajes en cola / messages-per-consumer), acotado a [min-consumers, max-consumers].
+ * La profundidad es la que lee FanoutMetrics cada depth-interval (carril small, microblog.fanout).
+ * En el contenedor simple fija concurrentConsumers (el contenedor puede seguir creciendo hasta el
+ * máximo por actividad); en el direct fija consumersPerQueue.
+ * Métrica: microblog.fanout.consumers (la profundidad por carril la publica FanoutMetrics).
+ */
+@Component
+@ConditionalOnExpression("'${microblog.fanout.consumer.mode:single}' != 'single'")
+public class FanoutConsumerScaler implements SchedulingConfigurer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FanoutConsumerScaler.class);
+    
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final FanoutMetrics fanoutMetrics;
+    private final int minConsumers;
+    private final int maxConsumers;
+    private final int messagesPerConsumer;
+    private final AtomicInteger consumers = new AtomicInteger();
+    private final Duration scaleInterval;
+    
+    public FanoutConsumerScaler(RabbitListenerEndpointRegistry listenerRegistry,
+                                FanoutMetrics fanoutMetrics,
+                                MeterRegistry meterRegistry,
+                                @Value("${microblog.fanout.consumer.min-consumers:1}") int minConsumers,
+                                @Value("${microblog.fanout.consumer.max-consumers:10}") int maxConsumers,
+                                @Value("${microblog.fanout.consumer.messages-per-consumer:500}") int messagesPerConsumer,
+                                @Value("${microblog.fanout.consumer.scale-interval:5s}") Duration scaleInterval) {
+        this.listenerRegistry = listenerRegistry;
+        this.fanoutMetrics = fanoutMetrics;
+        this.minConsumers = Math.max(1, minConsumers);
+        this.maxConsumers = Math.max(this.minConsumers, maxConsumers);
+        this.messagesPerConsumer = Math.max(1, messagesPerConsumer);
+        this.scaleInterval = scaleInterval;
+        
+        Gauge.builder("microblog.fanout.consumers", consumers, AtomicInteger::get)
+            .description("Consumers requested for the fanout listener container")
+            .register(meterRegistry);
+    }
+        
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(this::rescale, scaleInterval, scaleInterval));
+    }
+    
+    void rescale() {
+        try {
+            long depth = fanoutMetrics.laneDepth(FanoutMetrics.SMALL_LANE);
+            int target = targetConsumers(depth);
+            
+            for (String listenerId : List.of(FanoutBatchListener.BATCH_LISTENER_ID, FanoutBatchListener.DIRECT_LISTENER_ID)) {
+                MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+                if (container == null || !container.isRunning()) {
+                    continue;
+                }
+                if (consumers.getAndSet(target) != target) {
+                    logger.info("Fanout queue depth {} - scaling {} to {} consumers", depth, listenerId, target);
+                }
+                if (container instanceof SimpleMessageListenerContainer simple) {
+                    simple.setConcurrentConsumers(target);
+                } else if (container instanceof DirectMessageListenerContainer direct) {
+                    direct.setConsumersPerQueue(target);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not rescale fanout consumers: {}", e.getMessage());
+        }
+    }
+    
+    int targetConsumers(long depth) {
+        long needed = (depth + messagesPerConsumer - 1) / messagesPerConsumer;
+        return (int) Math.max(minConsumers, Math.min(maxConsumers, needed));
+    }
+}
@@ -3,15 +3,28 @@ package com.uala.microblog.infrastructure.messaging;
 import com.uala.microblog.domain.entity.Tweet;
 import com.uala.microblog.application.service.TimelineService;
 import com.uala.microblog.infrastructure.config.RabbitMQConfig;
+import com.uala.microblog.infrastructure.messaging.dto.FanoutBatchMessage;
 import com.uala.microblog.infrastructure.messaging.dto.FanoutMessage;
+import com.uala.microblog.infrastructure.messaging.dto.FanoutShardMessage;
+import com.uala.microblog.infrastructure.messaging.dto.TweetDeletionMessage;
 import com.uala.microblog.domain.port.TweetRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
 @Service
 public class FanoutMessageService {
     
@@ -26,8 +39,22 @@ public class FanoutMessageService {
     @Autowired
     private TweetRepository tweetRepository;
     
+    @Autowired(required = false)
+    private FanoutOutbox fanoutOutbox;
+    
+    @Autowired
+    private FanoutMetrics fanoutMetrics;
+    
+    @Value("${microblog.fanout.shard-size:2000}")
+    private int shardSize;
+    
+    @Value("${microblog.fanout.lanes.large-threshold:1000}")
+    private long largeFanoutThreshold;
+    
     /**
-     * Envía un mensaje de fanout a la cola de RabbitMQ
+     * Envía un mensaje de fanout a la cola de RabbitMQ. En la petición no se hace ninguna consulta:
+     * el mensaje va siempre a microblog.fanout y el consumidor elige el carril.
+     * Guardado el mensaje, se borra la marca fanout_pending del tweet (ver FanoutPendingSweeper)
      */
     public void sendFanoutMessage(Tweet tweet) {
         try {
@@ -40,11 +67,8 @@ public class FanoutMessageService {
             
             logger.info("Sending fanout message for tweet {} to RabbitMQ", tweet.getId());
             
-            rabbitTemplate.convertAndSend(
-                RabbitMQConfig.FANOUT_EXCHANGE,
-                RabbitMQConfig.FANOUT_ROUTING_KEY,
-                message
-            );
+            publish(RabbitMQConfig.FANOUT_ROUTING_KEY, message);
+            markFanoutPublished(List.of(tweet.getId()));
             
             logger.debug("Fanout message sent successfully for tweet {}", tweet.getId());
             
@@ -55,11 +79,131 @@ public class FanoutMessageService {
     }
     
     /**
-     * Procesa mensajes de fanout desde RabbitMQ
-     * PUSH FANOUT: Distribuye el tweet a los timelines de todos los seguidores
+     * Cantidad de seguidores del autor, contada una sola vez por mensaje (en el consumidor)
+     */
+    private long resolveFollowersCount(FanoutMessage message) {
+        if (message.getFollowersCount() == null) {
+            message.setFollowersCount(timelineService.countFollowers(message.getUserId()));
+        }
+        return message.getFollowersCount();
+    }
+    
+    /**
+     * Carril del fanout según los seguidores del autor: los autores push con al menos
+     * large-threshold seguidores se reencaminan desde microblog.fanout a microblog.fanout.large,
+     * con su propio pool de consumidores, para que sus fanouts no demoren los de las cuentas chicas
+     */
+    private boolean rerouteToLargeLane(FanoutMessage message) {
+        if (!isLargeLane(message)) {
+            return false;
+        }
+        publishToLargeLane(message);
+        return true;
+    }
+    
+    private boolean isLargeLane(FanoutMessage message) {
+        return timelineService.isLargePushFanout(resolveFollowersCount(message), largeFanoutThreshold);
+    }
+    
+    private void publishToLargeLane(FanoutMessage message) {
+        rabbitTemplate.convertAndSend(RabbitMQConfig.FANOUT_EXCHANGE, RabbitMQConfig.FANOUT_LARGE_ROUTING_KEY, message);
+        logger.debug("Fanout of tweet {} rerouted to the large lane ({} followers)", message.getTweetId(), message.getFollowersCount());
+    }
+    
+    /**
+     * Publica el fanout de tweets creados en batch: un mensaje por autor, todos en el mismo canal
      */
-    @RabbitListener(queues = "microblog.fanout")
-    public void processFanoutMessage(FanoutMessage message) {
+    public void sendFanoutBatch(List<Tweet> tweets) {
+        Map<String, List<FanoutMessage>> byAuthor = new LinkedHashMap<>();
+        for (Tweet tweet : tweets) {
+            byAuthor.computeIfAbsent(tweet.getUserId(), ignored -> new ArrayList<>())
+                .add(new FanoutMessage(tweet.getId(), tweet.getUserId(), tweet.getContent(), tweet.getCreatedAt()));
+        }
+        
+        logger.info("Sending grouped fanout for {} tweets of {} authors to RabbitMQ", tweets.size(), byAuthor.size());
+        
+        List<FanoutBatchMessage> batches = new ArrayList<>(byAuthor.size());
+        byAuthor.forEach((authorId, messages) -> batches.add(new FanoutBatchMessage(authorId, messages)));
+        
+        if (fanoutOutbox != null) {
+            fanoutOutbox.enqueueAll(RabbitMQConfig.FANOUT_BATCH_ROUTING_KEY, batches);
+        } else {
+            rabbitTemplate.invoke(operations -> {
+                batches.forEach(batch -> operations.convertAndSend(
+                    RabbitMQConfig.FANOUT_EXCHANGE,
+                    RabbitMQConfig.FANOUT_BATCH_ROUTING_KEY,
+                    batch
+                ));
+                return null;
+            });
+        }
+        markFanoutPublished(tweets.stream().map(Tweet::getId).toList());
+    }
+        
+    /**
+     * Si falla, el mensaje ya quedó guardado: el sweeper lo volverá a enviar y el consumidor,
+     * idempotente, lo procesa dos veces sin efecto
+     */
+    private void markFanoutPublished(List<String> tweetIds) {
+        try {
+            tweetRepository.markFanoutPublished(tweetIds);
+        } catch (Exception e) {
+            logger.warn("Could not clear fanout-pending mark of {} tweets: {}", tweetIds.size(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Publicaciones originadas en una petición HTTP: con el outbox activo se guardan en MongoDB y
+     * las publica el relay; sin outbox se envían directo al broker
+     */
+    private void publish(String routingKey, Object message) {
+        if (fanoutOutbox != null) {
+            fanoutOutbox.enqueue(routingKey, message);
+            return;
+        }
+        rabbitTemplate.convertAndSend(RabbitMQConfig.FANOUT_EXCHANGE, routingKey, message);
+    }
+    
+    /**
+     * Procesa mensajes de fanout desde RabbitMQ (coordinador)
+     * PUSH FANOUT: Distribuye el tweet a los timelines de todos los seguidores.
+     * Si los destinatarios superan shard-size, se reparten en shards para que los procese
+     * cualquier consumidor del cluster en paralelo.
+     */
+    @RabbitListener(queues = "microblog.fanout", autoStartup = "#{'${microblog.fanout.consumer.mode:single}' == 'single'}")
+    public void processFanoutMessage(FanoutMessage message,
+                                     @Header(name = AmqpHeaders.TIMESTAMP, required = false) Date publishedAt) {
+        recordReceived(message, FanoutMetrics.SMALL_LANE, publishedAt);
+        if (!rerouteToLargeLane(message)) {
+            processFanout(message, FanoutMetrics.SMALL_LANE);
+        }
+    }
+    
+    /**
+     * Coordinador del carril de fanouts grandes (microblog.fanout.large), con contenedor propio.
+     * Recibe los mensajes que el consumidor de microblog.fanout reencaminó, con followersCount resuelto
+     */
+    @RabbitListener(queues = "microblog.fanout.large", containerFactory = "fanoutLargeContainerFactory")
+    public void processLargeFanoutMessage(FanoutMessage message,
+                                          @Header(name = AmqpHeaders.TIMESTAMP, required = false) Date publishedAt) {
+        recordReceived(message, FanoutMetrics.LARGE_LANE, publishedAt);
+        processFanout(message, FanoutMetrics.LARGE_LANE);
+    }
+    
+    /**
+     * Etapas previas al consumo: publicación (desde la creación del tweet) y espera en la cola.
+     * publishedAt es el timestamp AMQP que pone el RabbitTemplate al publicar. La publicación se
+     * mide solo en microblog.fanout: en el carril large el timestamp es el del reencaminamiento.
+     */
+    void recordReceived(FanoutMessage message, String lane, Date publishedAt) {
+        long followersCount = resolveFollowersCount(message);
+        if (!FanoutMetrics.LARGE_LANE.equals(lane)) {
+            fanoutMetrics.recordPublished(followersCount, message.getCreatedAt(), publishedAt);
+        }
+        fanoutMetrics.recordQueueWait(lane, followersCount, publishedAt);
+    }
+    
+    private void processFanout(FanoutMessage message, String lane) {
         try {
             logger.info("Processing PUSH FANOUT message for tweet {} from user {}", 
                 message.getTweetId(), message.getUserId());
@@ -69,10 +213,19 @@ public class FanoutMessageService {
             
             if (tweet != null) {
                 
-                timelineService.distributeToFollowersTimelines(tweet);
+                List<String> recipientIds = timelineService.prepareFanout(tweet, resolveFollowersCount(message));
                 
-                logger.info("PUSH FANOUT completed for tweet {} - distributed to followers' timelines", 
-                    message.getTweetId());
+                if (recipientIds.size() > shardSize) {
+                    publishFanoutShards(message, recipientIds);
+                } else {
+                    long start = System.nanoTime();
+                    timelineService.addTweetToTimelines(recipientIds, tweet);
+                    fanoutMetrics.recordWrite(message.getFollowersCount(), recipientIds.size(), System.nanoTime() - start);
+                    fanoutMetrics.recordDelivery(lane, message.getFollowersCount(), tweet.getCreatedAt());
+                    
+                    logger.info("PUSH FANOUT completed for tweet {} - distributed to {} timelines", 
+                        message.getTweetId(), recipientIds.size());
+                }
             } else {
                 logger.warn("Could not reconstruct tweet {} for fanout processing", message.getTweetId());
             }
@@ -84,6 +237,196 @@ public class FanoutMessageService {
         }
     }
     
+    /**
+     * Procesa el fanout agrupado de un autor: resuelve los seguidores una vez y escribe todos los
+     * tweets en cada timeline con el mismo pipeline. Si el producto destinatarios x tweets supera
+     * shard-size se vuelve al camino por tweet (con shards si hacen falta).
+     */
+    @RabbitListener(queues = "microblog.fanout.batches")
+    public void processFanoutBatchMessage(FanoutBatchMessage message) {
+        try {
+            List<Tweet> tweets = message.getTweets().stream()
+                .map(this::reconstructTweetFromMessage)
+                .filter(Objects::nonNull)
+                .toList();
+            
+            List<String> recipientIds = timelineService.prepareBatchFanout(message.getUserId(), tweets);
+            
+            if ((long) recipientIds.size() * tweets.size() <= shardSize) {
+                timelineService.addTweetsToTimelines(recipientIds, tweets);
+            } else if (recipientIds.size() <= shardSize) {
+                tweets.forEach(tweet -> timelineService.addTweetToTimelines(recipientIds, tweet));
+            } else {
+                message.getTweets().forEach(tweetMessage -> publishFanoutShards(tweetMessage, recipientIds));
+            }
+            
+            logger.info("Grouped PUSH FANOUT completed for {} tweets of user {} - {} timelines",
+                tweets.size(), message.getUserId(), recipientIds.size());
+        
+        } catch (Exception e) {
+            logger.error("Error processing grouped fanout for user {}: {}", message.getUserId(), e.getMessage(), e);
+            throw e; 
+        }
+    }
+    
+    /**
+     * Procesa un batch de mensajes de fanout (FanoutBatchListener): agrupa las inserciones por
+     * timeline destinatario, de modo que un seguidor que recibe varios tweets del batch recibe un
+     * solo ZADD multi-miembro, un trim y un expire. Los fanouts que superan shard-size se siguen
+     * repartiendo en shards y los de autores del carril large se reencaminan, pero recién después de
+     * escribir los timelines: si la escritura falla, el reproceso mensaje a mensaje del listener no
+     * los publica dos veces.
+     */
+    public void processFanoutMessages(List<FanoutMessage> messages) {
+        try {
+            Map<String, List<Tweet>> tweetsByRecipient = new LinkedHashMap<>();
+            Map<FanoutMessage, Integer> recipientsByMessage = new LinkedHashMap<>();
+            List<FanoutMessage> rerouted = new ArrayList<>();
+            Map<FanoutMessage, List<String>> sharded = new LinkedHashMap<>();
+            int writes = 0;
+            
+            for (FanoutMessage message : messages) {
+                Tweet tweet = reconstructTweetFromMessage(message);
+                if (tweet == null) {
+                    logger.warn("Could not reconstruct tweet {} for fanout processing", message.getTweetId());
+                    continue;
+                }
+                if (isLargeLane(message)) {
+                    rerouted.add(message);
+                    continue;
+                }
+                
+                List<String> recipientIds = timelineService.prepareFanout(tweet, message.getFollowersCount());
+                if (recipientIds.size() > shardSize) {
+                    sharded.put(message, recipientIds);
+                    continue;
+                }
+                for (String recipientId : recipientIds) {
+                    tweetsByRecipient.computeIfAbsent(recipientId, ignored -> new ArrayList<>()).add(tweet);
+                }
+                recipientsByMessage.put(message, recipientIds.size());
+                writes += recipientIds.size();
+            }
+            
+            long start = System.nanoTime();
+            timelineService.addTweetsToTimelines(tweetsByRecipient);
+            long perRecipientNanos = (System.nanoTime() - start) / Math.max(1, writes);
+            
+            rerouted.forEach(this::publishToLargeLane);
+            sharded.forEach(this::publishFanoutShards);
+            
+            recipientsByMessage.forEach((message, recipients) -> {
+                fanoutMetrics.recordWrite(message.getFollowersCount(), recipients, perRecipientNanos * recipients);
+                fanoutMetrics.recordDelivery(FanoutMetrics.SMALL_LANE, message.getFollowersCount(), message.getCreatedAt());
+            });
+            
+            logger.info("Coalesced PUSH FANOUT of {} messages - {} tweet inserts grouped into {} timeline writes",
+                messages.size(), writes, tweetsByRecipient.size());
+        
+        } catch (Exception e) {
+            logger.error("Error processing coalesced fanout batch of {} messages: {}", messages.size(), e.getMessage(), e);
+            throw e; 
+        }
+    }
+    
+    /**
+     * Procesa un shard de fanout: escribe el tweet en el rango de timelines del mensaje
+     */
+    @RabbitListener(queues = "microblog.fanout.shards")
+    public void processFanoutShardMessage(FanoutShardMessage message,
+                                          @Header(name = AmqpHeaders.TIMESTAMP, required = false) Date publishedAt) {
+        try {
+            logger.debug("Processing fanout shard {}/{} for tweet {} ({} timelines)",
+                message.getShardIndex() + 1, message.getShardCount(), message.getTweetId(),
+                message.getRecipientIds().size());
+            
+            Tweet tweet = new Tweet(
+                message.getTweetId(),
+                message.getContent(),
+                message.getUserId(),
+                message.getCreatedAt()
+            );
+            
+            fanoutMetrics.recordQueueWait(FanoutMetrics.SHARDS_LANE, message.getFollowersCount(), publishedAt);
+            
+            long start = System.nanoTime();
+            timelineService.addTweetToTimelines(message.getRecipientIds(), tweet);
+            fanoutMetrics.recordWrite(message.getFollowersCount(), message.getRecipientIds().size(), System.nanoTime() - start);
+            fanoutMetrics.recordDelivery(FanoutMetrics.SHARDS_LANE, message.getFollowersCount(), tweet.getCreatedAt());
+        
+        } catch (Exception e) {
+            logger.error("Error processing fanout shard {}/{} for tweet {}: {}",
+                message.getShardIndex() + 1, message.getShardCount(), message.getTweetId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Divide los destinatarios en rangos de shard-size y publica un mensaje por rango
+     */
+    private void publishFanoutShards(FanoutMessage message, List<String> recipientIds) {
+        int shardCount = (recipientIds.size() + shardSize - 1) / shardSize;
+        
+        logger.info("Splitting fanout of tweet {} into {} shards of up to {} timelines",
+            message.getTweetId(), shardCount, shardSize);
+        
+        for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+            int from = shardIndex * shardSize;
+            int to = Math.min(from + shardSize, recipientIds.size());
+            
+            rabbitTemplate.convertAndSend(
+                RabbitMQConfig.FANOUT_EXCHANGE,
+                RabbitMQConfig.FANOUT_SHARD_ROUTING_KEY,
+                new FanoutShardMessage(message, List.copyOf(recipientIds.subList(from, to)), shardIndex, shardCount)
+            );
+        }
+    }
+    
+    /**
+     * Encola el borrado de un tweet de los timelines (job en background)
+     */
+    public void sendTweetDeletionMessage(Tweet tweet) {
+        logger.info("Sending deletion message for tweet {} to RabbitMQ", tweet.getId());
+        
+        publish(RabbitMQConfig.TWEET_DELETION_ROUTING_KEY, new TweetDeletionMessage(tweet.getId(), tweet.getUserId(), null));
+    }
+    
+    /**
+     * Procesa borrados de tweets. El mensaje coordinador recalcula los destinatarios y los
+     * reparte en batches de shard-size; cada batch se procesa con ZREM pipelined.
+     */
+    @RabbitListener(queues = "microblog.tweet.deletions")
+    public void processTweetDeletionMessage(TweetDeletionMessage message) {
+        try {
+            if (message.getRecipientIds() != null) {
+                timelineService.removeTweetFromTimelines(message.getRecipientIds(), message.getTweetId());
+                return;
+            }
+            
+            List<String> recipientIds = timelineService.prepareTweetRemoval(message.getUserId(), message.getTweetId());
+            
+            if (recipientIds.size() <= shardSize) {
+                timelineService.removeTweetFromTimelines(recipientIds, message.getTweetId());
+                logger.info("Tweet {} removed from {} timelines", message.getTweetId(), recipientIds.size());
+                return;
+            }
+            
+            for (int from = 0; from < recipientIds.size(); from += shardSize) {
+                List<String> batch = List.copyOf(recipientIds.subList(from, Math.min(from + shardSize, recipientIds.size())));
+                rabbitTemplate.convertAndSend(
+                    RabbitMQConfig.FANOUT_EXCHANGE,
+                    RabbitMQConfig.TWEET_DELETION_ROUTING_KEY,
+                    new TweetDeletionMessage(message.getTweetId(), message.getUserId(), batch)
+                );
+            }
+            logger.info("Removal of tweet {} split into batches for {} timelines", message.getTweetId(), recipientIds.size());
+        
+        } catch (Exception e) {
+            logger.error("Error processing deletion of tweet {}: {}", message.getTweetId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+    
     /**
      * Reconstruye un Tweet desde el mensaje de fanout
      */
@@ -0,0 +1,187 @@
+package com.uala.microblog.infrastructure.messaging;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métricas de fanout por carril (lane) y por tamaño del fanout (followers: bucket de seguidores
+ * del autor al publicar), desde la creación del tweet hasta que es visible en los timelines:
+ * - microblog.fanout.publish.latency{followers}: creación del tweet -> publicación en microblog.fanout
+ *   (con outbox incluye la espera del relay).
+ * - microblog.fanout.queue.wait{lane,followers}: publicación -> recepción en el consumidor.
+ * - microblog.fanout.write.duration{followers}: escritura en Redis de los timelines del mensaje.
+ * - microblog.fanout.write.per.recipient{followers}: escritura dividida por destinatarios.
+ * - microblog.fanout.delivery.latency{lane,followers}: creación -> escrito en los timelines
+ *   (en fanouts repartidos, por shard). Es la métrica de frescura del timeline.
+ * - microblog.fanout.lane.depth{lane}: mensajes en cola de cada carril, leídos cada depth-interval
+ *   (la misma lectura que usa FanoutConsumerScaler, sin consultar de nuevo al broker).
+ *
+ * Los histogramas y SLOs se configuran en management.metrics.distribution.
+ */
+@Component
+public class FanoutMetrics implements SchedulingConfigurer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FanoutMetrics.class);
+    
+    public static final String SMALL_LANE = "small";
+    public static final String LARGE_LANE = "large";
+    public static final String SHARDS_LANE = "shards";
+    
+    static final String UNKNOWN_BUCKET = "unknown";
+    
+    private final AmqpAdmin amqpAdmin;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, String> queuesByLane = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> depthByLane = new LinkedHashMap<>();
+    private final Duration depthInterval;
+    
+    public FanoutMetrics(AmqpAdmin amqpAdmin,
+                         MeterRegistry meterRegistry,
+                         @Value("${microblog.rabbitmq.queues.fanout:microblog.fanout}") String fanoutQueue,
+                         @Value("${microblog.rabbitmq.queues.fanout-large:microblog.fanout.large}") String largeQueue,
+                         @Value("${microblog.rabbitmq.queues.fanout-shards:microblog.fanout.shards}") String shardsQueue,
+                         @Value("${microblog.fanout.lanes.depth-interval:5s}") Duration depthInterval) {
+        this.amqpAdmin = amqpAdmin;
+        this.meterRegistry = meterRegistry;
+        this.depthInterval = depthInterval;
+        queuesByLane.put(SMALL_LANE, fanoutQueue);
+        queuesByLane.put(LARGE_LANE, largeQueue);
+        queuesByLane.put(SHARDS_LANE, shardsQueue);
+        
+        queuesByLane.keySet().forEach(lane -> {
+            AtomicLong depth = new AtomicLong();
+            depthByLane.put(lane, depth);
+            Gauge.builder("microblog.fanout.lane.depth", depth, AtomicLong::get)
+                .description("Messages waiting in the fanout lane queue")
+                .tag("lane", lane)
+                .register(meterRegistry);
+        });
+    }
+        
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(this::refreshDepths, depthInterval, depthInterval));
+    }
+    
+    /**
+     * Mensajes en la cola del carril según la última lectura (0 antes de la primera)
+     */
+    public long laneDepth(String lane) {
+        AtomicLong depth = depthByLane.get(lane);
+        return depth != null ? depth.get() : 0;
+    }
+    
+    /**
+     * Bucket de tamaño del fanout según los seguidores del autor
+     */
+    public static String followersBucket(Long followersCount) {
+        if (followersCount == null) {
+            return UNKNOWN_BUCKET;
+        }
+        if (followersCount < 100) {
+            return "0-99";
+        }
+        if (followersCount < 1_000) {
+            return "100-999";
+        }
+        if (followersCount < 10_000) {
+            return "1000-9999";
+        }
+        return "10000+";
+    }
+    
+    /**
+     * Tiempo entre la creación del tweet y su publicación en el broker (timestamp AMQP)
+     */
+    public void recordPublished(Long followersCount, LocalDateTime createdAt, Date publishedAt) {
+        if (createdAt == null || publishedAt == null) {
+            return;
+        }
+        timer("microblog.fanout.publish.latency", "Time from tweet creation until its fanout message is published",
+            "followers", followersBucket(followersCount))
+            .record(Duration.between(toInstant(createdAt), publishedAt.toInstant()));
+    }
+    
+    /**
+     * Tiempo que el mensaje esperó en la cola del carril hasta llegar al consumidor
+     */
+    public void recordQueueWait(String lane, Long followersCount, Date publishedAt) {
+        if (publishedAt == null) {
+            return;
+        }
+        timer("microblog.fanout.queue.wait", "Time a fanout message waited in its queue",
+            "lane", lane, "followers", followersBucket(followersCount))
+            .record(Duration.between(publishedAt.toInstant(), Instant.now()));
+    }
+    
+    /**
+     * Escritura en Redis de recipients timelines, en total y por destinatario
+     */
+    public void recordWrite(Long followersCount, int recipients, long nanos) {
+        String bucket = followersBucket(followersCount);
+        timer("microblog.fanout.write.duration", "Time spent writing a fanout into the recipients' timelines",
+            "followers", bucket)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (recipients > 0) {
+            timer("microblog.fanout.write.per.recipient", "Fanout write time divided by the number of recipient timelines",
+                "followers", bucket)
+                .record(nanos / recipients, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Latencia de entrega de un tweet creado en createdAt: desde su creación hasta este momento
+     */
+    public void recordDelivery(String lane, Long followersCount, LocalDateTime createdAt) {
+        if (createdAt == null) {
+            return;
+        }
+        timer("microblog.fanout.delivery.latency", "Time from tweet creation until it is written to the recipients' timelines",
+            "lane", lane, "followers", followersBucket(followersCount))
+            .record(Duration.between(toInstant(createdAt), Instant.now()));
+    }
+    
+    private Timer timer(String name, String description, String... tags) {
+        return Timer.builder(name)
+            .description(description)
+            .tags(tags)
+            .register(meterRegistry);
+    }
+    
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+    
+    void refreshDepths() {
+        queuesByLane.forEach((lane, queueName) -> {
+            try {
+                QueueInformation queueInfo = amqpAdmin.getQueueInfo(queueName);
+                if (queueInfo != null) {
+                    depthByLane.get(lane).set(queueInfo.getMessageCount());
+                }
+            } catch (Exception e) {
+                logger.warn("Could not read depth of fanout queue {}: {}", queueName, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,223 @@
+package com.uala.microblog.infrastructure.messaging;
+
+import com.uala.microblog.infrastructure.config.RabbitMQConfig;
+import com.uala.microblog.infrastructure.document.OutboxDocument;
+import com.uala.microblog.infrastructure.repository.MongoOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Outbox de publicaciones a RabbitMQ: la petición solo guarda el mensaje en la colección outbox
+ * (la misma base que el tweet) y un relay en background lo publica, de modo que la latencia de
+ * creación no depende del broker.
+ *
+ * El relay publica en batches y espera los publisher confirms de todo el batch a la vez; los
+ * confirmados se borran y los rechazados o sin confirmar se reintentan tras retry-delay.
+ * Cada batch se reclama con un lease (next_attempt_at), así que varios nodos pueden correr el
+ * relay; si un nodo cae a mitad de batch, otro lo publica al vencer el lease (at-least-once:
+ * los consumidores de fanout y borrado son idempotentes).
+ * Corre en el TaskScheduler de Spring: cada poll-interval y al despertarlo una escritura.
+ */
+@Component
+@ConditionalOnProperty(name = "microblog.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class FanoutOutbox implements SchedulingConfigurer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FanoutOutbox.class);
+    
+    private final MongoOutboxRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TaskScheduler taskScheduler;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration confirmTimeout;
+    private final Duration retryDelay;
+    private final Counter confirmedCounter;
+    private final Counter retriedCounter;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final AtomicBoolean relaying = new AtomicBoolean();
+    
+    public FanoutOutbox(MongoOutboxRepository outboxRepository,
+                        RabbitTemplate rabbitTemplate,
+                        TaskScheduler taskScheduler,
+                        MeterRegistry meterRegistry,
+                        @Value("${microblog.outbox.batch-size:200}") int batchSize,
+                        @Value("${microblog.outbox.poll-interval:1s}") Duration pollInterval,
+                        @Value("${microblog.outbox.confirm-timeout:5s}") Duration confirmTimeout,
+                        @Value("${microblog.outbox.retry-delay:5s}") Duration retryDelay) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.taskScheduler = taskScheduler;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollInterval = pollInterval;
+        this.confirmTimeout = confirmTimeout;
+        this.retryDelay = retryDelay;
+        this.confirmedCounter = Counter.builder("microblog.outbox.relayed")
+            .tag("result", "confirmed")
+            .description("Outbox messages published and confirmed by the broker")
+            .register(meterRegistry);
+        this.retriedCounter = Counter.builder("microblog.outbox.relayed")
+            .tag("result", "retried")
+            .description("Outbox messages rescheduled after a failed or unconfirmed publish")
+            .register(meterRegistry);
+    }
+        
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(this::relayPending, pollInterval, pollInterval));
+    }
+    
+    /**
+     * Guarda un mensaje para publicar y despierta al relay
+     */
+    public void enqueue(String routingKey, Object payload) {
+        enqueueAll(routingKey, List.of(payload));
+    }
+    
+    /**
+     * Guarda varios mensajes con un solo insertMany
+     */
+    public void enqueueAll(String routingKey, List<?> payloads) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxDocument> documents = new ArrayList<>(payloads.size());
+        for (Object payload : payloads) {
+            documents.add(new OutboxDocument(UUID.randomUUID().toString(), RabbitMQConfig.FANOUT_EXCHANGE, routingKey, payload, now));
+        }
+        outboxRepository.insert(documents);
+        wakeUp();
+    }
+    
+    private void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            try {
+                taskScheduler.schedule(this::relayPending, Instant.now());
+            } catch (RuntimeException e) {
+                wakeUpPending.set(false);
+            }
+        }
+    }
+    
+    /**
+     * Publica batches hasta vaciar los mensajes vencidos. Corre un solo relay a la vez por nodo:
+     * si ya hay uno en curso, ese vuelve a pasar al terminar cuando lo despertaron mientras tanto
+     */
+    void relayPending() {
+        while (relaying.compareAndSet(false, true)) {
+            try {
+                wakeUpPending.set(false);
+                while (relayBatch() == batchSize) {
+                    logger.debug("Outbox batch full, relaying next batch");
+                }
+            } catch (Exception e) {
+                logger.warn("Outbox relay failed, retrying on next poll: {}", e.getMessage());
+            } finally {
+                relaying.set(false);
+            }
+            if (!wakeUpPending.get()) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Reclama, publica y confirma un batch. Devuelve cuántos mensajes reclamó
+     */
+    int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> dueIds = outboxRepository.findDue(now, Limit.of(batchSize)).stream()
+            .map(OutboxDocument::getId)
+            .toList();
+        if (dueIds.isEmpty()) {
+            return 0;
+        }
+        
+        String claimId = UUID.randomUUID().toString();
+        outboxRepository.claim(dueIds, now, now.plus(confirmTimeout.multipliedBy(2)), claimId);
+        List<OutboxDocument> claimed = outboxRepository.findByClaimedBy(claimId);
+        
+        Map<String, CorrelationData> pendingConfirms = new LinkedHashMap<>();
+        List<String> failedIds = new ArrayList<>();
+        for (OutboxDocument document : claimed) {
+            CorrelationData correlation = new CorrelationData(document.getId());
+            try {
+                rabbitTemplate.convertAndSend(document.getExchange(), document.getRoutingKey(), document.getPayload(), correlation);
+                pendingConfirms.put(document.getId(), correlation);
+            } catch (AmqpException e) {
+                logger.warn("Could not publish outbox message {}: {}", document.getId(), e.getMessage());
+                failedIds.add(document.getId());
+            }
+        }
+        
+        List<String> confirmedIds = awaitConfirms(pendingConfirms, failedIds);
+        
+        if (!confirmedIds.isEmpty()) {
+            outboxRepository.deleteAllById(confirmedIds);
+            confirmedCounter.increment(confirmedIds.size());
+        }
+        if (!failedIds.isEmpty()) {
+            outboxRepository.scheduleRetry(failedIds, LocalDateTime.now().plus(retryDelay));
+            retriedCounter.increment(failedIds.size());
+            logger.warn("{} outbox messages not confirmed, retrying in {}", failedIds.size(), retryDelay);
+        }
+        
+        logger.debug("Outbox batch relayed: {} confirmed, {} to retry", confirmedIds.size(), failedIds.size());
+        return claimed.size();
+    }
+    
+    /**
+     * Espera los confirms de todo el batch con un único deadline. Sin publisher confirms
+     * (connection factory sin correlated) la publicación sin excepción se da por confirmada.
+     */
+    private List<String> awaitConfirms(Map<String, CorrelationData> pendingConfirms, List<String> failedIds) {
+        if (!rabbitTemplate.getConnectionFactory().isPublisherConfirms()) {
+            return new ArrayList<>(pendingConfirms.keySet());
+        }
+        
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        List<String> confirmedIds = new ArrayList<>(pendingConfirms.size());
+        for (Map.Entry<String, CorrelationData> entry : pendingConfirms.entrySet()) {
+            try {
+                CorrelationData.Confirm confirm = entry.getValue().getFuture()
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (confirm.isAck()) {
+                    confirmedIds.add(entry.getKey());
+                } else {
+                    logger.warn("Outbox message {} nacked by broker: {}", entry.getKey(), confirm.getReason());
+                    failedIds.add(entry.getKey());
+                }
+            } catch (TimeoutException e) {
+                failedIds.add(entry.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedIds.add(entry.getKey());
+            } catch (Exception e) {
+                failedIds.add(entry.getKey());
+            }
+        }
+        return confirmedIds;
+    }
+}
@@ -0,0 +1,140 @@
+package com.uala.microblog.infrastructure.messaging;
+
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.port.TweetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * El tweet es su propio outbox: se inserta con fanout_pending y la marca se borra cuando el mensaje
+ * de fanout queda guardado. Si el nodo cae (o falla el outbox) entre las dos escrituras, este sweep
+ * reenvía el fanout de los tweets que siguen marcados después de grace.
+ * Los consumidores son idempotentes, así que un reenvío de más no duplica nada.
+ *
+ * Si la marca no se puede borrar (el reenvío funciona pero falla markFanoutPublished) el mismo
+ * tweet vuelve en cada sweep: cada tweet reenviado espera interval * 2^(intentos - 1), hasta
+ * max-backoff, antes del siguiente reenvío, y después de max-attempts se deja de reenviar con un
+ * error en el log. Los pendientes se recorren por (created_at, _id), así los que esperan no
+ * tapan a los más nuevos.
+ */
+@Component
+@ConditionalOnProperty(name = "microblog.fanout.pending-sweep.enabled", havingValue = "true", matchIfMissing = true)
+public class FanoutPendingSweeper implements SchedulingConfigurer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FanoutPendingSweeper.class);
+    
+    private final TweetRepository tweetRepository;
+    private final FanoutMessageService fanoutMessageService;
+    private final Duration interval;
+    private final Duration grace;
+    private final int batchSize;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+    
+    /**
+     * Reenvíos por tweet que sigue pendiente; se descartan cuando el tweet deja de estarlo
+     */
+    private final Map<String, ResendAttempts> attempts = new ConcurrentHashMap<>();
+    
+    public FanoutPendingSweeper(TweetRepository tweetRepository,
+                                FanoutMessageService fanoutMessageService,
+                                @Value("${microblog.fanout.pending-sweep.interval:30s}") Duration interval,
+                                @Value("${microblog.fanout.pending-sweep.grace:30s}") Duration grace,
+                                @Value("${microblog.fanout.pending-sweep.batch-size:200}") int batchSize,
+                                @Value("${microblog.fanout.pending-sweep.max-backoff:30m}") Duration maxBackoff,
+                                @Value("${microblog.fanout.pending-sweep.max-attempts:10}") int maxAttempts) {
+        this.tweetRepository = tweetRepository;
+        this.fanoutMessageService = fanoutMessageService;
+        this.interval = interval;
+        this.grace = grace;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+    
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(this::sweep, interval, interval));
+    }
+    
+    /**
+     * Reenvía en batches el fanout de los tweets pendientes más viejos que grace cuyo backoff venció
+     */
+    void sweep() {
+        try {
+            LocalDateTime createdBefore = LocalDateTime.now().minus(grace);
+            Instant now = Instant.now();
+            Set<String> stillPending = new HashSet<>();
+            List<Tweet> pending;
+            Tweet last = null;
+            do {
+                pending = tweetRepository.findFanoutPending(createdBefore,
+                    last != null ? last.getCreatedAt() : null, last != null ? last.getId() : null, batchSize);
+                if (pending.isEmpty()) {
+                    break;
+                }
+                last = pending.get(pending.size() - 1);
+                pending.forEach(tweet -> stillPending.add(tweet.getId()));
+                
+                List<Tweet> due = pending.stream().filter(tweet -> isDue(tweet.getId(), now)).toList();
+                if (!due.isEmpty()) {
+                    fanoutMessageService.sendFanoutBatch(due);
+                    due.forEach(tweet -> recordAttempt(tweet.getId(), now));
+                    logger.warn("Re-sent fanout of {} tweets left pending", due.size());
+                }
+            } while (pending.size() == batchSize);
+            
+            attempts.keySet().retainAll(stillPending);
+        } catch (Exception e) {
+            logger.warn("Fanout-pending sweep failed, retrying on next run: {}", e.getMessage());
+        }
+    }
+    
+    private boolean isDue(String tweetId, Instant now) {
+        ResendAttempts previous = attempts.get(tweetId);
+        return previous == null || (previous.count < maxAttempts && !now.isBefore(previous.nextAttemptAt));
+    }
+    
+    private void recordAttempt(String tweetId, Instant now) {
+        ResendAttempts recorded = attempts.merge(tweetId, new ResendAttempts(1, now.plus(interval)),
+            (previous, ignored) -> new ResendAttempts(previous.count + 1, now.plus(backoff(previous.count + 1))));
+        if (recorded.count == maxAttempts) {
+            logger.error("Giving up re-sending fanout of tweet {} after {} attempts: it is still fanout-pending",
+                tweetId, recorded.count);
+        }
+    }
+    
+    /**
+     * interval * 2^(intentos - 1), acotado a max-backoff
+     */
+    private Duration backoff(int count) {
+        Duration backoff = interval.multipliedBy(1L << Math.min(count - 1, 20));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+    
+    private static final class ResendAttempts {
+        
+        private final int count;
+        private final Instant nextAttemptAt;
+        
+        private ResendAttempts(int count, Instant nextAttemptAt) {
+            this.count = count;
+            this.nextAttemptAt = nextAttemptAt;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.uala.microblog.infrastructure.messaging.dto;
+
+import java.util.List;
+
+/**
+ * Fanout agrupado de varios tweets de un mismo autor (creación en batch):
+ * los seguidores se resuelven una sola vez para todo el grupo.
+ */
+public class FanoutBatchMessage {
+    
+    private String userId;
+    private List<FanoutMessage> tweets;
+    
+    public FanoutBatchMessage() {
+    }
+    
+    public FanoutBatchMessage(String userId, List<FanoutMessage> tweets) {
+        this.userId = userId;
+        this.tweets = tweets;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public List<FanoutMessage> getTweets() {
+        return tweets;
+    }
+    
+    public void setTweets(List<FanoutMessage> tweets) {
+        this.tweets = tweets;
+    }
+    
+    @Override
+    public String toString() {
+        return "FanoutBatchMessage{" +
+                "userId='" + userId + '\'' +
+                ", tweets=" + (tweets != null ? tweets.size() : 0) +
+                '}';
+    }
+}
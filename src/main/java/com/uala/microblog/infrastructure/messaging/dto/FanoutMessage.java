@@ -9,6 +9,11 @@ public class FanoutMessage {
     private String content;
     private LocalDateTime createdAt;
     
+    /**
+     * Seguidores del autor al publicar (métricas por tamaño de fanout); null si no se conoce
+     */
+    private Long followersCount;
+    
     public FanoutMessage() {
     }
     
@@ -52,6 +57,14 @@ public class FanoutMessage {
         this.createdAt = createdAt;
     }
     
+    public Long getFollowersCount() {
+        return followersCount;
+    }
+    
+    public void setFollowersCount(Long followersCount) {
+        this.followersCount = followersCount;
+    }
+    
     @Override
     public String toString() {
         return "FanoutMessage{" +
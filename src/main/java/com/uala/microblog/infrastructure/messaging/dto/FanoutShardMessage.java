@@ -0,0 +1,108 @@
+package com.uala.microblog.infrastructure.messaging.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Porción de un fanout grande: el tweet más un rango de los timelines destinatarios.
+ * Lo publica el coordinador (processFanoutMessage) y lo procesa cualquier consumidor.
+ */
+public class FanoutShardMessage {
+    
+    private String tweetId;
+    private String userId;
+    private String content;
+    private LocalDateTime createdAt;
+    private Long followersCount;
+    private List<String> recipientIds;
+    private int shardIndex;
+    private int shardCount;
+    
+    public FanoutShardMessage() {
+    }
+    
+    public FanoutShardMessage(FanoutMessage message, List<String> recipientIds, int shardIndex, int shardCount) {
+        this.tweetId = message.getTweetId();
+        this.userId = message.getUserId();
+        this.content = message.getContent();
+        this.createdAt = message.getCreatedAt();
+        this.followersCount = message.getFollowersCount();
+        this.recipientIds = recipientIds;
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+    
+    public String getTweetId() {
+        return tweetId;
+    }
+    
+    public void setTweetId(String tweetId) {
+        this.tweetId = tweetId;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+    
+    public void setContent(String content) {
+        this.content = content;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public Long getFollowersCount() {
+        return followersCount;
+    }
+    
+    public void setFollowersCount(Long followersCount) {
+        this.followersCount = followersCount;
+    }
+    
+    public List<String> getRecipientIds() {
+        return recipientIds;
+    }
+    
+    public void setRecipientIds(List<String> recipientIds) {
+        this.recipientIds = recipientIds;
+    }
+    
+    public int getShardIndex() {
+        return shardIndex;
+    }
+    
+    public void setShardIndex(int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+    
+    public int getShardCount() {
+        return shardCount;
+    }
+    
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+    
+    @Override
+    public String toString() {
+        return "FanoutShardMessage{" +
+                "tweetId=" + tweetId +
+                ", userId=" + userId +
+                ", shard=" + (shardIndex + 1) + "/" + shardCount +
+                ", recipients=" + (recipientIds != null ? recipientIds.size() : 0) +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package com.uala.microblog.infrastructure.messaging.dto;
+
+import java.util.List;
+
+/**
+ * Borrado de un tweet de los timelines. Sin recipientIds es el mensaje coordinador, que
+ * recalcula los destinatarios a partir de los seguidores del autor; con recipientIds es
+ * un batch de timelines de los que quitar el ID.
+ */
+public class TweetDeletionMessage {
+    
+    private String tweetId;
+    private String userId;
+    private List<String> recipientIds;
+    
+    public TweetDeletionMessage() {
+    }
+    
+    public TweetDeletionMessage(String tweetId, String userId, List<String> recipientIds) {
+        this.tweetId = tweetId;
+        this.userId = userId;
+        this.recipientIds = recipientIds;
+    }
+    
+    public String getTweetId() {
+        return tweetId;
+    }
+    
+    public void setTweetId(String tweetId) {
+        this.tweetId = tweetId;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public List<String> getRecipientIds() {
+        return recipientIds;
+    }
+    
+    public void setRecipientIds(List<String> recipientIds) {
+        this.recipientIds = recipientIds;
+    }
+    
+    @Override
+    public String toString() {
+        return "TweetDeletionMessage{tweetId=" + tweetId + ", userId=" + userId
+            + ", recipients=" + (recipientIds != null ? recipientIds.size() : "all") + "}";
+    }
+}
@@ -1,12 +1,15 @@
 package com.uala.microblog.infrastructure.repository;
 
 import com.uala.microblog.infrastructure.document.FollowDocument;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface MongoFollowRepository extends MongoRepository<FollowDocument, String> {
@@ -23,6 +26,26 @@ public interface MongoFollowRepository extends MongoRepository<FollowDocument, S
     @Query(value = "{ 'followed_id': ?0 }", fields = "{ 'follower_id': 1 }")
     List<FollowDocument> findFollowerIdsByFollowedId(String followedId);
     
+    @Meta(cursorBatchSize = 500)
+    @Query(value = "{ 'followed_id': ?0 }", fields = "{ 'follower_id': 1 }")
+    Stream<FollowDocument> streamFollowerIdsByFollowedId(String followedId);
+    
+    @Meta(cursorBatchSize = 500)
+    @Query(value = "{ 'follower_id': ?0 }", fields = "{ 'followed_id': 1 }")
+    Stream<FollowDocument> streamFollowedIdsByFollowerId(String followerId);
+    
+    /**
+     * Keyset por follower_id sobre el índice (followed_id, follower_id)
+     */
+    @Query(value = "{ 'followed_id': ?0, 'follower_id': { $gt: ?1 } }", fields = "{ 'follower_id': 1 }", sort = "{ 'follower_id': 1 }")
+    List<FollowDocument> findFollowerIdsAfter(String followedId, String afterFollowerId, Limit limit);
+    
+    /**
+     * Keyset por followed_id sobre el índice único (follower_id, followed_id)
+     */
+    @Query(value = "{ 'follower_id': ?0, 'followed_id': { $gt: ?1 } }", fields = "{ 'followed_id': 1 }", sort = "{ 'followed_id': 1 }")
+    List<FollowDocument> findFollowedIdsAfter(String followerId, String afterFollowedId, Limit limit);
+    
     boolean existsByFollowerIdAndFollowedId(String followerId, String followedId);
     
     void deleteByFollowerIdAndFollowedId(String followerId, String followedId);
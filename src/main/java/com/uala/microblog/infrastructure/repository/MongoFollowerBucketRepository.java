@@ -0,0 +1,43 @@
+package com.uala.microblog.infrastructure.repository;
+
+import com.uala.microblog.infrastructure.document.FollowerBucketDocument;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface MongoFollowerBucketRepository extends MongoRepository<FollowerBucketDocument, String> {
+    
+    /**
+     * Buckets de un usuario; cada batch del cursor trae unos pocos buckets completos
+     */
+    @Meta(cursorBatchSize = 16)
+    @Query(value = "{ 'user_id': ?0 }", sort = "{ '_id': 1 }")
+    Stream<FollowerBucketDocument> streamByUserId(String userId);
+    
+    /**
+     * Buckets con lugar, el más viejo primero. Puede haber varios (unfollow en un bucket lleno,
+     * backfills concurrentes), por eso se pide con límite y no como resultado único
+     */
+    @Query(value = "{ 'user_id': ?0, 'count': { $lt: ?1 } }", fields = "{ '_id': 1 }", sort = "{ '_id': 1 }")
+    List<FollowerBucketDocument> findOpenBuckets(String userId, int bucketSize, Limit limit);
+    
+    /**
+     * Agrega el seguidor solo si el bucket sigue teniendo lugar (0 si otro nodo lo llenó)
+     */
+    @Query("{ '_id': ?0, 'count': { $lt: ?2 } }")
+    @Update("{ '$push': { 'follower_codes': ?1 }, '$inc': { 'count': 1 } }")
+    long appendFollower(String bucketId, int followerCode, int bucketSize);
+    
+    @Query("{ 'user_id': ?0, 'follower_codes': ?1 }")
+    @Update("{ '$pull': { 'follower_codes': ?1 }, '$inc': { 'count': -1 } }")
+    long removeFollower(String userId, int followerCode);
+    
+    boolean existsByUserId(String userId);
+}
@@ -0,0 +1,35 @@
+package com.uala.microblog.infrastructure.repository;
+
+import com.uala.microblog.infrastructure.document.OutboxDocument;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MongoOutboxRepository extends MongoRepository<OutboxDocument, String> {
+    
+    @Query(value = "{ 'next_attempt_at': { $lte: ?0 } }", sort = "{ 'next_attempt_at': 1 }")
+    List<OutboxDocument> findDue(LocalDateTime now, Limit limit);
+    
+    /**
+     * Reclama los mensajes que sigan vencidos: el filtro por next_attempt_at hace que cada
+     * documento lo tome un solo relay aunque varios nodos reclamen los mismos IDs
+     */
+    @Query("{ '_id': { $in: ?0 }, 'next_attempt_at': { $lte: ?1 } }")
+    @Update("{ '$set': { 'next_attempt_at': ?2, 'claimed_by': ?3 } }")
+    long claim(List<String> ids, LocalDateTime now, LocalDateTime leaseUntil, String claimId);
+    
+    List<OutboxDocument> findByClaimedBy(String claimId);
+    
+    /**
+     * Reprograma los mensajes y libera el claim, para que findByClaimedBy no los devuelva de nuevo
+     */
+    @Query("{ '_id': { $in: ?0 } }")
+    @Update("{ '$inc': { 'attempts': 1 }, '$set': { 'next_attempt_at': ?1 }, '$unset': { 'claimed_by': '' } }")
+    long scheduleRetry(List<String> ids, LocalDateTime nextAttemptAt);
+}
@@ -1,12 +1,17 @@
 package com.uala.microblog.infrastructure.repository;
 
 import com.uala.microblog.infrastructure.document.TweetDocument;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface MongoTweetRepository extends MongoRepository<TweetDocument, String> {
@@ -18,16 +23,32 @@ public interface MongoTweetRepository extends MongoRepository<TweetDocument, Str
     @Query("{ 'user_id': { $in: ?0 } }")
     List<TweetDocument> findByUserIdInOrderByCreatedAtDesc(List<String> userIds);
     
-    @Query(value = "{ 'user_id': { $in: ?0 } }", sort = "{ 'created_at': -1 }")
+    @Query(value = "{ 'user_id': { $in: ?0 } }", sort = "{ 'created_at': -1, '_id': -1 }")
     List<TweetDocument> findRecentTweetsByUserIds(List<String> userIds, Limit limit);
     
+    @Meta(cursorBatchSize = 100)
+    @Query(value = "{ 'user_id': { $in: ?0 } }", sort = "{ 'created_at': -1, '_id': -1 }")
+    Stream<TweetDocument> streamRecentTweetsByUserIds(List<String> userIds, Limit limit);
+    
+    @Query(value = "{ 'user_id': { $in: ?0 }, $or: [ { 'created_at': { $lt: ?1 } }, { 'created_at': ?1, '_id': { $lt: ?2 } } ] }",
+           sort = "{ 'created_at': -1, '_id': -1 }")
+    List<TweetDocument> findTweetsByUserIdsBefore(List<String> userIds, LocalDateTime createdAt, ObjectId tweetId, Limit limit);
+    
     @Query(value = "{ 'user_id': ?0 }", sort = "{ 'created_at': -1 }")
     List<TweetDocument> findRecentTweetsByUserId(String userId, Limit limit);
     
-    @Query(value = "{}", sort = "{ 'created_at': -1 }")
-    List<TweetDocument> findAllOrderByCreatedAtDesc();
+    @Meta(cursorBatchSize = 500)
+    Stream<TweetDocument> streamByUserIdOrderByCreatedAtDesc(String userId);
     
     long countByUserId(String userId);
     
+    @Query(value = "{ 'fanout_pending': true, 'created_at': { $lte: ?0 }, $or: [ { 'created_at': { $gt: ?1 } }, { 'created_at': ?1, '_id': { $gt: ?2 } } ] }",
+           sort = "{ 'created_at': 1, '_id': 1 }")
+    List<TweetDocument> findFanoutPending(LocalDateTime createdBefore, LocalDateTime createdAt, ObjectId tweetId, Limit limit);
+    
+    @Query("{ '_id': { $in: ?0 } }")
+    @Update("{ '$unset': { 'fanout_pending': '' } }")
+    long clearFanoutPending(List<String> ids);
+
 
 } 
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.uala.microblog.infrastructure.repository;
+
+import com.uala.microblog.infrastructure.document.UserIdCodeDocument;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MongoUserIdCodeRepository extends MongoRepository<UserIdCodeDocument, String> {
+    
+    /**
+     * Último código asignado; solo se usa al arrancar para inicializar el contador de códigos
+     */
+    Optional<UserIdCodeDocument> findFirstByOrderByCodeDesc();
+    
+    List<UserIdCodeDocument> findByCodeIn(Collection<Integer> codes);
+}
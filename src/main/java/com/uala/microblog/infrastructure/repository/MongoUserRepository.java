@@ -1,10 +1,12 @@
 package com.uala.microblog.infrastructure.repository;
 
 import com.uala.microblog.infrastructure.document.UserDocument;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface MongoUserRepository extends MongoRepository<UserDocument, String> {
@@ -20,4 +22,7 @@ public interface MongoUserRepository extends MongoRepository<UserDocument, Strin
     boolean existsByEmail(String email);
     
     long count();
+    
+    @Meta(cursorBatchSize = 500)
+    Stream<UserDocument> streamAllBy();
 } 
\ No newline at end of file
@@ -201,4 +201,31 @@ class FollowServiceTest {
         verify(followRepository, never()).existsByFollowerIdAndFollowedId(anyString(), anyString());
         verify(followRepository, never()).save(any(Follow.class));
     }
-} 
\ No newline at end of file
+    
+    @Test
+    @DisplayName("Should delete follow relationship when unfollowing")
+    void testUnfollowUser_Success() {
+        
+        when(followRepository.existsByFollowerIdAndFollowedId(FOLLOWER_ID, FOLLOWED_ID)).thenReturn(true);
+        
+        
+        followService.unfollowUser(FOLLOWER_ID, FOLLOWED_ID);
+        
+        
+        verify(followRepository).deleteByFollowerIdAndFollowedId(FOLLOWER_ID, FOLLOWED_ID);
+    }
+    
+    @Test
+    @DisplayName("Should throw exception when unfollowing a user that is not followed")
+    void testUnfollowUser_NotFollowing() {
+        
+        when(followRepository.existsByFollowerIdAndFollowedId(FOLLOWER_ID, FOLLOWED_ID)).thenReturn(false);
+        
+        
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
+            () -> followService.unfollowUser(FOLLOWER_ID, FOLLOWED_ID));
+        
+        assertEquals("User " + FOLLOWER_ID + " is not following user " + FOLLOWED_ID, exception.getMessage());
+        verify(followRepository, never()).deleteByFollowerIdAndFollowedId(anyString(), anyString());
+    }
+} 
@@ -0,0 +1,170 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.Tweet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Timeline Rebuild Coordinator Tests")
+class TimelineRebuildCoordinatorTest {
+    
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+    
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+    
+    private SimpleMeterRegistry meterRegistry;
+    
+    private static final String USER_ID = "507f1f77bcf86cd799439012";
+    private final Tweet tweet = new Tweet("tweet-1", "Hello", "507f1f77bcf86cd799439011", LocalDateTime.now());
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+    
+    private TimelineRebuildCoordinator coordinator(boolean leaseEnabled, Duration refreshAhead) {
+        return coordinator(leaseEnabled, refreshAhead, 1.0);
+    }
+    
+    private TimelineRebuildCoordinator coordinator(boolean leaseEnabled, Duration refreshAhead, double sampleRate) {
+        return new TimelineRebuildCoordinator(redisTemplate, meterRegistry,
+            leaseEnabled, Duration.ofSeconds(5), Duration.ofSeconds(2), refreshAhead, sampleRate);
+    }
+    
+    @Test
+    @DisplayName("Should run a single rebuild for concurrent reads of a missing timeline")
+    void testRebuild_SingleFlight() throws Exception {
+        
+        TimelineRebuildCoordinator coordinator = coordinator(false, Duration.ofDays(1));
+        CountDownLatch rebuildStarted = new CountDownLatch(1);
+        CountDownLatch releaseRebuild = new CountDownLatch(1);
+        AtomicInteger builds = new AtomicInteger();
+        TimelineRebuildCoordinator.TimelineLoader builder = (userId, limit) -> {
+            builds.incrementAndGet();
+            rebuildStarted.countDown();
+            try {
+                releaseRebuild.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(tweet);
+        };
+        
+        
+        CompletableFuture<List<Tweet>> leader = CompletableFuture.supplyAsync(
+            () -> coordinator.rebuild(USER_ID, 50, builder, (userId, limit) -> null));
+        assertTrue(rebuildStarted.await(5, TimeUnit.SECONDS));
+        
+        CompletableFuture<List<Tweet>> waiter = new CompletableFuture<>();
+        Thread waiterThread = new Thread(() -> waiter.complete(coordinator.rebuild(USER_ID, 50, builder, (userId, limit) -> null)));
+        waiterThread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waiterThread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        releaseRebuild.countDown();
+        
+        
+        assertEquals(List.of(tweet), leader.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(tweet), waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, builds.get());
+        assertEquals(1.0, meterRegistry.get("microblog.timeline.rebuilds.suppressed").tag("scope", "local").counter().count());
+        verifyNoInteractions(redisTemplate);
+    }
+    
+    @Test
+    @DisplayName("Should wait for another node holding the rebuild lease instead of rebuilding")
+    void testRebuild_LeaseHeldElsewhere() {
+        
+        TimelineRebuildCoordinator coordinator = coordinator(true, Duration.ofDays(1));
+        AtomicInteger reads = new AtomicInteger();
+        
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("timeline-rebuild:" + USER_ID), anyString(), any())).thenReturn(false);
+        when(redisTemplate.hasKey("timeline-rebuild:" + USER_ID)).thenReturn(true);
+        
+        
+        List<Tweet> timeline = coordinator.rebuild(USER_ID, 50,
+            (userId, limit) -> fail("Should not rebuild while another node holds the lease"),
+            (userId, limit) -> reads.incrementAndGet() < 2 ? null : List.of(tweet));
+        
+        
+        assertEquals(List.of(tweet), timeline);
+        assertEquals(2, reads.get());
+        assertEquals(1.0, meterRegistry.get("microblog.timeline.rebuilds.suppressed").tag("scope", "cluster").counter().count());
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any());
+    }
+    
+    @Test
+    @DisplayName("Should rebuild and release its own lease with the compare-and-delete script")
+    void testRebuild_AcquiresAndReleasesLease() {
+        
+        TimelineRebuildCoordinator coordinator = coordinator(true, Duration.ofDays(1));
+        
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("timeline-rebuild:" + USER_ID), anyString(), eq(Duration.ofSeconds(5))))
+            .thenReturn(true);
+        
+        
+        List<Tweet> timeline = coordinator.rebuild(USER_ID, 50, (userId, limit) -> List.of(tweet), (userId, limit) -> null);
+        
+        
+        assertEquals(List.of(tweet), timeline);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("timeline-rebuild:" + USER_ID)), anyString());
+    }
+    
+    @Test
+    @DisplayName("Should extend the TTL of a timeline about to expire and leave it alone when refresh-ahead is off")
+    void testExtendTtlIfExpiring() {
+        
+        when(redisTemplate.getExpire("timeline:" + USER_ID, TimeUnit.MILLISECONDS)).thenReturn(1L);
+        
+        
+        coordinator(false, Duration.ZERO).extendTtlIfExpiring("timeline:" + USER_ID);
+        coordinator(false, Duration.ofDays(1)).extendTtlIfExpiring("timeline:" + USER_ID);
+        
+        
+        verify(redisTemplate, times(1)).expire("timeline:" + USER_ID, TimelineFanoutWriter.TIMELINE_TTL);
+    }
+    
+    @Test
+    @DisplayName("Should only read the TTL on the sampled fraction of timeline reads")
+    void testExtendTtlIfExpiring_Sampled() {
+        
+        TimelineRebuildCoordinator coordinator = coordinator(false, Duration.ofDays(1), 0.1);
+        when(redisTemplate.getExpire("timeline:" + USER_ID, TimeUnit.MILLISECONDS))
+            .thenReturn(TimelineFanoutWriter.TIMELINE_TTL.toMillis());
+        
+        
+        for (int i = 0; i < 10_000; i++) {
+            coordinator.extendTtlIfExpiring("timeline:" + USER_ID);
+        }
+        coordinator(false, Duration.ofDays(1), 0.0).extendTtlIfExpiring("timeline:" + USER_ID);
+        
+        
+        int ttlReads = mockingDetails(redisTemplate).getInvocations().size();
+        assertTrue(ttlReads > 800 && ttlReads < 1_200, "PTTL reads: " + ttlReads);
+    }
+}
@@ -0,0 +1,110 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.port.TweetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Timeline Rebuilder Tests")
+class TimelineRebuilderTest {
+    
+    @Mock
+    private TweetRepository tweetRepository;
+    
+    private TimelineRebuilder timelineRebuilder;
+    
+    private final LocalDateTime now = LocalDateTime.of(2024, 3, 1, 12, 0);
+    
+    @BeforeEach
+    void setUp() {
+        timelineRebuilder = new TimelineRebuilder(tweetRepository, 2, 2);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        timelineRebuilder.destroy();
+    }
+    
+    @Test
+    @DisplayName("Should query few followees in a single request")
+    void testFindRecentTweets_SingleChunk() {
+        
+        List<Tweet> tweets = List.of(tweet("t1", "a", 1));
+        when(tweetRepository.findRecentTweetsByUserIds(List.of("a", "b"), 10)).thenReturn(tweets);
+        
+        
+        assertEquals(tweets, timelineRebuilder.findRecentTweets(List.of("a", "b", "a"), 10));
+        verify(tweetRepository, times(1)).findRecentTweetsByUserIds(anyList(), anyInt());
+    }
+    
+    @Test
+    @DisplayName("Should merge followee chunks newest first and stop at the limit")
+    void testFindRecentTweets_MergesChunks() {
+        
+        when(tweetRepository.streamRecentTweetsByUserIds(List.of("a", "b"), 4))
+            .thenReturn(Stream.of(tweet("t5", "a", 5), tweet("t2", "b", 2)));
+        when(tweetRepository.streamRecentTweetsByUserIds(List.of("c", "d"), 4))
+            .thenReturn(Stream.of(tweet("t6", "c", 6), tweet("t4", "d", 4), tweet("t1", "c", 1)));
+        when(tweetRepository.streamRecentTweetsByUserIds(List.of("e"), 4))
+            .thenReturn(Stream.of(tweet("t3", "e", 3)));
+        
+        
+        List<Tweet> result = timelineRebuilder.findRecentTweets(List.of("a", "b", "c", "d", "e"), 4);
+        
+        
+        assertEquals(List.of("t6", "t5", "t4", "t3"), result.stream().map(Tweet::getId).toList());
+    }
+    
+    @Test
+    @DisplayName("Should read chunk cursors lazily and close them all after the merge")
+    void testFindRecentTweets_ReadsChunksLazily() {
+        
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        when(tweetRepository.streamRecentTweetsByUserIds(List.of("a", "b"), 2))
+            .thenReturn(Stream.of(tweet("t9", "a", 9), tweet("t8", "b", 8), tweet("t7", "a", 7), tweet("t6", "b", 6))
+                .peek(tweet -> read.incrementAndGet())
+                .onClose(closed::incrementAndGet));
+        when(tweetRepository.streamRecentTweetsByUserIds(List.of("c"), 2))
+            .thenReturn(Stream.of(tweet("t1", "c", 1)).peek(tweet -> read.incrementAndGet()).onClose(closed::incrementAndGet));
+        
+        
+        List<Tweet> result = timelineRebuilder.findRecentTweets(List.of("a", "b", "c"), 2);
+        
+        
+        assertEquals(List.of("t9", "t8"), result.stream().map(Tweet::getId).toList());
+        assertTrue(read.get() <= 4, "tweets read: " + read.get());
+        assertEquals(2, closed.get());
+    }
+    
+    @Test
+    @DisplayName("Should break ties on creation time by tweet ID")
+    void testMerge_TieBreak() {
+        
+        List<Tweet> merged = TimelineRebuilder.merge(List.of(
+            List.of(tweet("0001", "a", 1)).iterator(),
+            List.of(tweet("0002", "b", 1)).iterator()), 10);
+        
+        
+        assertEquals(List.of("0002", "0001"), merged.stream().map(Tweet::getId).toList());
+    }
+    
+    private Tweet tweet(String id, String userId, int minutes) {
+        return new Tweet(id, "content " + id, userId, now.plusMinutes(minutes));
+    }
+}
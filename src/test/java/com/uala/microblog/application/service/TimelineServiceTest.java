@@ -0,0 +1,433 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.TimelinePage;
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.port.TweetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Timeline Service Tests")
+class TimelineServiceTest {
+    
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+    
+    @Mock
+    private ZSetOperations<String, Object> zSetOperations;
+    
+    @Mock
+    private SetOperations<String, Object> setOperations;
+    
+    @Mock
+    private TweetRepository tweetRepository;
+    
+    @Mock
+    private FollowService followService;
+    
+    @Mock
+    private TimelineFanoutWriter fanoutWriter;
+    
+    @Mock
+    private TweetBodyCache tweetBodyCache;
+    
+    @Mock
+    private TimelineRebuilder timelineRebuilder;
+    
+    private SimpleMeterRegistry meterRegistry;
+    
+    private TimelineService timelineService;
+    
+    private static final String AUTHOR_ID = "507f1f77bcf86cd799439011";
+    private static final String FOLLOWER_ID = "507f1f77bcf86cd799439012";
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        TimelineRebuildCoordinator rebuildCoordinator = new TimelineRebuildCoordinator(redisTemplate, meterRegistry,
+            false, Duration.ofSeconds(5), Duration.ofSeconds(2), Duration.ofDays(1), 1.0);
+        timelineService = new TimelineService(redisTemplate, tweetRepository, followService, fanoutWriter,
+            tweetBodyCache, timelineRebuilder, rebuildCoordinator, new ConcurrentMapCacheManager(), meterRegistry);
+        ReflectionTestUtils.setField(timelineService, "celebrityThreshold", 3L);
+    }
+    
+    @Test
+    @DisplayName("Should push tweet to every follower timeline when author is below the threshold")
+    void testDistribute_PushPath() {
+        
+        Tweet tweet = new Tweet("tweet-1", "Hello", AUTHOR_ID, LocalDateTime.now());
+        
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(followService.countFollowers(AUTHOR_ID)).thenReturn(1L);
+        when(followService.getFollowersIds(AUTHOR_ID)).thenReturn(List.of(FOLLOWER_ID));
+        
+        
+        timelineService.distributeToFollowersTimelines(tweet);
+        
+        
+        verify(tweetBodyCache).put(tweet);
+        verify(fanoutWriter).addTweetToTimelines(List.of(FOLLOWER_ID, AUTHOR_ID), tweet);
+        verify(redisTemplate, never()).opsForZSet();
+        assertEquals(1.0, meterRegistry.get("microblog.fanout.authors").tag("path", "push").counter().count());
+    }
+    
+    @Test
+    @DisplayName("Should append the author to the shared followers list without copying it or repeating the author")
+    void testPrepareFanout_AppendsAuthorWithoutCopy() {
+        
+        Tweet tweet = new Tweet("tweet-1", "Hello", AUTHOR_ID, LocalDateTime.now());
+        List<String> cachedFollowers = List.of(FOLLOWER_ID);
+        
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(followService.countFollowers(AUTHOR_ID)).thenReturn(1L);
+        when(followService.getFollowersIds(AUTHOR_ID)).thenReturn(cachedFollowers, List.of(FOLLOWER_ID, AUTHOR_ID));
+        
+        
+        List<String> recipientIds = timelineService.prepareFanout(tweet);
+        List<String> recipientIdsWithAuthor = timelineService.prepareFanout(tweet);
+        
+        
+        assertEquals(List.of(FOLLOWER_ID, AUTHOR_ID), recipientIds);
+        assertEquals(List.of(FOLLOWER_ID), cachedFollowers);
+        assertEquals(List.of(FOLLOWER_ID, AUTHOR_ID), recipientIdsWithAuthor);
+    }
+    
+    @Test
+    @DisplayName("Should store tweet in author list instead of pushing when author exceeds the threshold")
+    void testDistribute_PullPath() {
+        
+        Tweet tweet = new Tweet("tweet-1", "Hello", AUTHOR_ID, LocalDateTime.now());
+        
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(followService.countFollowers(AUTHOR_ID)).thenReturn(5L);
+        
+        
+        timelineService.distributeToFollowersTimelines(tweet);
+        
+        
+        verify(tweetBodyCache).put(tweet);
+        verify(zSetOperations).add(eq("author-tweets:" + AUTHOR_ID), eq("tweet-1"), anyDouble());
+        verify(fanoutWriter).addTweetToTimelines(List.of(AUTHOR_ID), tweet);
+        verify(setOperations).add("fanout:pull-authors", AUTHOR_ID);
+        verify(followService, never()).getFollowersIds(anyString());
+        assertEquals(1.0, meterRegistry.get("microblog.fanout.authors").tag("path", "pull").counter().count());
+    }
+    
+    @Test
+    @DisplayName("Should keep a pull author on the pull path until it drops below the exit threshold")
+    void testPrepareFanout_PullHysteresis() {
+        
+        ReflectionTestUtils.setField(timelineService, "celebrityThreshold", 10L);
+        Tweet tweet = new Tweet("tweet-1", "Hello", AUTHOR_ID, LocalDateTime.now());
+        
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.isMember("fanout:pull-authors", AUTHOR_ID)).thenReturn(true);
+        
+        
+        List<String> recipientIds = timelineService.prepareFanout(tweet, 9L);
+        
+        
+        assertEquals(List.of(AUTHOR_ID), recipientIds);
+        verify(zSetOperations).add(eq("author-tweets:" + AUTHOR_ID), eq("tweet-1"), anyDouble());
+        verify(setOperations, never()).remove(anyString(), any());
+        verify(followService, never()).getFollowersIds(anyString());
+    }
+    
+    @Test
+    @DisplayName("Should skip the fanout of a tweet deleted before the fanout message was consumed")
+    void testPrepareFanout_DeletedBeforeFanout() {
+        
+        Tweet tweet = new Tweet("tweet-1", "Hello", AUTHOR_ID, LocalDateTime.now());
+        
+        when(tweetBodyCache.findDeleted(List.of("tweet-1"))).thenReturn(Set.of("tweet-1"));
+        
+        
+        List<String> recipientIds = timelineService.prepareFanout(tweet, 1L);
+        timelineService.addTweetToTimelines(recipientIds, tweet);
+        
+        
+        assertTrue(recipientIds.isEmpty());
+        verify(tweetBodyCache, never()).put(any());
+        verify(followService, never()).getFollowersIds(anyString());
+        verifyNoInteractions(fanoutWriter);
+    }
+    
+    @Test
+    @DisplayName("Should undo the timeline writes of a tweet deleted while its fanout was running")
+    void testAddTweetToTimelines_DeletedDuringFanout() {
+        
+        Tweet tweet = new Tweet("tweet-1", "Hello", AUTHOR_ID, LocalDateTime.now());
+        List<String> recipientIds = List.of(FOLLOWER_ID, AUTHOR_ID);
+        
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(tweetBodyCache.findDeleted(List.of("tweet-1"))).thenReturn(new HashSet<>(Set.of("tweet-1")));
+        
+        
+        timelineService.addTweetToTimelines(recipientIds, tweet);
+        
+        
+        InOrder inOrder = inOrder(fanoutWriter, tweetBodyCache);
+        inOrder.verify(fanoutWriter).addTweetToTimelines(recipientIds, tweet);
+        inOrder.verify(tweetBodyCache).evict("tweet-1");
+        inOrder.verify(fanoutWriter).removeTweetFromTimelines(recipientIds, "tweet-1");
+        verify(zSetOperations).remove("author-tweets:" + AUTHOR_ID, "tweet-1");
+    }
+    
+    @Test
+    @DisplayName("Should copy recent tweets to followers before moving a pull author back to push")
+    void testPrepareFanout_LeavesPull() {
+        
+        ReflectionTestUtils.setField(timelineService, "celebrityThreshold", 10L);
+        Tweet tweet = new Tweet("tweet-2", "Hello", AUTHOR_ID, LocalDateTime.now());
+        List<Tweet> recentTweets = List.of(new Tweet("tweet-1", "Earlier", AUTHOR_ID, LocalDateTime.now().minusHours(1)));
+        
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.isMember("fanout:pull-authors", AUTHOR_ID)).thenReturn(true);
+        when(followService.getFollowersIds(AUTHOR_ID)).thenReturn(List.of(FOLLOWER_ID));
+        when(tweetRepository.findRecentTweetsByUserId(AUTHOR_ID, TimelineService.MAX_TIMELINE_SIZE)).thenReturn(recentTweets);
+        
+        
+        List<String> recipientIds = timelineService.prepareFanout(tweet, 7L);
+        
+        
+        assertEquals(List.of(FOLLOWER_ID, AUTHOR_ID), recipientIds);
+        InOrder inOrder = inOrder(fanoutWriter, setOperations);
+        inOrder.verify(fanoutWriter).addTweetsToTimelines(List.of(FOLLOWER_ID, AUTHOR_ID), recentTweets);
+        inOrder.verify(setOperations).remove("fanout:pull-authors", AUTHOR_ID);
+        verify(redisTemplate, never()).opsForZSet();
+    }
+    
+    @Test
+    @DisplayName("Should merge pull-author tweets into the cached timeline at read time")
+    void testGetUserTimeline_MergesPullAuthors() {
+        
+        LocalDateTime now = LocalDateTime.now();
+        Tweet pushed = new Tweet("tweet-pushed", "Pushed", "regular-author", now.minusMinutes(10));
+        Tweet pulled = new Tweet("tweet-pulled", "Pulled", AUTHOR_ID, now.minusMinutes(1));
+        
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(zSetOperations.reverseRangeWithScores("timeline:" + FOLLOWER_ID, 0, 49))
+            .thenReturn(Set.of(entry(pushed)));
+        when(followService.getFollowedUserIds(FOLLOWER_ID)).thenReturn(List.of(AUTHOR_ID, "regular-author"));
+        when(setOperations.isMember("fanout:pull-authors", new Object[]{AUTHOR_ID, "regular-author"}))
+            .thenReturn(Map.of(AUTHOR_ID, true, "regular-author", false));
+        when(zSetOperations.reverseRangeWithScores("author-tweets:" + AUTHOR_ID, 0, 49))
+            .thenReturn(Set.of(entry(pulled)));
+        when(tweetBodyCache.getAll(List.of("tweet-pulled", "tweet-pushed")))
+            .thenReturn(Map.of("tweet-pulled", pulled, "tweet-pushed", pushed));
+        
+        
+        List<Tweet> timeline = timelineService.getUserTimeline(FOLLOWER_ID);
+        
+        
+        assertEquals(List.of(pulled, pushed), timeline);
+        verify(tweetRepository, never()).findRecentTweetsByUserIds(anyList(), anyInt());
+        verifyNoInteractions(timelineRebuilder);
+    }
+    
+    @Test
+    @DisplayName("Should serve repeated reads from the near-cache until the timeline is invalidated")
+    void testGetUserTimeline_NearCache() {
+        
+        Tweet pushed = new Tweet("tweet-pushed", "Pushed", AUTHOR_ID, LocalDateTime.now());
+        
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.reverseRangeWithScores("timeline:" + FOLLOWER_ID, 0, 49))
+            .thenReturn(Set.of(entry(pushed)));
+        when(followService.getFollowedUserIds(FOLLOWER_ID)).thenReturn(List.of());
+        when(tweetBodyCache.getAll(List.of("tweet-pushed"))).thenReturn(Map.of("tweet-pushed", pushed));
+        
+        
+        List<Tweet> first = timelineService.getUserTimeline(FOLLOWER_ID, 50);
+        List<Tweet> second = timelineService.getUserTimeline(FOLLOWER_ID, 10);
+        timelineService.invalidateUserTimeline(FOLLOWER_ID);
+        List<Tweet> third = timelineService.getUserTimeline(FOLLOWER_ID, 50);
+        
+        
+        assertEquals(List.of(pushed), first);
+        assertEquals(List.of(pushed), second);
+        assertEquals(List.of(pushed), third);
+        verify(zSetOperations, times(2)).reverseRangeWithScores("timeline:" + FOLLOWER_ID, 0, 49);
+    }
+    
+    @Test
+    @DisplayName("Should merge the followed author's recent tweets into an existing timeline")
+    void testMergeAuthorIntoTimeline() {
+        
+        List<Tweet> authorTweets = List.of(new Tweet("tweet-1", "Hello", AUTHOR_ID, LocalDateTime.now()));
+        
+        when(redisTemplate.hasKey("timeline:" + FOLLOWER_ID)).thenReturn(true);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.isMember("fanout:pull-authors", AUTHOR_ID)).thenReturn(false);
+        when(tweetRepository.findRecentTweetsByUserId(AUTHOR_ID, TimelineService.MAX_TIMELINE_SIZE)).thenReturn(authorTweets);
+        
+        
+        timelineService.mergeAuthorIntoTimeline(FOLLOWER_ID, AUTHOR_ID);
+        
+        
+        verify(tweetBodyCache).putAll(authorTweets);
+        verify(fanoutWriter).addTweetsToTimeline(FOLLOWER_ID, authorTweets);
+        verify(redisTemplate, never()).delete(anyString());
+    }
+    
+    @Test
+    @DisplayName("Should leave a missing timeline to be built on the next read")
+    void testMergeAuthorIntoTimeline_NoTimeline() {
+        
+        when(redisTemplate.hasKey("timeline:" + FOLLOWER_ID)).thenReturn(false);
+        
+        
+        timelineService.mergeAuthorIntoTimeline(FOLLOWER_ID, AUTHOR_ID);
+        
+        
+        verifyNoInteractions(tweetRepository, fanoutWriter);
+    }
+    
+    @Test
+    @DisplayName("Should remove only the unfollowed author's tweets found by scanning the timeline")
+    @SuppressWarnings("unchecked")
+    void testRemoveAuthorFromTimeline() {
+        
+        Cursor<ZSetOperations.TypedTuple<Object>> cursor = mock(Cursor.class);
+        Tweet first = new Tweet("tweet-1", "Hello", AUTHOR_ID, LocalDateTime.now());
+        Tweet second = new Tweet("tweet-2", "World", AUTHOR_ID, LocalDateTime.now());
+        Tweet other = new Tweet("tweet-3", "Other", "regular-author", LocalDateTime.now());
+        
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.scan(eq("timeline:" + FOLLOWER_ID), any(ScanOptions.class))).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, true, false);
+        when(cursor.next()).thenReturn(entry(first), entry(other), entry(second));
+        Map<String, Tweet> bodies = new LinkedHashMap<>();
+        bodies.put("tweet-1", first);
+        bodies.put("tweet-3", other);
+        bodies.put("tweet-2", second);
+        when(tweetBodyCache.getAll(Set.of("tweet-1", "tweet-2", "tweet-3"))).thenReturn(bodies);
+        
+        
+        timelineService.removeAuthorFromTimeline(FOLLOWER_ID, AUTHOR_ID);
+        
+        
+        verify(zSetOperations).remove("timeline:" + FOLLOWER_ID, "tweet-1", "tweet-2");
+        verify(cursor).close();
+        verifyNoInteractions(tweetRepository);
+    }
+    
+    @Test
+    @DisplayName("Should page the cached timeline by cursor and continue in MongoDB when the cache is exhausted")
+    void testGetUserTimelinePage_ContinuesInMongo() {
+        
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Tweet first = new Tweet("507f1f77bcf86cd799439033", "First", AUTHOR_ID, now);
+        Tweet second = new Tweet("507f1f77bcf86cd799439022", "Second", AUTHOR_ID, now.minusMinutes(1));
+        Tweet stored = new Tweet("507f1f77bcf86cd799439011", "Stored", AUTHOR_ID, now.minusMinutes(2));
+        double firstScore = now.toInstant(ZoneOffset.UTC).toEpochMilli();
+        
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(followService.getFollowedUserIds(FOLLOWER_ID)).thenReturn(List.of(AUTHOR_ID));
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.isMember("fanout:pull-authors", new Object[]{AUTHOR_ID}))
+            .thenReturn(Map.of(AUTHOR_ID, false));
+        when(zSetOperations.reverseRangeByScoreWithScores("timeline:" + FOLLOWER_ID, firstScore, firstScore))
+            .thenReturn(new LinkedHashSet<>(List.of(entry(first))));
+        when(zSetOperations.reverseRangeByScoreWithScores("timeline:" + FOLLOWER_ID, Double.NEGATIVE_INFINITY, firstScore - 1, 0, 2))
+            .thenReturn(new LinkedHashSet<>(List.of(entry(second))));
+        when(zSetOperations.rangeWithScores("timeline:" + FOLLOWER_ID, 0, 0))
+            .thenReturn(new LinkedHashSet<>(List.of(entry(second))));
+        when(tweetBodyCache.getAll(List.of(second.getId()))).thenReturn(Map.of(second.getId(), second));
+        when(tweetRepository.findTweetsByUserIdsBefore(List.of(AUTHOR_ID, FOLLOWER_ID),
+                second.getCreatedAt(), second.getId(), 1))
+            .thenReturn(List.of(stored));
+        String cursor = timelineService.nextCursor(List.of(first), 1);
+        
+        
+        TimelinePage page = timelineService.getUserTimelinePage(FOLLOWER_ID, cursor, null, 2);
+        
+        
+        assertEquals(List.of(second, stored), page.getTweets());
+        assertNotNull(page.getNextCursor());
+    }
+    
+    @Test
+    @DisplayName("Should stop the cached page at the timeline trim point and continue in MongoDB")
+    void testGetUserTimelinePage_StopsAtTimelineTrimPoint() {
+        
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Tweet newest = new Tweet("tweet-newest", "Newest", "regular-author", now);
+        Tweet pulledRecent = new Tweet("tweet-pulled-recent", "Pulled", AUTHOR_ID, now.minusSeconds(30));
+        Tweet pushedRecent = new Tweet("tweet-pushed-recent", "Pushed", "regular-author", now.minusMinutes(1));
+        Tweet pushedTrimmed = new Tweet("tweet-pushed-trimmed", "Trimmed", "regular-author", now.minusMinutes(2));
+        Tweet pulledOld = new Tweet("tweet-pulled-old", "Pulled old", AUTHOR_ID, now.minusMinutes(5));
+        double newestScore = TimelineFanoutWriter.score(newest);
+        
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(followService.getFollowedUserIds(FOLLOWER_ID)).thenReturn(List.of(AUTHOR_ID, "regular-author"));
+        when(setOperations.isMember("fanout:pull-authors", new Object[]{AUTHOR_ID, "regular-author"}))
+            .thenReturn(Map.of(AUTHOR_ID, true, "regular-author", false));
+        when(zSetOperations.rangeWithScores("timeline:" + FOLLOWER_ID, 0, 0))
+            .thenReturn(new LinkedHashSet<>(List.of(entry(pushedRecent))));
+        when(zSetOperations.rangeWithScores("author-tweets:" + AUTHOR_ID, 0, 0))
+            .thenReturn(new LinkedHashSet<>(List.of(entry(pulledOld))));
+        when(zSetOperations.reverseRangeByScoreWithScores(anyString(), eq(newestScore), eq(newestScore)))
+            .thenReturn(new LinkedHashSet<>());
+        when(zSetOperations.reverseRangeByScoreWithScores("timeline:" + FOLLOWER_ID, Double.NEGATIVE_INFINITY, newestScore - 1, 0, 3))
+            .thenReturn(new LinkedHashSet<>(List.of(entry(pushedRecent))));
+        when(zSetOperations.reverseRangeByScoreWithScores("author-tweets:" + AUTHOR_ID, Double.NEGATIVE_INFINITY, newestScore - 1, 0, 3))
+            .thenReturn(new LinkedHashSet<>(List.of(entry(pulledRecent), entry(pulledOld))));
+        when(tweetBodyCache.getAll(List.of(pulledRecent.getId(), pushedRecent.getId())))
+            .thenReturn(Map.of(pulledRecent.getId(), pulledRecent, pushedRecent.getId(), pushedRecent));
+        when(tweetRepository.findTweetsByUserIdsBefore(List.of(AUTHOR_ID, "regular-author", FOLLOWER_ID),
+                pushedRecent.getCreatedAt(), pushedRecent.getId(), 1))
+            .thenReturn(List.of(pushedTrimmed));
+        String cursor = timelineService.nextCursor(List.of(newest), 1);
+        
+        
+        TimelinePage page = timelineService.getUserTimelinePage(FOLLOWER_ID, cursor, null, 3);
+        
+        
+        assertEquals(List.of(pulledRecent, pushedRecent, pushedTrimmed), page.getTweets());
+    }
+    
+    @Test
+    @DisplayName("Should reject malformed cursors")
+    void testGetUserTimelinePage_InvalidCursor() {
+        
+        assertThrows(IllegalArgumentException.class,
+            () -> timelineService.getUserTimelinePage(FOLLOWER_ID, "not-a-cursor", null, 10));
+    }
+    
+    private static DefaultTypedTuple<Object> entry(Tweet tweet) {
+        return new DefaultTypedTuple<>(tweet.getId(), TimelineFanoutWriter.score(tweet));
+    }
+}
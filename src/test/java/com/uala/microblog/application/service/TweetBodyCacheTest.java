@@ -0,0 +1,80 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.port.TweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tweet Body Cache Tests")
+class TweetBodyCacheTest {
+    
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+    
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+    
+    @Mock
+    private TweetRepository tweetRepository;
+    
+    private TweetBodyCache tweetBodyCache;
+    
+    @BeforeEach
+    void setUp() {
+        tweetBodyCache = new TweetBodyCache(redisTemplate, tweetRepository);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+    
+    @Test
+    @DisplayName("Should read bodies with a single MGET and load only the missing ones from MongoDB")
+    void testGetAll_LoadsMissingFromMongo() {
+        
+        Tweet cached = new Tweet("tweet-1", "Cached", "author", LocalDateTime.now());
+        Tweet stored = new Tweet("tweet-2", "Stored", "author", LocalDateTime.now());
+        
+        when(valueOperations.multiGet(List.of("tweet:tweet-1", "tweet:tweet-2")))
+            .thenReturn(Arrays.asList(cached, null));
+        when(tweetRepository.findByIds(List.of("tweet-2"))).thenReturn(List.of(stored));
+        
+        
+        Map<String, Tweet> bodies = tweetBodyCache.getAll(List.of("tweet-1", "tweet-2", "tweet-1"));
+        
+        
+        assertEquals(Map.of("tweet-1", cached, "tweet-2", stored), bodies);
+        verify(valueOperations, times(1)).multiGet(anyCollection());
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+    }
+    
+    @Test
+    @DisplayName("Should skip MongoDB when every body is cached")
+    void testGetAll_AllCached() {
+        
+        Tweet cached = new Tweet("tweet-1", "Cached", "author", LocalDateTime.now());
+        
+        when(valueOperations.multiGet(List.of("tweet:tweet-1"))).thenReturn(List.of(cached));
+        
+        
+        Map<String, Tweet> bodies = tweetBodyCache.getAll(List.of("tweet-1"));
+        
+        
+        assertEquals(Map.of("tweet-1", cached), bodies);
+        verifyNoInteractions(tweetRepository);
+    }
+}
@@ -1,6 +1,7 @@
 package com.uala.microblog.application.service;
 
 import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.entity.TweetBatchResult;
 import com.uala.microblog.domain.entity.User;
 import com.uala.microblog.domain.port.TweetRepository;
 import com.uala.microblog.domain.port.UserRepository;
@@ -12,10 +13,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +34,9 @@ class TweetServiceTest {
     @Mock
     private FanoutMessageService fanoutMessageService;
     
+    @Mock
+    private TweetBodyCache tweetBodyCache;
+    
     private TweetService tweetService;
     
     private static final String VALID_USER_ID = "507f1f77bcf86cd799439011";
@@ -38,7 +44,7 @@ class TweetServiceTest {
     
     @BeforeEach
     void setUp() {
-        tweetService = new TweetService(tweetRepository, userRepository, fanoutMessageService);
+        tweetService = new TweetService(tweetRepository, userRepository, fanoutMessageService, tweetBodyCache);
     }
     
     @Test
@@ -187,4 +193,68 @@ class TweetServiceTest {
         verify(tweetRepository, never()).save(any(Tweet.class));
         verify(fanoutMessageService, never()).sendFanoutMessage(any(Tweet.class));
     }
-} 
\ No newline at end of file
+    
+    @Test
+    @DisplayName("Should delete own tweet, drop its cached body and queue the timeline removal")
+    void testDeleteTweet_Success() {
+        
+        Tweet tweet = new Tweet("tweet-1", VALID_TWEET_CONTENT, VALID_USER_ID, java.time.LocalDateTime.now());
+        when(tweetRepository.findById("tweet-1")).thenReturn(Optional.of(tweet));
+        
+        
+        tweetService.deleteTweet("tweet-1", VALID_USER_ID);
+        
+        
+        verify(tweetRepository).deleteById("tweet-1");
+        verify(tweetBodyCache).markDeleted("tweet-1");
+        verify(tweetBodyCache).evict("tweet-1");
+        verify(fanoutMessageService).sendTweetDeletionMessage(tweet);
+    }
+    
+    @Test
+    @DisplayName("Should not delete a tweet from another user")
+    void testDeleteTweet_NotOwner() {
+        
+        Tweet tweet = new Tweet("tweet-1", VALID_TWEET_CONTENT, "another-user", java.time.LocalDateTime.now());
+        when(tweetRepository.findById("tweet-1")).thenReturn(Optional.of(tweet));
+        
+        
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
+            () -> tweetService.deleteTweet("tweet-1", VALID_USER_ID));
+        
+        assertEquals("Tweet tweet-1 does not belong to user " + VALID_USER_ID, exception.getMessage());
+        verify(tweetRepository, never()).deleteById(anyString());
+        verify(fanoutMessageService, never()).sendTweetDeletionMessage(any(Tweet.class));
+    }
+    
+    @Test
+    @DisplayName("Should create a batch with one author lookup and one bulk insert, rejecting invalid items")
+    void testCreateTweets_PartialSuccess() {
+        
+        User user = new User(VALID_USER_ID, "testuser", "test@example.com", java.time.LocalDateTime.now());
+        when(userRepository.findByIds(List.of(VALID_USER_ID, "unknown-user"))).thenReturn(List.of(user));
+        when(tweetRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Tweet> drafts = invocation.getArgument(0);
+            return List.of(new Tweet("tweet-1", drafts.get(0).getContent(), VALID_USER_ID, drafts.get(0).getCreatedAt()));
+        });
+        
+        
+        List<TweetBatchResult> results = tweetService.createTweets(List.of(
+            new Tweet("  " + VALID_TWEET_CONTENT + "  ", VALID_USER_ID),
+            new Tweet("", VALID_USER_ID),
+            new Tweet(VALID_TWEET_CONTENT, "unknown-user")));
+        
+        
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isCreated());
+        assertEquals("tweet-1", results.get(0).getTweet().getId());
+        assertEquals(VALID_TWEET_CONTENT, results.get(0).getTweet().getContent());
+        assertEquals("Tweet content cannot be null or empty", results.get(1).getError());
+        assertEquals("User not found with ID: unknown-user", results.get(2).getError());
+        assertEquals(2, results.get(2).getIndex());
+        
+        verify(userRepository, never()).findById(anyString());
+        verify(tweetRepository).saveAll(anyList());
+        verify(fanoutMessageService).sendFanoutBatch(List.of(results.get(0).getTweet()));
+    }
+} 
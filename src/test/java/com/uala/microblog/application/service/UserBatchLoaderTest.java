@@ -0,0 +1,86 @@
+package com.uala.microblog.application.service;
+
+import com.uala.microblog.domain.entity.User;
+import com.uala.microblog.domain.port.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("User Batch Loader Tests")
+class UserBatchLoaderTest {
+    
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+    
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+    
+    @Mock
+    private UserRepository userRepository;
+    
+    private UserBatchLoader userBatchLoader;
+    
+    @BeforeEach
+    void setUp() {
+        userBatchLoader = new UserBatchLoader(redisTemplate, userRepository);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+    
+    @Test
+    @DisplayName("Should resolve users with one MGET and one $in query for the missing ones, keeping the order")
+    void testGetAll_LoadsMissingFromMongo() {
+        
+        User cached = new User("user-1", "cached", "cached@example.com", LocalDateTime.now());
+        User stored = new User("user-2", "stored", "stored@example.com", LocalDateTime.now());
+        
+        when(valueOperations.multiGet(List.of("user:user-2", "user:user-1", "user:user-3")))
+            .thenReturn(Arrays.asList(null, cached, null));
+        when(userRepository.findByIds(List.of("user-2", "user-3"))).thenReturn(List.of(stored));
+        
+        
+        List<User> users = userBatchLoader.getAll(List.of("user-2", "user-1", "user-3"));
+        
+        
+        assertEquals(List.of(stored, cached), users);
+        verify(userRepository, never()).findById(anyString());
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+    }
+    
+    @Test
+    @DisplayName("Should split large ID lists into bounded chunks")
+    @SuppressWarnings("unchecked")
+    void testGetAll_Chunks() {
+        
+        List<String> ids = IntStream.range(0, UserBatchLoader.CHUNK_SIZE + 1)
+            .mapToObj(i -> "user-" + i)
+            .collect(Collectors.toList());
+        when(valueOperations.multiGet(anyCollection()))
+            .thenAnswer(invocation -> Arrays.asList(new Object[((List<String>) invocation.getArgument(0)).size()]));
+        when(userRepository.findByIds(anyList())).thenReturn(List.of());
+        
+        
+        userBatchLoader.getAll(ids);
+        
+        
+        verify(valueOperations, times(2)).multiGet(anyCollection());
+        verify(userRepository).findByIds(ids.subList(0, UserBatchLoader.CHUNK_SIZE));
+        verify(userRepository).findByIds(List.of("user-" + UserBatchLoader.CHUNK_SIZE));
+    }
+}
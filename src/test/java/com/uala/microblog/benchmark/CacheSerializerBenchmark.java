@@ -0,0 +1,132 @@
+package com.uala.microblog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.entity.User;
+import com.uala.microblog.infrastructure.cache.CompactBinaryRedisSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH del serializer de cache: JSON (GenericJackson2JsonRedisSerializer) vs binario compacto.
+ * Imprime además los bytes por entrada de cada formato.
+ *
+ * mvn test -Dtest=CacheSerializerBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Cache Serializer Benchmark")
+public class CacheSerializerBenchmark {
+    
+    @Test
+    @DisplayName("Binary vs JSON serializer: bytes per entry and encode/decode time")
+    void compareSerializers() throws RunnerException {
+        SerializerState state = new SerializerState();
+        for (String format : List.of("json", "binary")) {
+            state.format = format;
+            state.setUp();
+            System.out.printf("%-6s tweet=%d bytes, user=%d bytes, follow ids (100)=%d bytes%n", format,
+                state.serializer.serialize(state.tweet).length,
+                state.serializer.serialize(state.user).length,
+                state.serializer.serialize(state.followIds).length);
+        }
+        
+        new Runner(new OptionsBuilder()
+            .include(CacheSerializerBenchmark.class.getName() + ".*")
+            .build()).run();
+    }
+    
+    @State(Scope.Benchmark)
+    public static class SerializerState {
+        
+        @Param({"json", "binary"})
+        public String format;
+        
+        RedisSerializer<Object> serializer;
+        Tweet tweet;
+        User user;
+        List<String> followIds;
+        byte[] serializedTweet;
+        byte[] serializedFollowIds;
+        
+        @Setup
+        public void setUp() {
+            GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+            serializer = "binary".equals(format) ? new CompactBinaryRedisSerializer(json) : json;
+            
+            tweet = new Tweet("65f1c2a4b7e8d90012345678", "Benchmark tweet with a typical length for the platform",
+                "65f1c2a4b7e8d90012345679", LocalDateTime.now());
+            user = new User("65f1c2a4b7e8d90012345679", "bench_user", "bench@example.com", LocalDateTime.now());
+            followIds = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                followIds.add(String.format("65f1c2a4b7e8d900%08x", i));
+            }
+            
+            serializedTweet = serializer.serialize(tweet);
+            serializedFollowIds = serializer.serialize(followIds);
+        }
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public byte[] encodeTweet(SerializerState state) {
+        return state.serializer.serialize(state.tweet);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public Object decodeTweet(SerializerState state) {
+        return state.serializer.deserialize(state.serializedTweet);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public byte[] encodeFollowIds(SerializerState state) {
+        return state.serializer.serialize(state.followIds);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public Object decodeFollowIds(SerializerState state) {
+        return state.serializer.deserialize(state.serializedFollowIds);
+    }
+}
@@ -0,0 +1,184 @@
+package com.uala.microblog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.uala.microblog.application.service.TimelineFanoutWriter;
+import com.uala.microblog.domain.entity.Tweet;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark de fanout contra un Redis local (docker-compose.dev.yml).
+ * Compara la escritura secuencial previa (4 round trips por seguidor) con TimelineFanoutWriter, y
+ * una ráfaga de tweets escrita tweet por tweet con la escritura coalescida por destinatario.
+ * Falla si la versión nueva no escribe todos los timelines o no alcanza la mejora mínima
+ * (benchmark.min-speedup y benchmark.min-burst-speedup).
+ *
+ * mvn test -Dtest=TimelineFanoutBenchmark -Dbenchmark=true [-Dbenchmark.followers=100000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Timeline Fanout Benchmark")
+class TimelineFanoutBenchmark {
+    
+    private static final String TIMELINE_KEY_PREFIX = "timeline:";
+    private static final String USER_PREFIX = "bench-follower-";
+    
+    /**
+     * Mínimos conservadores: el pipeline reemplaza 4 round trips por seguidor por uno cada batch-size
+     * seguidores, y la ráfaga coalescida un pipeline por tweet por uno solo
+     */
+    private static final double MIN_SPEEDUP = Double.parseDouble(System.getProperty("benchmark.min-speedup", "5"));
+    private static final double MIN_BURST_SPEEDUP = Double.parseDouble(System.getProperty("benchmark.min-burst-speedup", "1.5"));
+    
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, Object> redisTemplate;
+    private List<String> followerIds;
+    
+    @BeforeAll
+    void setUp() {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(
+            System.getProperty("redis.host", "localhost"),
+            Integer.getInteger("redis.port", 6379));
+        config.setPassword(System.getProperty("redis.password", "password123"));
+        
+        connectionFactory = new LettuceConnectionFactory(config);
+        connectionFactory.afterPropertiesSet();
+        
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(jsonSerializer);
+        redisTemplate.setDefaultSerializer(jsonSerializer);
+        redisTemplate.afterPropertiesSet();
+        
+        int followers = Integer.getInteger("benchmark.followers", 100_000);
+        followerIds = new ArrayList<>(followers);
+        for (int i = 0; i < followers; i++) {
+            followerIds.add(USER_PREFIX + i);
+        }
+    }
+    
+    @AfterAll
+    void tearDown() {
+        cleanUp();
+        connectionFactory.destroy();
+    }
+    
+    @Test
+    @DisplayName("Pipelined fanout vs sequential fanout")
+    void compareFanoutStrategies() {
+        Tweet tweet = new Tweet("bench-tweet", "Benchmark tweet", "bench-author", LocalDateTime.now());
+        
+        cleanUp();
+        long sequentialNanos = time(() -> sequentialFanout(tweet));
+        
+        cleanUp();
+        TimelineFanoutWriter writer = new TimelineFanoutWriter(redisTemplate, new NoOpCacheManager(),
+            Integer.getInteger("benchmark.batch-size", 500),
+            Integer.getInteger("benchmark.in-flight", 4),
+            5, 20, 100);
+        long pipelinedNanos = time(() -> writer.addTweetToTimelines(followerIds, tweet));
+        writer.destroy();
+        
+        double speedup = (double) sequentialNanos / pipelinedNanos;
+        System.out.printf("Fanout to %d followers: sequential=%d ms, pipelined=%d ms, speedup=%.1fx%n",
+            followerIds.size(),
+            Duration.ofNanos(sequentialNanos).toMillis(),
+            Duration.ofNanos(pipelinedNanos).toMillis(),
+            speedup);
+        
+        for (String followerId : List.of(followerIds.get(0), followerIds.get(followerIds.size() / 2), followerIds.get(followerIds.size() - 1))) {
+            assertNotNull(redisTemplate.opsForZSet().score(TIMELINE_KEY_PREFIX + followerId, tweet.getId()),
+                "Pipelined fanout did not write the timeline of " + followerId);
+        }
+        assertTrue(speedup >= MIN_SPEEDUP,
+            String.format("Pipelined fanout speedup %.1fx is below the expected %.1fx", speedup, MIN_SPEEDUP));
+    }
+    
+    @Test
+    @DisplayName("Coalesced burst fanout vs one write per tweet")
+    void compareBurstFanout() {
+        int burst = Integer.getInteger("benchmark.burst", 20);
+        List<String> recipients = followerIds.subList(0, Math.min(10_000, followerIds.size()));
+        List<Tweet> tweets = new ArrayList<>(burst);
+        for (int i = 0; i < burst; i++) {
+            tweets.add(new Tweet("bench-burst-" + i, "Burst tweet", "bench-author-" + (i % 5), LocalDateTime.now().plusNanos(i * 1_000_000L)));
+        }
+        TimelineFanoutWriter writer = new TimelineFanoutWriter(redisTemplate, new NoOpCacheManager(), 500, 4, 5, 20, 100);
+        
+        cleanUp();
+        long perTweetNanos = time(() -> tweets.forEach(tweet -> writer.addTweetToTimelines(recipients, tweet)));
+        
+        cleanUp();
+        Map<String, List<Tweet>> tweetsByRecipient = new LinkedHashMap<>();
+        recipients.forEach(recipient -> tweetsByRecipient.put(recipient, tweets));
+        long coalescedNanos = time(() -> writer.addTweetsToTimelines(tweetsByRecipient));
+        writer.destroy();
+        
+        double speedup = (double) perTweetNanos / coalescedNanos;
+        System.out.printf("Burst of %d tweets to %d followers: per-tweet=%d ms, coalesced=%d ms, speedup=%.1fx%n",
+            burst, recipients.size(),
+            Duration.ofNanos(perTweetNanos).toMillis(),
+            Duration.ofNanos(coalescedNanos).toMillis(),
+            speedup);
+        
+        assertEquals(burst, redisTemplate.opsForZSet().zCard(TIMELINE_KEY_PREFIX + recipients.get(recipients.size() - 1)));
+        assertTrue(speedup >= MIN_BURST_SPEEDUP,
+            String.format("Coalesced burst speedup %.1fx is below the expected %.1fx", speedup, MIN_BURST_SPEEDUP));
+    }
+    
+    /**
+     * Escritura previa a TimelineFanoutWriter: ZADD, ZCARD, ZREMRANGE y EXPIRE por seguidor
+     */
+    private void sequentialFanout(Tweet tweet) {
+        double score = tweet.getCreatedAt().toEpochSecond(ZoneOffset.UTC);
+        for (String followerId : followerIds) {
+            String timelineKey = TIMELINE_KEY_PREFIX + followerId;
+            redisTemplate.opsForZSet().add(timelineKey, tweet, score);
+            long timelineSize = redisTemplate.opsForZSet().zCard(timelineKey);
+            if (timelineSize > 800) {
+                redisTemplate.opsForZSet().removeRange(timelineKey, 0, timelineSize - 800 - 1);
+            }
+            redisTemplate.expire(timelineKey, Duration.ofDays(7));
+        }
+    }
+    
+    private long time(Runnable runnable) {
+        long start = System.nanoTime();
+        runnable.run();
+        return System.nanoTime() - start;
+    }
+    
+    private void cleanUp() {
+        Set<String> keys = redisTemplate.keys(TIMELINE_KEY_PREFIX + USER_PREFIX + "*");
+        if (keys != null && !keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+    }
+}
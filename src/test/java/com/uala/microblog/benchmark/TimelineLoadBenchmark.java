@@ -0,0 +1,168 @@
+package com.uala.microblog.benchmark;
+
+import com.uala.microblog.application.service.AsyncRequestExecutor;
+import com.uala.microblog.application.service.AsyncTimelineService;
+import com.uala.microblog.application.service.TimelineService;
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.infrastructure.controller.AsyncTimelineController;
+import com.uala.microblog.infrastructure.controller.GlobalExceptionHandler;
+import com.uala.microblog.infrastructure.controller.TimelineController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Prueba de carga del endpoint de timeline en modo bloqueante vs asíncrono, con el mismo presupuesto
+ * de hilos en los dos modos: en bloqueante son todos de Tomcat; en asíncrono unos pocos de Tomcat
+ * (solo despachan) y el resto del pool del modo. Como la lectura sigue siendo bloqueante, lo esperable
+ * es un throughput parecido: el modo asíncrono solo mueve el trabajo de pool.
+ * El TimelineService simula la latencia de Redis/MongoDB; se imprime throughput y p50/p99 de cada modo.
+ *
+ * mvn test -Dtest=TimelineLoadBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Timeline Load Benchmark")
+public class TimelineLoadBenchmark {
+    
+    private static final int THREAD_BUDGET = 40;
+    private static final int ASYNC_TOMCAT_THREADS = 4;
+    private static final int BACKEND_LATENCY_MS = 100;
+    private static final int CONCURRENT_CLIENTS = 200;
+    private static final int REQUESTS_PER_CLIENT = 20;
+    
+    @Test
+    @DisplayName("Blocking vs async timeline endpoint under concurrent load")
+    void compareModes() throws Exception {
+        System.setProperty("http.maxConnections", String.valueOf(CONCURRENT_CLIENTS));
+        for (boolean async : List.of(false, true)) {
+            int tomcatThreads = async ? ASYNC_TOMCAT_THREADS : THREAD_BUDGET;
+            int poolSize = async ? THREAD_BUDGET - ASYNC_TOMCAT_THREADS : 0;
+            // como argumentos y no como properties del builder, que quedan por debajo de application.yml
+            try (var context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(LoadTestApplication.class)
+                    .web(WebApplicationType.SERVLET)
+                    .run(
+                        "--server.port=0",
+                        "--server.tomcat.threads.max=" + tomcatThreads,
+                        "--server.tomcat.threads.min-spare=" + tomcatThreads,
+                        "--server.tomcat.accept-count=1000",
+                        "--microblog.web.async.enabled=" + async,
+                        "--microblog.web.async.pool-size=" + Math.max(1, poolSize))) {
+                run(async ? "async" : "blocking", context.getWebServer().getPort(), tomcatThreads, poolSize);
+            }
+        }
+    }
+    
+    private void run(String mode, int port, int tomcatThreads, int poolSize) throws Exception {
+        URL url = new URL("http://localhost:" + port + "/timeline?userId=load-user");
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_CLIENTS);
+        
+        send(url);
+        
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_CLIENTS; i++) {
+            pending.add(CompletableFuture.runAsync(() -> {
+                for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                    long requestStart = System.nanoTime();
+                    send(url);
+                    latencies.add(System.nanoTime() - requestStart);
+                }
+            }, clients));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        clients.shutdown();
+        
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%-8s %6d requests, %8.0f req/s, p50 %6.1f ms, p99 %6.1f ms (tomcat threads %d + pool %d, backend latency %d ms)%n",
+            mode, sorted.size(), sorted.size() / elapsedSeconds,
+            percentile(sorted, 0.50), percentile(sorted, 0.99), tomcatThreads, poolSize, BACKEND_LATENCY_MS);
+    }
+    
+    /**
+     * Cliente bloqueante con una conexión keep-alive por cliente (http.maxConnections): el HttpClient
+     * del JDK comparte un único selector entre todos los clientes y pasaba a ser el cuello de botella
+     */
+    private static void send(URL url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            if (connection.getResponseCode() != 200) {
+                throw new IllegalStateException("Unexpected status " + connection.getResponseCode());
+            }
+            try (InputStream body = connection.getInputStream()) {
+                body.readAllBytes();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static double percentile(List<Long> sorted, double percentile) {
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1)) / 1e6;
+    }
+    
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({
+        ServletWebServerFactoryAutoConfiguration.class,
+        EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+        DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class,
+        HttpMessageConvertersAutoConfiguration.class,
+        JacksonAutoConfiguration.class
+    })
+    @Import({TimelineController.class, AsyncTimelineController.class, AsyncTimelineService.class, AsyncRequestExecutor.class,
+        GlobalExceptionHandler.class})
+    static class LoadTestApplication {
+        
+        /**
+         * TimelineService con la latencia de una lectura real (bloqueante). Es una subclase y no un mock:
+         * la búsqueda del stub de Mockito es sincronizada y serializaba las lecturas
+         */
+        @Bean
+        TimelineService timelineService() {
+            return new TimelineService(null, null, null, null, null, null, null, new NoOpCacheManager(), new SimpleMeterRegistry()) {
+                @Override
+                public List<Tweet> getUserTimeline(String userId, int limit) {
+                    try {
+                        Thread.sleep(BACKEND_LATENCY_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return List.of();
+                }
+                
+                @Override
+                public String nextCursor(List<Tweet> tweets, int limit) {
+                    return null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.uala.microblog.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.uala.microblog.application.service.TweetBodyCache;
+import com.uala.microblog.application.service.TweetService;
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.entity.User;
+import com.uala.microblog.infrastructure.adapter.TweetRepositoryAdapter;
+import com.uala.microblog.infrastructure.adapter.UserRepositoryAdapter;
+import com.uala.microblog.infrastructure.messaging.FanoutMessageService;
+import com.uala.microblog.infrastructure.repository.MongoTweetRepository;
+import com.uala.microblog.infrastructure.repository.MongoUserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark de ingesta contra un MongoDB local (docker-compose.dev.yml).
+ * Compara N llamadas a createTweet (un findById y un insert por tweet) con createTweets en batches
+ * (un $in de autores y un insertMany por batch). La publicación AMQP se reemplaza por un mock.
+ *
+ * mvn test -Dtest=TweetIngestionBenchmark -Dbenchmark=true [-Dbenchmark.tweets=10000] [-Dbenchmark.batch=100]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Tweet Ingestion Benchmark")
+class TweetIngestionBenchmark {
+    
+    private static final String DATABASE = "microblog_benchmark";
+    private static final int AUTHORS = 50;
+    
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private TweetService tweetService;
+    private List<String> authorIds;
+    
+    @BeforeAll
+    void setUp() {
+        mongoClient = MongoClients.create(System.getProperty("mongodb.uri", "mongodb://localhost:27017"));
+        mongoTemplate = new MongoTemplate(mongoClient, DATABASE);
+        mongoTemplate.getDb().drop();
+        
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        UserRepositoryAdapter userRepository = new UserRepositoryAdapter(factory.getRepository(MongoUserRepository.class));
+        TweetRepositoryAdapter tweetRepository = new TweetRepositoryAdapter(factory.getRepository(MongoTweetRepository.class));
+        
+        tweetService = new TweetService(tweetRepository, userRepository,
+            Mockito.mock(FanoutMessageService.class), Mockito.mock(TweetBodyCache.class));
+        
+        authorIds = new ArrayList<>(AUTHORS);
+        for (int i = 0; i < AUTHORS; i++) {
+            authorIds.add(userRepository.save(new User("bench_author_" + i, "bench" + i + "@example.com")).getId());
+        }
+    }
+    
+    @AfterAll
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        mongoClient.close();
+    }
+    
+    @Test
+    @DisplayName("Batch ingestion vs one request per tweet")
+    void compareIngestionPaths() {
+        int tweets = Integer.getInteger("benchmark.tweets", 10_000);
+        int batchSize = Integer.getInteger("benchmark.batch", 100);
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < tweets; i++) {
+            tweetService.createTweet("Single tweet " + i, authorIds.get(i % AUTHORS));
+        }
+        report("single", tweets, System.nanoTime() - start);
+        
+        start = System.nanoTime();
+        for (int from = 0; from < tweets; from += batchSize) {
+            List<Tweet> drafts = new ArrayList<>(batchSize);
+            for (int i = from; i < Math.min(from + batchSize, tweets); i++) {
+                drafts.add(new Tweet("Batch tweet " + i, authorIds.get(i % AUTHORS)));
+            }
+            tweetService.createTweets(drafts);
+        }
+        report("batch-" + batchSize, tweets, System.nanoTime() - start);
+    }
+    
+    private static void report(String path, int tweets, long elapsedNanos) {
+        System.out.printf("%-10s %6d tweets in %7.1f ms (%8.0f tweets/s)%n",
+            path, tweets, elapsedNanos / 1e6, tweets / (elapsedNanos / 1e9));
+    }
+}
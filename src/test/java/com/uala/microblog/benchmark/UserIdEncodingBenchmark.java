@@ -0,0 +1,132 @@
+package com.uala.microblog.benchmark;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark JMH de los buckets de seguidores con IDs de usuario (ObjectId de 24 caracteres) vs
+ * códigos enteros de UserIdDictionary. Imprime los bytes BSON por bucket y el heap de una lista de
+ * 1M de seguidores en cada formato; mide la decodificación de un bucket de 1000 seguidores.
+ *
+ * mvn test -Dtest=UserIdEncodingBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("User Id Encoding Benchmark")
+public class UserIdEncodingBenchmark {
+    
+    private static final int BUCKET_SIZE = 1000;
+    private static final int FOLLOWERS = 1_000_000;
+    
+    @Test
+    @DisplayName("Follower buckets with string IDs vs integer codes: bytes and decode time")
+    void compareEncodings() throws RunnerException {
+        BucketState state = new BucketState();
+        state.setUp();
+        int stringBytes = state.stringBucket.getByteBuffer().remaining();
+        int codeBytes = state.codeBucket.getByteBuffer().remaining();
+        System.out.printf("bucket (%d followers): ids=%d bytes, codes=%d bytes (%.1fx)%n",
+            BUCKET_SIZE, stringBytes, codeBytes, (double) stringBytes / codeBytes);
+        
+        long stringHeap = retainedHeap(() -> {
+            List<String> ids = new ArrayList<>(FOLLOWERS);
+            for (int i = 0; i < FOLLOWERS; i++) {
+                ids.add(new ObjectId().toHexString());
+            }
+            return ids;
+        });
+        long codeHeap = retainedHeap(() -> {
+            int[] codes = new int[FOLLOWERS];
+            for (int i = 0; i < FOLLOWERS; i++) {
+                codes[i] = i;
+            }
+            return codes;
+        });
+        System.out.printf("heap (%d followers): List<String>=%d KB, int[]=%d KB, saved=%d KB%n",
+            FOLLOWERS, stringHeap / 1024, codeHeap / 1024, (stringHeap - codeHeap) / 1024);
+        
+        new Runner(new OptionsBuilder()
+            .include(UserIdEncodingBenchmark.class.getName() + ".*")
+            .build()).run();
+    }
+    
+    /**
+     * Heap usado tras construir el objeto, medido entre dos GC (aproximado)
+     */
+    private static long retainedHeap(Supplier<Object> allocation) {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        Object retained = allocation.get();
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+    
+    @State(Scope.Benchmark)
+    public static class BucketState {
+        
+        final DocumentCodec codec = new DocumentCodec();
+        RawBsonDocument stringBucket;
+        RawBsonDocument codeBucket;
+        
+        @Setup
+        public void setUp() {
+            List<String> ids = new ArrayList<>(BUCKET_SIZE);
+            List<Integer> codes = new ArrayList<>(BUCKET_SIZE);
+            for (int i = 0; i < BUCKET_SIZE; i++) {
+                ids.add(new ObjectId().toHexString());
+                codes.add(i);
+            }
+            String userId = new ObjectId().toHexString();
+            stringBucket = new RawBsonDocument(new Document("_id", new ObjectId()).append("user_id", userId)
+                .append("follower_ids", ids).append("count", BUCKET_SIZE), codec);
+            codeBucket = new RawBsonDocument(new Document("_id", new ObjectId()).append("user_id", userId)
+                .append("follower_codes", codes).append("count", BUCKET_SIZE), codec);
+        }
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public Document decodeIdBucket(BucketState state) {
+        return state.stringBucket.decode(state.codec);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public Document decodeCodeBucket(BucketState state) {
+        return state.codeBucket.decode(state.codec);
+    }
+}
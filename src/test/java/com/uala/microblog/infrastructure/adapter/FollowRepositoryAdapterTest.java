@@ -0,0 +1,53 @@
+package com.uala.microblog.infrastructure.adapter;
+
+import com.uala.microblog.domain.entity.Follow;
+import com.uala.microblog.infrastructure.document.FollowDocument;
+import com.uala.microblog.infrastructure.repository.MongoFollowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Follow Repository Adapter Tests")
+class FollowRepositoryAdapterTest {
+    
+    @Mock
+    private MongoFollowRepository mongoFollowRepository;
+    
+    @Mock
+    private FollowerGraphStore followerGraphStore;
+    
+    private FollowRepositoryAdapter followRepositoryAdapter;
+    
+    @BeforeEach
+    void setUp() {
+        followRepositoryAdapter = new FollowRepositoryAdapter(mongoFollowRepository, followerGraphStore);
+    }
+    
+    @Test
+    @DisplayName("Should undo the follow edge when the follower cannot be added to the buckets")
+    void testSave_UndoesEdgeWhenBucketWriteFails() {
+        
+        when(mongoFollowRepository.save(any(FollowDocument.class))).thenAnswer(invocation -> {
+            FollowDocument document = invocation.getArgument(0);
+            document.setId("follow-1");
+            return document;
+        });
+        doThrow(new DataAccessResourceFailureException("bucket write failed"))
+            .when(followerGraphStore).addFollower("author", "follower");
+        
+        assertThrows(DataAccessResourceFailureException.class,
+            () -> followRepositoryAdapter.save(new Follow("follower", "author")));
+        
+        verify(followerGraphStore).removeFollower("author", "follower");
+        verify(mongoFollowRepository).deleteByFollowerIdAndFollowedId("follower", "author");
+    }
+}
@@ -0,0 +1,106 @@
+package com.uala.microblog.infrastructure.adapter;
+
+import com.uala.microblog.infrastructure.document.FollowDocument;
+import com.uala.microblog.infrastructure.document.FollowerBucketDocument;
+import com.uala.microblog.infrastructure.repository.MongoFollowRepository;
+import com.uala.microblog.infrastructure.repository.MongoFollowerBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Follower Graph Store Tests")
+class FollowerGraphStoreTest {
+    
+    @Mock
+    private MongoFollowerBucketRepository bucketRepository;
+    
+    @Mock
+    private MongoFollowRepository mongoFollowRepository;
+    
+    @Mock
+    private UserIdDictionary userIdDictionary;
+    
+    private FollowerGraphStore followerGraphStore;
+    
+    @BeforeEach
+    void setUp() {
+        followerGraphStore = new FollowerGraphStore(bucketRepository, mongoFollowRepository, userIdDictionary, 2);
+    }
+    
+    @Test
+    @DisplayName("Should merge the buckets into a sorted, duplicate-free follower list without touching the follow edges")
+    void testGetFollowerIds_MergesBuckets() {
+        
+        when(bucketRepository.streamByUserId("author")).thenReturn(Stream.of(
+            new FollowerBucketDocument("author", new int[] { 3, 1 }),
+            new FollowerBucketDocument("author", new int[] { 2, 1 })));
+        when(userIdDictionary.idOf(anyInt())).thenAnswer(invocation -> "f" + invocation.getArgument(0));
+        when(userIdDictionary.codeOf(anyString())).thenAnswer(invocation ->
+            Integer.valueOf(((String) invocation.getArgument(0)).substring(1)));
+        
+        List<String> followerIds = followerGraphStore.getFollowerIds("author");
+        
+        assertEquals(List.of("f1", "f2", "f3"), followerIds);
+        assertTrue(followerIds.contains("f2"));
+        assertFalse(followerIds.contains("f4"));
+        assertThrows(UnsupportedOperationException.class, () -> followerIds.add("f5"));
+        verify(userIdDictionary).load(new int[] { 1, 1, 2, 3 });
+        verifyNoInteractions(mongoFollowRepository);
+    }
+    
+    @Test
+    @DisplayName("Should build the buckets from the follow edges when the user has none yet")
+    @SuppressWarnings("unchecked")
+    void testForEachFollowerBatch_BackfillsFromEdges() {
+        
+        when(bucketRepository.streamByUserId("author")).thenReturn(Stream.empty());
+        when(mongoFollowRepository.countByFollowedId("author")).thenReturn(3L);
+        when(mongoFollowRepository.streamFollowerIdsByFollowedId("author")).thenReturn(
+            IntStream.rangeClosed(1, 3).mapToObj(i -> new FollowDocument("f" + i, "author", LocalDateTime.now())));
+        when(userIdDictionary.encodeAll(List.of("f1", "f2"))).thenReturn(new int[] { 1, 2 });
+        when(userIdDictionary.encodeAll(List.of("f3"))).thenReturn(new int[] { 3 });
+        
+        List<int[]> batches = new ArrayList<>();
+        followerGraphStore.forEachFollowerBatch("author", batches::add);
+        
+        assertArrayEquals(new int[] { 1, 2 }, batches.get(0));
+        assertArrayEquals(new int[] { 3 }, batches.get(1));
+        ArgumentCaptor<List<FollowerBucketDocument>> saved = ArgumentCaptor.forClass(List.class);
+        verify(bucketRepository).saveAll(saved.capture());
+        assertEquals(List.of(2, 1), saved.getValue().stream().map(FollowerBucketDocument::getCount).toList());
+    }
+    
+    @Test
+    @DisplayName("Should open a new bucket when the open one was filled concurrently")
+    void testAddFollower_OpensNewBucketWhenFull() {
+        
+        FollowerBucketDocument open = new FollowerBucketDocument("author", new int[] { 1 });
+        open.setId("bucket-1");
+        when(userIdDictionary.encode("f2")).thenReturn(2);
+        when(bucketRepository.findOpenBuckets("author", 2, Limit.of(1))).thenReturn(List.of(open));
+        when(bucketRepository.appendFollower("bucket-1", 2, 2)).thenReturn(0L);
+        when(bucketRepository.existsByUserId("author")).thenReturn(true);
+        
+        followerGraphStore.addFollower("author", "f2");
+        
+        verify(bucketRepository).save(argThat(bucket -> Arrays.equals(bucket.getFollowerCodes(), new int[] { 2 })));
+        verify(mongoFollowRepository, never()).streamFollowerIdsByFollowedId(any());
+    }
+}
@@ -0,0 +1,131 @@
+package com.uala.microblog.infrastructure.adapter;
+
+import com.uala.microblog.infrastructure.document.CounterDocument;
+import com.uala.microblog.infrastructure.document.UserIdCodeDocument;
+import com.uala.microblog.infrastructure.repository.MongoUserIdCodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("User Id Dictionary Tests")
+class UserIdDictionaryTest {
+    
+    @Mock
+    private MongoUserIdCodeRepository codeRepository;
+    
+    @Mock
+    private MongoOperations mongoOperations;
+    
+    @Mock
+    private IndexOperations indexOperations;
+    
+    private UserIdDictionary userIdDictionary;
+    
+    @BeforeEach
+    void setUp() {
+        userIdDictionary = new UserIdDictionary(codeRepository, mongoOperations);
+    }
+    
+    @Test
+    @DisplayName("Should assign a reserved range of codes and serve them from memory afterwards")
+    @SuppressWarnings("unchecked")
+    void testEncodeAll_AssignsMissingCodes() {
+        
+        when(codeRepository.findAllById(List.of("user-1", "user-2", "user-3")))
+            .thenReturn(List.of(new UserIdCodeDocument("user-2", 7)));
+        when(mongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(CounterDocument.class)))
+            .thenReturn(counter(12));
+        when(codeRepository.insert(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        int[] codes = userIdDictionary.encodeAll(List.of("user-1", "user-2", "user-3", "user-1"));
+        
+        assertArrayEquals(new int[] { 10, 7, 11, 10 }, codes);
+        assertEquals(11, userIdDictionary.encode("user-3"));
+        assertEquals(List.of("user-1", "user-2", "user-3"), userIdDictionary.decodeAll(new int[] { 10, 7, 11 }));
+        verify(codeRepository, times(1)).findAllById(any());
+        verify(codeRepository, never()).findByCodeIn(any());
+    }
+    
+    @Test
+    @DisplayName("Should load codes assigned by other nodes and skip unknown ones when decoding")
+    void testDecodeAll_LoadsUnknownCodes() {
+        
+        when(codeRepository.findByCodeIn(List.of(3, 5000)))
+            .thenReturn(List.of(new UserIdCodeDocument("user-3", 3)));
+        
+        List<String> userIds = userIdDictionary.decodeAll(new int[] { 3, 5000 });
+        
+        assertEquals(List.of("user-3"), userIds);
+        assertEquals(3, userIdDictionary.encode("user-3"));
+    }
+    
+    @Test
+    @DisplayName("Should resolve users assigned concurrently by another node one by one")
+    void testEncodeAll_ConcurrentAssignment() {
+        
+        when(codeRepository.findAllById(List.of("user-1", "user-2"))).thenReturn(List.of());
+        when(mongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(CounterDocument.class)))
+            .thenReturn(counter(22), counter(23));
+        when(codeRepository.insert(anyList())).thenThrow(new DuplicateKeyException("user-1"));
+        when(codeRepository.findById("user-1")).thenReturn(Optional.of(new UserIdCodeDocument("user-1", 5)));
+        when(codeRepository.findById("user-2")).thenReturn(Optional.empty());
+        when(codeRepository.insert(any(UserIdCodeDocument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        int[] codes = userIdDictionary.encodeAll(List.of("user-1", "user-2"));
+        
+        assertArrayEquals(new int[] { 5, 22 }, codes);
+    }
+    
+    @Test
+    @DisplayName("Should fail at startup when the unique code index is missing")
+    void testAfterPropertiesSet_MissingIndex() {
+        
+        when(mongoOperations.indexOps(UserIdCodeDocument.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(
+            new IndexInfo(List.of(IndexField.create("code", Sort.Direction.ASC)), "code_1", false, false, "")));
+        
+        assertThrows(IllegalStateException.class, () -> userIdDictionary.afterPropertiesSet());
+        verify(mongoOperations, never()).upsert(any(Query.class), any(Update.class), eq(CounterDocument.class));
+    }
+    
+    @Test
+    @DisplayName("Should raise the code counter above the last assigned code at startup")
+    void testAfterPropertiesSet_InitializesCounter() {
+        
+        when(mongoOperations.indexOps(UserIdCodeDocument.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(
+            new IndexInfo(List.of(IndexField.create("code", Sort.Direction.ASC)), "code_1", true, false, "")));
+        when(codeRepository.findFirstByOrderByCodeDesc()).thenReturn(Optional.of(new UserIdCodeDocument("other", 9)));
+        
+        userIdDictionary.afterPropertiesSet();
+        
+        verify(mongoOperations).upsert(any(Query.class), eq(new Update().max(CounterDocument.VALUE, 10)), eq(CounterDocument.class));
+    }
+    
+    private static CounterDocument counter(long value) {
+        CounterDocument counter = new CounterDocument();
+        counter.setId(UserIdDictionary.CODE_COUNTER_ID);
+        counter.setValue(value);
+        return counter;
+    }
+}
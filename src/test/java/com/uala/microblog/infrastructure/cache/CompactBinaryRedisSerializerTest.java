@@ -0,0 +1,137 @@
+package com.uala.microblog.infrastructure.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Compact Binary Redis Serializer Tests")
+class CompactBinaryRedisSerializerTest {
+    
+    private GenericJackson2JsonRedisSerializer jsonSerializer;
+    private CompactBinaryRedisSerializer serializer;
+    
+    @BeforeEach
+    void setUp() {
+        jsonSerializer = new GenericJackson2JsonRedisSerializer(new ObjectMapper().registerModule(new JavaTimeModule()));
+        serializer = new CompactBinaryRedisSerializer(jsonSerializer);
+    }
+    
+    @Test
+    @DisplayName("Should round-trip a tweet in fewer bytes than JSON")
+    void testTweetRoundTrip() {
+        
+        Tweet tweet = new Tweet("507f1f77bcf86cd799439011", "Hola mundo ñ", "507f1f77bcf86cd799439012",
+            LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123456789));
+        
+        
+        byte[] bytes = serializer.serialize(tweet);
+        Tweet result = (Tweet) serializer.deserialize(bytes);
+        
+        
+        assertEquals(CompactBinaryRedisSerializer.FORMAT_V1, bytes[0]);
+        assertEquals(tweet.getId(), result.getId());
+        assertEquals(tweet.getUserId(), result.getUserId());
+        assertEquals(tweet.getContent(), result.getContent());
+        assertEquals(tweet.getCreatedAt(), result.getCreatedAt());
+        assertTrue(bytes.length * 2 < jsonSerializer.serialize(tweet).length);
+    }
+    
+    @Test
+    @DisplayName("Should round-trip a user with null fields")
+    void testUserRoundTrip() {
+        
+        User user = new User(null, "john_doe", "john@example.com", null);
+        
+        
+        User result = (User) serializer.deserialize(serializer.serialize(user));
+        
+        
+        assertNull(result.getId());
+        assertEquals("john_doe", result.getUsername());
+        assertEquals("john@example.com", result.getEmail());
+        assertNull(result.getCreatedAt());
+    }
+    
+    @Test
+    @DisplayName("Should round-trip tweet IDs and follow-ID lists")
+    void testIdsRoundTrip() {
+        
+        List<String> followIds = List.of("507f1f77bcf86cd799439011", "not-an-object-id", "507F1F77BCF86CD799439011");
+        
+        
+        assertEquals("507f1f77bcf86cd799439011", serializer.deserialize(serializer.serialize("507f1f77bcf86cd799439011")));
+        assertEquals(followIds, serializer.deserialize(serializer.serialize(followIds)));
+        assertEquals(List.of(), serializer.deserialize(serializer.serialize(List.of())));
+    }
+    
+    @Test
+    @DisplayName("Should read entries written by the JSON serializer during migration")
+    void testReadsLegacyJson() {
+        
+        Tweet tweet = new Tweet("507f1f77bcf86cd799439011", "Legacy", "507f1f77bcf86cd799439012", LocalDateTime.now());
+        
+        
+        Object result = serializer.deserialize(jsonSerializer.serialize(tweet));
+        
+        
+        assertInstanceOf(Map.class, result);
+        assertEquals("Legacy", ((Map<?, ?>) result).get("content"));
+        assertEquals(List.of("a", "b"), serializer.deserialize(jsonSerializer.serialize(List.of("a", "b"))));
+    }
+    
+    @Test
+    @DisplayName("Should remove with the binary serializer a sorted-set member written with the JSON serializer")
+    void testSortedSetMemberWrittenWithJsonRemovedWithBinary() {
+        
+        String tweetId = "507f1f77bcf86cd799439011";
+        Set<ByteBuffer> timelineMembers = new HashSet<>();
+        
+        
+        timelineMembers.add(ByteBuffer.wrap(jsonSerializer.serialize(tweetId)));
+        boolean removed = timelineMembers.remove(ByteBuffer.wrap(serializer.serialize(tweetId)));
+        
+        
+        assertTrue(removed);
+        assertTrue(timelineMembers.isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Should delegate unsupported values to the JSON serializer")
+    void testFallbackToJson() {
+        
+        Map<String, Object> stats = Map.of("tweets", 3);
+        
+        
+        byte[] bytes = serializer.serialize(stats);
+        
+        
+        assertArrayEquals(jsonSerializer.serialize(stats), bytes);
+        assertEquals(stats, serializer.deserialize(bytes));
+    }
+    
+    @Test
+    @DisplayName("Should reject truncated binary entries")
+    void testTruncatedEntry() {
+        
+        byte[] bytes = serializer.serialize(new Tweet("507f1f77bcf86cd799439011", "Hello", "user", LocalDateTime.now()));
+        
+        
+        assertThrows(SerializationException.class, () -> serializer.deserialize(Arrays.copyOf(bytes, 8)));
+    }
+}
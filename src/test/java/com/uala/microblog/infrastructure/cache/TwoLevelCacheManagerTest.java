@@ -0,0 +1,216 @@
+package com.uala.microblog.infrastructure.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Two Level Cache Manager Tests")
+class TwoLevelCacheManagerTest {
+    
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private TwoLevelCacheManager cacheManager;
+    
+    @BeforeEach
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager();
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoLevelCacheManager(remoteCacheManager, redisTemplate, meterRegistry,
+            Map.of("timeline", Duration.ofSeconds(5)), 100, Duration.ofMinutes(1), Duration.ZERO);
+    }
+    
+    @Test
+    @DisplayName("Should serve L1 hits without reading the remote cache")
+    void testLocalHit() {
+        
+        Cache cache = cacheManager.getCache("follows");
+        cache.put("user-1", List.of("user-2"));
+        remoteCacheManager.getCache("follows").evict("user-1");
+        
+        
+        Cache.ValueWrapper value = cache.get("user-1");
+        
+        
+        assertEquals(List.of("user-2"), value.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "follows", "result", "hit").functionCounter().count());
+    }
+    
+    @Test
+    @DisplayName("Should populate L1 from the remote cache on a local miss")
+    void testRemoteHit() {
+        
+        remoteCacheManager.getCache("follows").put("user-1", List.of("user-3"));
+        Cache cache = cacheManager.getCache("follows");
+        
+        
+        assertEquals(List.of("user-3"), cache.get("user-1").get());
+        remoteCacheManager.getCache("follows").evict("user-1");
+        assertEquals(List.of("user-3"), cache.get("user-1").get());
+    }
+    
+    @Test
+    @DisplayName("Should publish evictions and drop L1 entries evicted by other nodes")
+    void testCrossNodeInvalidation() {
+        
+        Cache cache = cacheManager.getCache("follows");
+        cache.put("user-1", List.of("user-2"));
+        
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), published.capture());
+        
+        
+        cacheManager.onMessage(message(published.getValue()), null);
+        assertNotNull(cache.get("user-1"));
+        
+        remoteCacheManager.getCache("follows").evict("user-1");
+        cacheManager.onMessage(message("E\nother-node\nfollows\nuser-1"), null);
+        
+        
+        assertNull(cache.get("user-1"));
+    }
+    
+    @Test
+    @DisplayName("Should keep local-only caches out of the remote cache and not publish their puts")
+    void testLocalOnlyCache() {
+        
+        Cache cache = cacheManager.getCache("timeline");
+        
+        
+        cache.put("user-1", "snapshot");
+        
+        
+        assertEquals("snapshot", cache.get("user-1").get());
+        assertFalse(remoteCacheManager.getCacheNames().contains("timeline"));
+        verifyNoInteractions(redisTemplate);
+        
+        cache.evict("user-1");
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), published.capture());
+        assertTrue(published.getValue().startsWith("E\n"));
+        assertTrue(published.getValue().endsWith("\ntimeline\nuser-1"));
+        assertNull(cache.get("user-1"));
+    }
+    
+    @Test
+    @DisplayName("Should evict a batch of keys with a single published invalidation")
+    void testEvictAll() {
+        
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache("timeline");
+        cache.put("user-1", "snapshot-1");
+        cache.put("user-2", "snapshot-2");
+        cache.put("user-3", "snapshot-3");
+        
+        
+        cache.evictAll(List.of("user-1", "user-2"));
+        cacheManager.onMessage(message("M\nother-node\ntimeline\nuser-3\nuser-4"), null);
+        
+        
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), published.capture());
+        assertTrue(published.getValue().startsWith("M\n"));
+        assertTrue(published.getValue().endsWith("\ntimeline\nuser-1\nuser-2"));
+        assertNull(cache.get("user-1"));
+        assertNull(cache.get("user-2"));
+        assertNull(cache.get("user-3"));
+    }
+    
+    @Test
+    @DisplayName("Should serve the current value and re-read the remote cache in the background when L1 is close to expiring")
+    void testStaleWhileRevalidate() throws Exception {
+        
+        TwoLevelCacheManager refreshingManager = new TwoLevelCacheManager(remoteCacheManager, redisTemplate, meterRegistry,
+            Map.of(), 100, Duration.ofMinutes(1), Duration.ofDays(365));
+        Cache cache = refreshingManager.getCache("follows");
+        cache.get("user-1", () -> List.of("user-2"));
+        remoteCacheManager.getCache("follows").put("user-1", List.of("user-3"));
+        AtomicInteger loads = new AtomicInteger();
+        
+        
+        Object served = cache.get("user-1", () -> List.of("user-" + loads.incrementAndGet()));
+        
+        
+        assertEquals(List.of("user-2"), served);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!List.of("user-3").equals(cache.get("user-1").get()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("user-3"), cache.get("user-1").get());
+        assertEquals(0, loads.get());
+        refreshingManager.destroy();
+    }
+    
+    @Test
+    @DisplayName("Should reload from the loader when the remote entry is close to expiring")
+    void testStaleWhileRevalidate_RemoteExpiring() {
+        
+        RedisCache redisCache = mock(RedisCache.class);
+        CacheManager redisCacheManager = mock(CacheManager.class);
+        when(redisCacheManager.getCache("follows")).thenReturn(redisCache);
+        when(redisCache.getName()).thenReturn("follows");
+        when(redisCache.getCacheConfiguration()).thenReturn(RedisCacheConfiguration.defaultCacheConfig());
+        when(redisCache.get("user-1")).thenReturn(new SimpleValueWrapper(List.of("user-2")));
+        when(redisTemplate.getExpire("follows::user-1", TimeUnit.MILLISECONDS)).thenReturn(1L);
+        TwoLevelCacheManager refreshingManager = new TwoLevelCacheManager(redisCacheManager, redisTemplate, meterRegistry,
+            Map.of(), 100, Duration.ofMinutes(1), Duration.ofDays(365));
+        Cache cache = refreshingManager.getCache("follows");
+        cache.put("user-1", List.of("user-2"));
+        
+        
+        Object served = cache.get("user-1", () -> List.of("user-3"));
+        
+        
+        assertEquals(List.of("user-2"), served);
+        verify(redisCache, timeout(5000)).put("user-1", List.of("user-3"));
+        refreshingManager.destroy();
+    }
+    
+    @Test
+    @DisplayName("Should refresh early with a probability that grows as expiration approaches")
+    void testEarlyRefreshProbability() {
+        
+        int nearExpiry = 0;
+        int farFromExpiry = 0;
+        for (int i = 0; i < 10_000; i++) {
+            nearExpiry += EarlyRefresh.shouldRefresh(100, 10_000) ? 1 : 0;
+            farFromExpiry += EarlyRefresh.shouldRefresh(100_000, 10_000) ? 1 : 0;
+        }
+        
+        
+        assertTrue(nearExpiry > 9_500);
+        assertTrue(farFromExpiry < 50);
+        assertFalse(EarlyRefresh.shouldRefresh(100, 0));
+    }
+    
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TwoLevelCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+            body.getBytes(StandardCharsets.UTF_8));
+    }
+}
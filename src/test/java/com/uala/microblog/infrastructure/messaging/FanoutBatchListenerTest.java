@@ -0,0 +1,147 @@
+package com.uala.microblog.infrastructure.messaging;
+
+import com.rabbitmq.client.Channel;
+import com.uala.microblog.infrastructure.config.RabbitMQConfig;
+import com.uala.microblog.infrastructure.messaging.dto.FanoutMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Fanout Batch Listener Tests")
+class FanoutBatchListenerTest {
+    
+    @Mock
+    private FanoutMessageService fanoutMessageService;
+    
+    @Mock
+    private Channel channel;
+    
+    private SimpleMeterRegistry meterRegistry;
+    private FanoutBatchListener listener;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new FanoutBatchListener(fanoutMessageService, meterRegistry);
+    }
+    
+    @Test
+    @DisplayName("Should process the batch and acknowledge it with a single multiple ack")
+    void testOnFanoutBatch_AcksWholeBatch() throws Exception {
+        
+        FanoutMessage first = new FanoutMessage("tweet-1", "author", "Hello", LocalDateTime.now());
+        FanoutMessage second = new FanoutMessage("tweet-2", "author", "World", LocalDateTime.now());
+        
+        
+        listener.onFanoutBatch(List.of(delivery(first, 5), delivery(second, 6)), channel);
+        
+        
+        verify(fanoutMessageService).processFanoutMessages(List.of(first, second));
+        verify(channel).basicAck(6, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+        assertEquals(2.0, meterRegistry.get("microblog.fanout.consumer.batch.size").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("microblog.fanout.consumer.ack.latency").timer().count());
+    }
+    
+    @Test
+    @DisplayName("Should retry a failed batch message by message, acking the good ones and requeueing the failing one")
+    void testOnFanoutBatch_FailureRequeuesOnlyFailingMessage() throws Exception {
+        
+        FanoutMessage good = new FanoutMessage("tweet-1", "author", "Hello", LocalDateTime.now());
+        FanoutMessage poison = new FanoutMessage("tweet-2", "author", "World", LocalDateTime.now());
+        doAnswer(invocation -> {
+            if (((List<?>) invocation.getArgument(0)).contains(poison)) {
+                throw new IllegalStateException("bad message");
+            }
+            return null;
+        }).when(fanoutMessageService).processFanoutMessages(anyList());
+        
+        
+        listener.onFanoutBatch(List.of(delivery(good, 5), delivery(poison, 6)), channel);
+        
+        
+        verify(fanoutMessageService).processFanoutMessages(List.of(good));
+        verify(channel).basicAck(5, false);
+        verify(channel).basicNack(6, false, true);
+        verify(channel, never()).basicAck(anyLong(), eq(true));
+        verify(channel, never()).basicNack(anyLong(), eq(true), anyBoolean());
+    }
+    
+    @Test
+    @DisplayName("Should dead-letter a message whose redelivery fails again, through the fanout queue DLX")
+    void testOnFanoutBatch_RedeliveredFailureIsDeadLettered() throws Exception {
+        
+        FanoutMessage poison = new FanoutMessage("tweet-1", "author", "Hello", LocalDateTime.now());
+        doThrow(new IllegalStateException("bad message")).when(fanoutMessageService).processFanoutMessages(anyList());
+        Message<FanoutMessage> redelivery = MessageBuilder.fromMessage(delivery(poison, 9))
+            .setHeader(AmqpHeaders.REDELIVERED, true).build();
+        
+        RabbitMQConfig config = new RabbitMQConfig();
+        ReflectionTestUtils.setField(config, "fanoutQueueName", "microblog.fanout");
+        Map<String, Object> queueArguments = config.fanoutQueue().getArguments();
+        
+        
+        listener.onFanoutBatch(List.of(redelivery), channel);
+        
+        
+        verify(channel).basicNack(9, false, false);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        assertEquals(RabbitMQConfig.DEAD_LETTER_EXCHANGE, queueArguments.get("x-dead-letter-exchange"));
+        assertEquals(RabbitMQConfig.FANOUT_DEAD_LETTER_ROUTING_KEY, queueArguments.get("x-dead-letter-routing-key"));
+    }
+    
+    @Test
+    @DisplayName("Should size the fanout consumers from the queue depth within bounds")
+    void testTargetConsumers() {
+        
+        FanoutConsumerScaler scaler = new FanoutConsumerScaler(null, null, meterRegistry, 2, 8, 500, Duration.ofHours(1));
+        
+        
+        assertEquals(2, scaler.targetConsumers(0));
+        assertEquals(3, scaler.targetConsumers(1_200));
+        assertEquals(8, scaler.targetConsumers(1_000_000));
+    }
+    
+    @Test
+    @DisplayName("Should rescale from the depth already read by FanoutMetrics, without querying the broker")
+    void testRescale_UsesMetricsDepth() {
+        
+        RabbitListenerEndpointRegistry listenerRegistry = mock(RabbitListenerEndpointRegistry.class);
+        SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+        FanoutMetrics fanoutMetrics = mock(FanoutMetrics.class);
+        when(fanoutMetrics.laneDepth(FanoutMetrics.SMALL_LANE)).thenReturn(1_200L);
+        when(listenerRegistry.getListenerContainer(FanoutBatchListener.BATCH_LISTENER_ID)).thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+        FanoutConsumerScaler scaler = new FanoutConsumerScaler(listenerRegistry, fanoutMetrics, meterRegistry, 2, 8, 500, Duration.ofHours(1));
+        
+        
+        scaler.rescale();
+        
+        
+        verify(container).setConcurrentConsumers(3);
+    }
+    
+    private static Message<FanoutMessage> delivery(FanoutMessage payload, long deliveryTag) {
+        return MessageBuilder.withPayload(payload).setHeader(AmqpHeaders.DELIVERY_TAG, deliveryTag).build();
+    }
+}
@@ -0,0 +1,312 @@
+package com.uala.microblog.infrastructure.messaging;
+
+import com.uala.microblog.application.service.TimelineService;
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.port.TweetRepository;
+import com.uala.microblog.infrastructure.config.RabbitMQConfig;
+import com.uala.microblog.infrastructure.messaging.dto.FanoutBatchMessage;
+import com.uala.microblog.infrastructure.messaging.dto.FanoutMessage;
+import com.uala.microblog.infrastructure.messaging.dto.FanoutShardMessage;
+import com.uala.microblog.infrastructure.messaging.dto.TweetDeletionMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Fanout Message Service Tests")
+class FanoutMessageServiceTest {
+    
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+    
+    @Mock
+    private TimelineService timelineService;
+    
+    @Mock
+    private TweetRepository tweetRepository;
+    
+    @Mock
+    private FanoutOutbox fanoutOutbox;
+    
+    @Mock
+    private FanoutMetrics fanoutMetrics;
+    
+    @InjectMocks
+    private FanoutMessageService fanoutMessageService;
+    
+    private FanoutMessage message;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fanoutMessageService, "shardSize", 2);
+        ReflectionTestUtils.setField(fanoutMessageService, "largeFanoutThreshold", 1000L);
+        message = new FanoutMessage("tweet-1", "author", "Hello", LocalDateTime.now());
+    }
+    
+    @Test
+    @DisplayName("Should write small fanouts directly without publishing shards")
+    void testProcessFanoutMessage_BelowShardSize() {
+        
+        when(timelineService.prepareFanout(any(Tweet.class), anyLong())).thenReturn(List.of("follower-1", "author"));
+        
+        
+        fanoutMessageService.processFanoutMessage(message, null);
+        
+        
+        verify(timelineService).addTweetToTimelines(eq(List.of("follower-1", "author")), any(Tweet.class));
+        verifyNoInteractions(rabbitTemplate);
+    }
+    
+    @Test
+    @DisplayName("Should split large fanouts into follower-range shards")
+    void testProcessFanoutMessage_PublishesShards() {
+        
+        when(timelineService.prepareFanout(any(Tweet.class), anyLong()))
+            .thenReturn(List.of("follower-1", "follower-2", "follower-3", "follower-4", "author"));
+        
+        
+        fanoutMessageService.processFanoutMessage(message, null);
+        
+        
+        ArgumentCaptor<FanoutShardMessage> shards = ArgumentCaptor.forClass(FanoutShardMessage.class);
+        verify(rabbitTemplate, times(3)).convertAndSend(
+            eq(RabbitMQConfig.FANOUT_EXCHANGE), eq(RabbitMQConfig.FANOUT_SHARD_ROUTING_KEY), shards.capture());
+        verify(timelineService, never()).addTweetToTimelines(anyList(), any(Tweet.class));
+        
+        List<FanoutShardMessage> published = shards.getAllValues();
+        assertEquals(List.of("follower-1", "follower-2"), published.get(0).getRecipientIds());
+        assertEquals(List.of("follower-3", "follower-4"), published.get(1).getRecipientIds());
+        assertEquals(List.of("author"), published.get(2).getRecipientIds());
+        assertEquals(2, published.get(2).getShardIndex());
+        assertEquals(3, published.get(2).getShardCount());
+        assertEquals("tweet-1", published.get(0).getTweetId());
+    }
+    
+    @Test
+    @DisplayName("Should write the shard recipients to their timelines")
+    void testProcessFanoutShardMessage() {
+        
+        FanoutShardMessage shard = new FanoutShardMessage(message, List.of("follower-3", "follower-4"), 1, 3);
+        
+        
+        fanoutMessageService.processFanoutShardMessage(shard, null);
+        
+        
+        ArgumentCaptor<Tweet> tweet = ArgumentCaptor.forClass(Tweet.class);
+        verify(timelineService).addTweetToTimelines(eq(List.of("follower-3", "follower-4")), tweet.capture());
+        assertEquals("tweet-1", tweet.getValue().getId());
+        assertEquals("author", tweet.getValue().getUserId());
+    }
+    
+    @Test
+    @DisplayName("Should split a tweet deletion into batches of recipient timelines")
+    void testProcessTweetDeletion_PublishesBatches() {
+        
+        when(timelineService.prepareTweetRemoval("author", "tweet-1"))
+            .thenReturn(List.of("follower-1", "follower-2", "author"));
+        
+        
+        fanoutMessageService.processTweetDeletionMessage(new TweetDeletionMessage("tweet-1", "author", null));
+        
+        
+        ArgumentCaptor<TweetDeletionMessage> batches = ArgumentCaptor.forClass(TweetDeletionMessage.class);
+        verify(rabbitTemplate, times(2)).convertAndSend(
+            eq(RabbitMQConfig.FANOUT_EXCHANGE), eq(RabbitMQConfig.TWEET_DELETION_ROUTING_KEY), batches.capture());
+        assertEquals(List.of("follower-1", "follower-2"), batches.getAllValues().get(0).getRecipientIds());
+        assertEquals(List.of("author"), batches.getAllValues().get(1).getRecipientIds());
+        verify(timelineService, never()).removeTweetFromTimelines(anyList(), anyString());
+    }
+    
+    @Test
+    @DisplayName("Should remove the tweet from the timelines of a deletion batch")
+    void testProcessTweetDeletion_Batch() {
+        
+        fanoutMessageService.processTweetDeletionMessage(
+            new TweetDeletionMessage("tweet-1", "author", List.of("follower-1", "follower-2")));
+        
+        
+        verify(timelineService).removeTweetFromTimelines(List.of("follower-1", "follower-2"), "tweet-1");
+        verify(timelineService, never()).prepareTweetRemoval(anyString(), anyString());
+    }
+    
+    @Test
+    @DisplayName("Should resolve followers once and write all tweets of a grouped fanout together")
+    @SuppressWarnings("unchecked")
+    void testProcessFanoutBatchMessage_WritesGroupedTweets() {
+        
+        ReflectionTestUtils.setField(fanoutMessageService, "shardSize", 10);
+        FanoutMessage second = new FanoutMessage("tweet-2", "author", "World", LocalDateTime.now());
+        when(timelineService.prepareBatchFanout(eq("author"), anyList())).thenReturn(List.of("follower-1", "author"));
+        
+        
+        fanoutMessageService.processFanoutBatchMessage(new FanoutBatchMessage("author", List.of(message, second)));
+        
+        
+        ArgumentCaptor<List<Tweet>> tweets = ArgumentCaptor.forClass(List.class);
+        verify(timelineService).prepareBatchFanout(eq("author"), anyList());
+        verify(timelineService).addTweetsToTimelines(eq(List.of("follower-1", "author")), tweets.capture());
+        assertEquals(List.of("tweet-1", "tweet-2"), tweets.getValue().stream().map(Tweet::getId).toList());
+        verify(timelineService, never()).addTweetToTimelines(anyList(), any(Tweet.class));
+        verifyNoInteractions(rabbitTemplate);
+    }
+    
+    @Test
+    @DisplayName("Should store request-path publications in the outbox instead of calling the broker")
+    void testSendFanoutMessage_UsesOutbox() {
+        
+        Tweet tweet = new Tweet("tweet-1", "Hello", "author", LocalDateTime.now());
+        
+        
+        fanoutMessageService.sendFanoutMessage(tweet);
+        fanoutMessageService.sendTweetDeletionMessage(tweet);
+        
+        
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(fanoutOutbox).enqueue(eq(RabbitMQConfig.FANOUT_ROUTING_KEY), payloads.capture());
+        verify(fanoutOutbox).enqueue(eq(RabbitMQConfig.TWEET_DELETION_ROUTING_KEY), payloads.capture());
+        assertEquals("tweet-1", ((FanoutMessage) payloads.getAllValues().get(0)).getTweetId());
+        assertEquals("tweet-1", ((TweetDeletionMessage) payloads.getAllValues().get(1)).getTweetId());
+        verify(tweetRepository).markFanoutPublished(List.of("tweet-1"));
+        verifyNoInteractions(rabbitTemplate);
+    }
+    
+    @Test
+    @DisplayName("Should leave the tweet fanout-pending when the outbox write fails")
+    void testSendFanoutMessage_OutboxFailureKeepsPending() {
+        
+        Tweet tweet = new Tweet("tweet-1", "Hello", "author", LocalDateTime.now());
+        doThrow(new RuntimeException("mongo down")).when(fanoutOutbox).enqueue(anyString(), any());
+        
+        
+        assertThrows(RuntimeException.class, () -> fanoutMessageService.sendFanoutMessage(tweet));
+        
+        
+        verify(tweetRepository, never()).markFanoutPublished(anyList());
+    }
+    
+    @Test
+    @DisplayName("Should group the tweets of a consumer batch by recipient timeline")
+    @SuppressWarnings("unchecked")
+    void testProcessFanoutMessages_CoalescesByRecipient() {
+        
+        FanoutMessage other = new FanoutMessage("tweet-2", "other-author", "World", LocalDateTime.now());
+        when(timelineService.prepareFanout(any(Tweet.class), anyLong())).thenAnswer(invocation -> {
+            Tweet tweet = invocation.getArgument(0);
+            return List.of("follower-1", tweet.getUserId());
+        });
+        
+        
+        fanoutMessageService.processFanoutMessages(List.of(message, other));
+        
+        
+        ArgumentCaptor<Map<String, List<Tweet>>> writes = ArgumentCaptor.forClass(Map.class);
+        verify(timelineService).addTweetsToTimelines(writes.capture());
+        Map<String, List<Tweet>> tweetsByRecipient = writes.getValue();
+        assertEquals(List.of("follower-1", "author", "other-author"), List.copyOf(tweetsByRecipient.keySet()));
+        assertEquals(List.of("tweet-1", "tweet-2"), tweetsByRecipient.get("follower-1").stream().map(Tweet::getId).toList());
+        assertEquals(List.of("tweet-1"), tweetsByRecipient.get("author").stream().map(Tweet::getId).toList());
+        verify(timelineService, never()).addTweetToTimelines(anyList(), any(Tweet.class));
+        verifyNoInteractions(rabbitTemplate);
+    }
+    
+    @Test
+    @DisplayName("Should publish the reroutes and shards of a consumer batch only after its timeline writes succeed")
+    void testProcessFanoutMessages_PublishesAfterWrites() {
+        
+        FanoutMessage large = new FanoutMessage("tweet-2", "celebrity", "World", LocalDateTime.now());
+        FanoutMessage sharded = new FanoutMessage("tweet-3", "popular", "Again", LocalDateTime.now());
+        message.setFollowersCount(1L);
+        large.setFollowersCount(5_000L);
+        sharded.setFollowersCount(2L);
+        when(timelineService.isLargePushFanout(anyLong(), eq(1000L))).thenAnswer(invocation -> (long) invocation.getArgument(0) >= 1000L);
+        when(timelineService.prepareFanout(any(Tweet.class), anyLong())).thenAnswer(invocation -> {
+            Tweet tweet = invocation.getArgument(0);
+            return "popular".equals(tweet.getUserId())
+                ? List.of("follower-1", "follower-2", "popular")
+                : List.of("follower-1", tweet.getUserId());
+        });
+        doThrow(new RuntimeException("redis down")).doNothing().when(timelineService).addTweetsToTimelines(anyMap());
+        
+        
+        assertThrows(RuntimeException.class, () -> fanoutMessageService.processFanoutMessages(List.of(message, large, sharded)));
+        verifyNoInteractions(rabbitTemplate);
+        
+        fanoutMessageService.processFanoutMessages(List.of(message, large, sharded));
+        
+        
+        verify(rabbitTemplate).convertAndSend(RabbitMQConfig.FANOUT_EXCHANGE, RabbitMQConfig.FANOUT_LARGE_ROUTING_KEY, large);
+        verify(rabbitTemplate, times(2)).convertAndSend(eq(RabbitMQConfig.FANOUT_EXCHANGE),
+            eq(RabbitMQConfig.FANOUT_SHARD_ROUTING_KEY), any(FanoutShardMessage.class));
+    }
+    
+    @Test
+    @DisplayName("Should not query followers on the request path: the fanout always goes to the small lane")
+    void testSendFanoutMessage_NoFollowerCount() {
+        
+        Tweet tweet = new Tweet("tweet-1", "Hello", "author", LocalDateTime.now());
+        
+        
+        fanoutMessageService.sendFanoutMessage(tweet);
+        
+        
+        ArgumentCaptor<FanoutMessage> published = ArgumentCaptor.forClass(FanoutMessage.class);
+        verify(fanoutOutbox).enqueue(eq(RabbitMQConfig.FANOUT_ROUTING_KEY), published.capture());
+        assertNull(published.getValue().getFollowersCount());
+        verifyNoInteractions(timelineService);
+    }
+    
+    @Test
+    @DisplayName("Should reroute authors with large push fanouts from the small lane to the large lane, counting followers once")
+    void testProcessFanoutMessage_ReroutesToLargeLane() {
+        
+        when(timelineService.countFollowers("author")).thenReturn(5_000L);
+        when(timelineService.isLargePushFanout(5_000L, 1000L)).thenReturn(true);
+        
+        
+        fanoutMessageService.processFanoutMessage(message, new Date());
+        
+        
+        ArgumentCaptor<FanoutMessage> rerouted = ArgumentCaptor.forClass(FanoutMessage.class);
+        verify(rabbitTemplate).convertAndSend(eq(RabbitMQConfig.FANOUT_EXCHANGE),
+            eq(RabbitMQConfig.FANOUT_LARGE_ROUTING_KEY), rerouted.capture());
+        assertEquals(5_000L, rerouted.getValue().getFollowersCount());
+        verify(timelineService, times(1)).countFollowers("author");
+        verify(timelineService, never()).prepareFanout(any(Tweet.class), anyLong());
+    }
+    
+    @Test
+    @DisplayName("Should record every fanout stage under the lane and follower bucket that processed it")
+    void testProcessLargeFanoutMessage_RecordsStageMetrics() {
+        
+        Date publishedAt = new Date();
+        message.setFollowersCount(1_500L);
+        when(timelineService.prepareFanout(any(Tweet.class), anyLong())).thenReturn(List.of("follower-1", "author"));
+        
+        
+        fanoutMessageService.processLargeFanoutMessage(message, publishedAt);
+        
+        
+        verify(timelineService).addTweetToTimelines(eq(List.of("follower-1", "author")), any(Tweet.class));
+        verify(fanoutMetrics, never()).recordPublished(any(), any(), any());
+        verify(fanoutMetrics).recordQueueWait(FanoutMetrics.LARGE_LANE, 1_500L, publishedAt);
+        verify(timelineService, never()).countFollowers(anyString());
+        verify(fanoutMetrics).recordWrite(eq(1_500L), eq(2), anyLong());
+        verify(fanoutMetrics).recordDelivery(FanoutMetrics.LARGE_LANE, 1_500L, message.getCreatedAt());
+    }
+}
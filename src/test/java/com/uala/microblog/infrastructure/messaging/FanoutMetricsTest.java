@@ -0,0 +1,95 @@
+package com.uala.microblog.infrastructure.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Fanout Metrics Tests")
+class FanoutMetricsTest {
+    
+    @Mock
+    private AmqpAdmin amqpAdmin;
+    
+    private SimpleMeterRegistry meterRegistry;
+    private FanoutMetrics fanoutMetrics;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fanoutMetrics = new FanoutMetrics(amqpAdmin, meterRegistry,
+            "microblog.fanout", "microblog.fanout.large", "microblog.fanout.shards", Duration.ofHours(1));
+    }
+    
+    @Test
+    @DisplayName("Should bucket fanouts by the author's follower count")
+    void testFollowersBucket() {
+        
+        assertEquals("unknown", FanoutMetrics.followersBucket(null));
+        assertEquals("0-99", FanoutMetrics.followersBucket(0L));
+        assertEquals("100-999", FanoutMetrics.followersBucket(100L));
+        assertEquals("1000-9999", FanoutMetrics.followersBucket(9_999L));
+        assertEquals("10000+", FanoutMetrics.followersBucket(250_000L));
+    }
+    
+    @Test
+    @DisplayName("Should split publish latency from queue wait using the AMQP publish timestamp")
+    void testRecordStages() {
+        
+        LocalDateTime createdAt = LocalDateTime.now().minusSeconds(3);
+        Date publishedAt = Date.from(createdAt.plusSeconds(2).atZone(ZoneId.systemDefault()).toInstant());
+        
+        
+        fanoutMetrics.recordPublished(50L, createdAt, publishedAt);
+        fanoutMetrics.recordQueueWait(FanoutMetrics.SMALL_LANE, 50L, publishedAt);
+        fanoutMetrics.recordWrite(50L, 10, 1_000_000);
+        fanoutMetrics.recordDelivery(FanoutMetrics.SMALL_LANE, 50L, createdAt);
+        
+        
+        double published = meterRegistry.get("microblog.fanout.publish.latency").tag("followers", "0-99")
+            .timer().totalTime(TimeUnit.MILLISECONDS);
+        double queueWait = meterRegistry.get("microblog.fanout.queue.wait").tags("lane", "small", "followers", "0-99")
+            .timer().totalTime(TimeUnit.MILLISECONDS);
+        double perRecipient = meterRegistry.get("microblog.fanout.write.per.recipient").tag("followers", "0-99")
+            .timer().totalTime(TimeUnit.NANOSECONDS);
+        double delivery = meterRegistry.get("microblog.fanout.delivery.latency").tags("lane", "small", "followers", "0-99")
+            .timer().totalTime(TimeUnit.MILLISECONDS);
+        assertEquals(2_000, published, 1);
+        assertTrue(queueWait >= 1_000 && queueWait < 2_000);
+        assertEquals(100_000, perRecipient);
+        assertTrue(delivery >= 3_000);
+    }
+    
+    @Test
+    @DisplayName("Should keep the last depth read of each lane, also when a read fails")
+    void testRefreshDepths() {
+        
+        when(amqpAdmin.getQueueInfo("microblog.fanout")).thenReturn(new QueueInformation("microblog.fanout", 1_200, 2));
+        when(amqpAdmin.getQueueInfo("microblog.fanout.large")).thenReturn(new QueueInformation("microblog.fanout.large", 30, 1));
+        when(amqpAdmin.getQueueInfo("microblog.fanout.shards")).thenThrow(new RuntimeException("broker down"));
+        
+        
+        fanoutMetrics.refreshDepths();
+        
+        
+        assertEquals(1_200, fanoutMetrics.laneDepth(FanoutMetrics.SMALL_LANE));
+        assertEquals(30, fanoutMetrics.laneDepth(FanoutMetrics.LARGE_LANE));
+        assertEquals(0, fanoutMetrics.laneDepth(FanoutMetrics.SHARDS_LANE));
+        assertEquals(1_200, meterRegistry.get("microblog.fanout.lane.depth").tag("lane", "small").gauge().value());
+    }
+}
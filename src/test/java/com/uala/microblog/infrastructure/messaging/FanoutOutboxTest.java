@@ -0,0 +1,127 @@
+package com.uala.microblog.infrastructure.messaging;
+
+import com.uala.microblog.infrastructure.config.RabbitMQConfig;
+import com.uala.microblog.infrastructure.document.OutboxDocument;
+import com.uala.microblog.infrastructure.messaging.dto.FanoutMessage;
+import com.uala.microblog.infrastructure.repository.MongoOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Fanout Outbox Tests")
+class FanoutOutboxTest {
+    
+    @Mock
+    private MongoOutboxRepository outboxRepository;
+    
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+    
+    @Mock
+    private ConnectionFactory connectionFactory;
+    
+    @Mock
+    private TaskScheduler taskScheduler;
+    
+    private FanoutOutbox outbox;
+    
+    @BeforeEach
+    void setUp() {
+        outbox = new FanoutOutbox(outboxRepository, rabbitTemplate, taskScheduler, new SimpleMeterRegistry(),
+            10, Duration.ofHours(1), Duration.ofMillis(200), Duration.ofSeconds(5));
+    }
+    
+    @Test
+    @DisplayName("Should delete confirmed messages and reschedule nacked ones")
+    void testRelayBatch_ConfirmsAndRetries() {
+        
+        OutboxDocument first = document("msg-1");
+        OutboxDocument second = document("msg-2");
+        when(outboxRepository.findDue(any(LocalDateTime.class), any(Limit.class))).thenReturn(List.of(first, second));
+        when(outboxRepository.findByClaimedBy(anyString())).thenReturn(List.of(first, second));
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+        doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            correlation.getFuture().complete(new CorrelationData.Confirm("msg-1".equals(correlation.getId()), "nack"));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class), any(CorrelationData.class));
+        
+        
+        int relayed = outbox.relayBatch();
+        
+        
+        assertEquals(2, relayed);
+        verify(outboxRepository).claim(eq(List.of("msg-1", "msg-2")), any(LocalDateTime.class), any(LocalDateTime.class), anyString());
+        verify(outboxRepository).deleteAllById(List.of("msg-1"));
+        verify(outboxRepository).scheduleRetry(eq(List.of("msg-2")), any(LocalDateTime.class));
+    }
+    
+    @Test
+    @DisplayName("Should retry messages whose confirm does not arrive in time")
+    void testRelayBatch_ConfirmTimeout() {
+        
+        OutboxDocument pending = document("msg-1");
+        when(outboxRepository.findDue(any(LocalDateTime.class), any(Limit.class))).thenReturn(List.of(pending));
+        when(outboxRepository.findByClaimedBy(anyString())).thenReturn(List.of(pending));
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+        
+        
+        outbox.relayBatch();
+        
+        
+        verify(outboxRepository, never()).deleteAllById(anyList());
+        verify(outboxRepository).scheduleRetry(eq(List.of("msg-1")), any(LocalDateTime.class));
+    }
+    
+    @Test
+    @DisplayName("Should not claim anything when no message is due")
+    void testRelayBatch_NothingDue() {
+        
+        when(outboxRepository.findDue(any(LocalDateTime.class), any(Limit.class))).thenReturn(List.of());
+        
+        
+        assertEquals(0, outbox.relayBatch());
+        
+        
+        verify(outboxRepository, never()).claim(anyList(), any(), any(), anyString());
+        verifyNoInteractions(rabbitTemplate);
+    }
+    
+    @Test
+    @DisplayName("Should wake the relay on the shared scheduler once per pending wake-up")
+    void testEnqueue_WakesRelayOnScheduler() {
+        
+        outbox.enqueue(RabbitMQConfig.FANOUT_ROUTING_KEY, new FanoutMessage("tweet-1", "author", "Hello", LocalDateTime.now()));
+        outbox.enqueue(RabbitMQConfig.FANOUT_ROUTING_KEY, new FanoutMessage("tweet-2", "author", "World", LocalDateTime.now()));
+        
+        
+        verify(outboxRepository, times(2)).insert(anyList());
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+    
+    private static OutboxDocument document(String id) {
+        return new OutboxDocument(id, RabbitMQConfig.FANOUT_EXCHANGE, RabbitMQConfig.FANOUT_ROUTING_KEY,
+            new FanoutMessage("tweet-" + id, "author", "Hello", LocalDateTime.now()), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,112 @@
+package com.uala.microblog.infrastructure.messaging;
+
+import com.uala.microblog.domain.entity.Tweet;
+import com.uala.microblog.domain.port.TweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Fanout Pending Sweeper Tests")
+class FanoutPendingSweeperTest {
+    
+    @Mock
+    private TweetRepository tweetRepository;
+    
+    @Mock
+    private FanoutMessageService fanoutMessageService;
+    
+    private FanoutPendingSweeper sweeper;
+    
+    @BeforeEach
+    void setUp() {
+        sweeper = new FanoutPendingSweeper(tweetRepository, fanoutMessageService, Duration.ofHours(1), Duration.ofSeconds(30), 2,
+            Duration.ofHours(4), 3);
+    }
+    
+    @Test
+    @DisplayName("Should re-send the fanout of pending tweets batch by batch until a partial batch")
+    void testSweep_ResendsPendingTweets() {
+        
+        Tweet first = new Tweet("tweet-1", "Hello", "author", LocalDateTime.now().minusMinutes(5));
+        Tweet second = new Tweet("tweet-2", "World", "author", LocalDateTime.now().minusMinutes(4));
+        Tweet third = new Tweet("tweet-3", "Again", "other", LocalDateTime.now().minusMinutes(3));
+        when(tweetRepository.findFanoutPending(any(LocalDateTime.class), isNull(), isNull(), eq(2)))
+            .thenReturn(List.of(first, second));
+        when(tweetRepository.findFanoutPending(any(LocalDateTime.class), eq(second.getCreatedAt()), eq("tweet-2"), eq(2)))
+            .thenReturn(List.of(third));
+        
+        
+        sweeper.sweep();
+        
+        
+        verify(fanoutMessageService).sendFanoutBatch(List.of(first, second));
+        verify(fanoutMessageService).sendFanoutBatch(List.of(third));
+        verify(tweetRepository, times(2)).findFanoutPending(any(LocalDateTime.class), any(), any(), eq(2));
+    }
+    
+    @Test
+    @DisplayName("Should only look at tweets older than the grace period and stop when nothing is pending")
+    void testSweep_NothingPending() {
+        
+        when(tweetRepository.findFanoutPending(any(LocalDateTime.class), isNull(), isNull(), eq(2))).thenReturn(List.of());
+        LocalDateTime before = LocalDateTime.now().minusSeconds(30);
+        
+        
+        sweeper.sweep();
+        
+        
+        verify(tweetRepository).findFanoutPending(argThat(cutoff -> !cutoff.isBefore(before)
+            && !cutoff.isAfter(LocalDateTime.now().minusSeconds(30))), isNull(), isNull(), eq(2));
+        verifyNoInteractions(fanoutMessageService);
+    }
+    
+    @Test
+    @DisplayName("Should back off a tweet that stays pending instead of re-sending it on every sweep")
+    void testSweep_BacksOffTweetsStillPending() {
+        
+        Tweet stuck = new Tweet("tweet-1", "Hello", "author", LocalDateTime.now().minusMinutes(5));
+        when(tweetRepository.findFanoutPending(any(LocalDateTime.class), isNull(), isNull(), eq(2))).thenReturn(List.of(stuck));
+        
+        
+        sweeper.sweep();
+        sweeper.sweep();
+        
+        
+        verify(fanoutMessageService, times(1)).sendFanoutBatch(List.of(stuck));
+    }
+    
+    @Test
+    @DisplayName("Should stop re-sending a tweet after max-attempts while still paging past it")
+    void testSweep_GivesUpAfterMaxAttempts() {
+        
+        FanoutPendingSweeper eagerSweeper = new FanoutPendingSweeper(tweetRepository, fanoutMessageService,
+            Duration.ZERO, Duration.ofSeconds(30), 1, Duration.ZERO, 2);
+        Tweet stuck = new Tweet("tweet-1", "Hello", "author", LocalDateTime.now().minusMinutes(5));
+        Tweet newer = new Tweet("tweet-2", "World", "author", LocalDateTime.now().minusMinutes(4));
+        when(tweetRepository.findFanoutPending(any(LocalDateTime.class), isNull(), isNull(), eq(1))).thenReturn(List.of(stuck));
+        when(tweetRepository.findFanoutPending(any(LocalDateTime.class), eq(stuck.getCreatedAt()), eq("tweet-1"), eq(1)))
+            .thenReturn(List.of(newer));
+        when(tweetRepository.findFanoutPending(any(LocalDateTime.class), eq(newer.getCreatedAt()), eq("tweet-2"), eq(1)))
+            .thenReturn(List.of());
+        
+        
+        for (int i = 0; i < 3; i++) {
+            eagerSweeper.sweep();
+        }
+        
+        
+        verify(fanoutMessageService, times(2)).sendFanoutBatch(List.of(stuck));
+        verify(fanoutMessageService, times(2)).sendFanoutBatch(List.of(newer));
+    }
+}
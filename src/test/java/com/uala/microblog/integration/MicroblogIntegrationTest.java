@@ -7,6 +7,7 @@ import com.uala.microblog.application.service.TweetService;
 import com.uala.microblog.application.service.UserService;
 import com.uala.microblog.config.TestConfig;
 import com.uala.microblog.domain.entity.User;
+import com.uala.microblog.domain.entity.UserPage;
 import com.uala.microblog.domain.entity.Tweet;
 import com.uala.microblog.infrastructure.controller.UserController;
 import com.uala.microblog.infrastructure.controller.TweetController;
@@ -24,11 +25,15 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -166,15 +171,43 @@ class MicroblogIntegrationTest {
             Tweet tweet2 = new Tweet("tweet2", "Second tweet", userId, LocalDateTime.now());
             
             // When
-            when(userService.getUserTweets(userId)).thenReturn(Arrays.asList(tweet2, tweet1));
+            when(userService.streamUserTweets(userId)).thenReturn(Stream.of(tweet2, tweet1));
             
             // Then
-            mockMvc.perform(get("/users/" + userId + "/tweets"))
+            MvcResult result = mockMvc.perform(get("/users/" + userId + "/tweets"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$", hasSize(2)))
                     .andExpect(jsonPath("$[0].content").value("Second tweet"))
                     .andExpect(jsonPath("$[1].content").value("First tweet"));
         }
+        
+        @Test
+        @DisplayName("Should stream user tweets as NDJSON when requested")
+        void testGetUserTweets_Ndjson() throws Exception {
+            // Given
+            String userId = "user123";
+            Tweet tweet1 = new Tweet("tweet1", "First tweet", userId, LocalDateTime.now());
+            Tweet tweet2 = new Tweet("tweet2", "Second tweet", userId, LocalDateTime.now());
+            
+            // When
+            when(userService.streamUserTweets(userId)).thenReturn(Stream.of(tweet2, tweet1));
+            
+            // Then
+            MvcResult result = mockMvc.perform(get("/users/" + userId + "/tweets").accept("application/x-ndjson"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-ndjson"))
+                    .andReturn().getResponse().getContentAsString();
+            String[] lines = body.split("\n");
+            assertEquals(2, lines.length);
+            assertEquals("tweet2", objectMapper.readTree(lines[0]).get("id").asText());
+            assertEquals("tweet1", objectMapper.readTree(lines[1]).get("id").asText());
+        }
     }
     
     @Nested
@@ -191,7 +224,7 @@ class MicroblogIntegrationTest {
             
             // When
             when(followService.followUser(user1Id, user2Id)).thenReturn(new com.uala.microblog.domain.entity.Follow("follow-id", user1Id, user2Id, LocalDateTime.now()));
-            when(userService.getFollowing(user1Id)).thenReturn(Arrays.asList(new User("user2", "user2", "user2@example.com", LocalDateTime.now())));
+            when(userService.streamFollowing(user1Id)).thenReturn(Stream.of(new User("user2", "user2", "user2@example.com", LocalDateTime.now())));
             
             // Then
             mockMvc.perform(post("/follow")
@@ -199,11 +232,33 @@ class MicroblogIntegrationTest {
                     .content(objectMapper.writeValueAsString(followRequest)))
                     .andExpect(status().isCreated());
             
-            mockMvc.perform(get("/users/" + user1Id + "/following"))
+            MvcResult result = mockMvc.perform(get("/users/" + user1Id + "/following"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$", hasSize(1)))
                     .andExpect(jsonPath("$[0].id").value("user2"));
         }
+        
+        @Test
+        @DisplayName("Should page followers by cursor and return the next cursor in a header")
+        void testGetFollowers_Paged() throws Exception {
+            // Given
+            String userId = "user1";
+            List<User> followers = Arrays.asList(
+                new User("user2", "user2", "user2@example.com", LocalDateTime.now()),
+                new User("user3", "user3", "user3@example.com", LocalDateTime.now()));
+            
+            // When
+            when(userService.getFollowersPage(userId, "user1", 2)).thenReturn(new UserPage(followers, "user3"));
+            
+            // Then
+            mockMvc.perform(get("/users/" + userId + "/followers").param("cursor", "user1").param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Next-Cursor", "user3"))
+                    .andExpect(jsonPath("$", hasSize(2)));
+        }
     }
     
     @Nested